@@ -0,0 +1,25 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.TableColumn;
+
+import java.time.LocalDateTime;
+
+public class BenchmarkDto {
+    @TableColumn("SERIALID")
+    public int serialId;
+
+    @TableColumn("NAME")
+    public String name;
+
+    @TableColumn("SCORE")
+    public double score;
+
+    @TableColumn("ACTIVE")
+    public boolean active;
+
+    @TableColumn("NOTE")
+    public String note;
+
+    @TableColumn("UPDATED_AT")
+    public LocalDateTime updatedAt;
+}
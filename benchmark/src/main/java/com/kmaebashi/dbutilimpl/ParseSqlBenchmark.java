@@ -0,0 +1,59 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.SqlParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* NamedParameterPreparedStatementImpl.parseSql()の速度。
+ * SqlTemplateCacheを通さず、毎回パースする。
+ * longSqlは、コメント、文字列リテラル、パラメタを含むWHERE句を繰り返した数十KBのSQL。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseSqlBenchmark {
+    private String shortSql;
+    private String longSql;
+
+    @Setup
+    public void setup() {
+        this.shortSql = """
+                SELECT * FROM PERSON
+                WHERE SERIALID = :SERIALID
+                  AND NAME = :NAME
+                """;
+        StringBuilder sb = new StringBuilder();
+        sb.append("SELECT * FROM PERSON\n");
+        sb.append("WHERE 1 = 1\n");
+        for (int i = 0; i < 500; i++) {
+            sb.append("  -- 条件").append(i).append(" (:DUMMYを含むコメント)\n");
+            sb.append("  /* ブロックコメント ").append(i).append(" */\n");
+            sb.append("  AND (COL").append(i).append(" = :PARAM").append(i)
+              .append(" OR NOTE").append(i).append(" = 'it''s :NOT_A_PARAM')\n");
+        }
+        this.longSql = sb.toString();
+    }
+
+    @Benchmark
+    public SqlAndParams parseShort() throws SqlParseException {
+        return NamedParameterPreparedStatementImpl.parseSql(this.shortSql);
+    }
+
+    @Benchmark
+    public SqlAndParams parseLong() throws SqlParseException {
+        return NamedParameterPreparedStatementImpl.parseSql(this.longSql);
+    }
+}
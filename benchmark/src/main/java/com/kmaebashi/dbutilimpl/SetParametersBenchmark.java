@@ -0,0 +1,80 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.ParameterSource;
+import com.kmaebashi.dbutilimpl.fake.FakeConnection;
+import com.kmaebashi.dbutilimpl.fake.FakePreparedStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/* NamedParameterPreparedStatementImpl.setParametersImpl()の速度。
+ * paramCount個の異なるパラメタ(整数、実数、文字列、日付、日時、NULLの繰り返し)を持つINSERT文に、
+ * MapまたはParameterSource.of(String[], Object[])から値を設定する。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetParametersBenchmark {
+    @Param({"8", "64"})
+    public int paramCount;
+
+    private SqlAndParams template;
+    private FakePreparedStatement ps;
+    private ParameterSource mapSource;
+    private ParameterSource arraySource;
+
+    @Setup
+    public void setup() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("INSERT INTO BENCHMARK_TABLE VALUES (");
+        String[] names = new String[this.paramCount];
+        Object[] values = new Object[this.paramCount];
+        HashMap<String, Object> map = new HashMap<>();
+        for (int i = 0; i < this.paramCount; i++) {
+            names[i] = "PARAM" + i;
+            values[i] = switch (i % 6) {
+                case 0 -> i;
+                case 1 -> i * 1.5;
+                case 2 -> "value" + i;
+                case 3 -> LocalDate.of(2023, 11, 4);
+                case 4 -> LocalDateTime.of(2023, 11, 4, 23, 15, 15);
+                default -> null;
+            };
+            map.put(names[i], values[i]);
+            sb.append(i == 0 ? ":" : ", :").append(names[i]);
+        }
+        sb.append(")\n");
+        this.template = NamedParameterPreparedStatementImpl.parseSql(sb.toString());
+        this.ps = new FakePreparedStatement(new FakeConnection(), this.paramCount);
+        this.mapSource = ParameterSource.of(map);
+        this.arraySource = ParameterSource.of(names, values);
+    }
+
+    @Benchmark
+    public FakePreparedStatement fromMap() throws Exception {
+        NamedParameterPreparedStatementImpl.setParametersImpl(this.ps, this.template, this.mapSource);
+        return this.ps;
+    }
+
+    @Benchmark
+    public FakePreparedStatement fromArray() throws Exception {
+        NamedParameterPreparedStatementImpl.setParametersImpl(this.ps, this.template, this.arraySource);
+        return this.ps;
+    }
+}
@@ -0,0 +1,60 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.ResultSetMapper;
+import com.kmaebashi.dbutilimpl.fake.FakeResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* ResultSetMapper.toDtoList()の速度。rows行のFakeResultSetをBenchmarkDtoのListに変換する。
+ * FakeResultSetは値を生成しないので、計測されるのはResultSetMapper自身のコストとDTOの生成分。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ToDtoListBenchmark {
+    private static final int SAMPLE_ROWS = 1024;
+
+    @Param({"1", "1000", "1000000"})
+    public int rows;
+
+    private FakeResultSet rs;
+
+    @Setup
+    public void setup() {
+        String[] names = {"SERIALID", "NAME", "SCORE", "ACTIVE", "NOTE", "UPDATED_AT"};
+        int[] types = {Types.INTEGER, Types.VARCHAR, Types.DOUBLE, Types.BOOLEAN, Types.VARCHAR, Types.TIMESTAMP};
+        Object[][] sampleRows = new Object[SAMPLE_ROWS][];
+        LocalDateTime base = LocalDateTime.of(2023, 11, 4, 0, 0, 0);
+        for (int i = 0; i < SAMPLE_ROWS; i++) {
+            sampleRows[i] = new Object[] {
+                i, "name" + i, i * 0.5, i % 2 == 0, i % 3 == 0 ? null : "note" + i,
+                Timestamp.valueOf(base.plusMinutes(i))
+            };
+        }
+        this.rs = new FakeResultSet(names, types, sampleRows, this.rows);
+    }
+
+    @Benchmark
+    public List<BenchmarkDto> toDtoList() throws Exception {
+        this.rs.reset();
+        return ResultSetMapper.toDtoList(this.rs, BenchmarkDto.class);
+    }
+}
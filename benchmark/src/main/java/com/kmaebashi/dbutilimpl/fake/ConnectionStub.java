@@ -0,0 +1,278 @@
+package com.kmaebashi.dbutilimpl.fake;
+
+/* java.sql.ConnectionのすべてのメソッドでUnsupportedOperationExceptionを投げる基底クラス。
+ * Fake*は、ベンチマークで使うメソッドだけをオーバーライドする。
+ * Proxyで実装すると、呼び出しのたびに引数のboxingや配列の生成が入って計測結果に混ざるので、具象クラスにしている。
+ * (java.sql.Connectionのメソッドの一覧から、リフレクションで機械的に生成したもの)
+ */
+public abstract class ConnectionStub implements java.sql.Connection {
+    @Override
+    public void abort(java.util.concurrent.Executor arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("abort");
+    }
+
+    @Override
+    public void clearWarnings() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("clearWarnings");
+    }
+
+    @Override
+    public void close() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("close");
+    }
+
+    @Override
+    public void commit() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("commit");
+    }
+
+    @Override
+    public java.sql.Array createArrayOf(String arg0, Object[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createArrayOf");
+    }
+
+    @Override
+    public java.sql.Blob createBlob() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createBlob");
+    }
+
+    @Override
+    public java.sql.Clob createClob() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createClob");
+    }
+
+    @Override
+    public java.sql.NClob createNClob() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createNClob");
+    }
+
+    @Override
+    public java.sql.SQLXML createSQLXML() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createSQLXML");
+    }
+
+    @Override
+    public java.sql.Statement createStatement() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createStatement");
+    }
+
+    @Override
+    public java.sql.Statement createStatement(int arg0, int arg1, int arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createStatement");
+    }
+
+    @Override
+    public java.sql.Statement createStatement(int arg0, int arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createStatement");
+    }
+
+    @Override
+    public java.sql.Struct createStruct(String arg0, Object[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("createStruct");
+    }
+
+    @Override
+    public boolean getAutoCommit() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getAutoCommit");
+    }
+
+    @Override
+    public String getCatalog() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getCatalog");
+    }
+
+    @Override
+    public java.util.Properties getClientInfo() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getClientInfo");
+    }
+
+    @Override
+    public String getClientInfo(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getClientInfo");
+    }
+
+    @Override
+    public int getHoldability() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getHoldability");
+    }
+
+    @Override
+    public java.sql.DatabaseMetaData getMetaData() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getMetaData");
+    }
+
+    @Override
+    public int getNetworkTimeout() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getNetworkTimeout");
+    }
+
+    @Override
+    public String getSchema() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getSchema");
+    }
+
+    @Override
+    public int getTransactionIsolation() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getTransactionIsolation");
+    }
+
+    @Override
+    public java.util.Map<String, Class<?>> getTypeMap() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getTypeMap");
+    }
+
+    @Override
+    public java.sql.SQLWarning getWarnings() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getWarnings");
+    }
+
+    @Override
+    public boolean isClosed() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isClosed");
+    }
+
+    @Override
+    public boolean isReadOnly() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isReadOnly");
+    }
+
+    @Override
+    public boolean isValid(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isValid");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isWrapperFor");
+    }
+
+    @Override
+    public String nativeSQL(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("nativeSQL");
+    }
+
+    @Override
+    public java.sql.CallableStatement prepareCall(String arg0, int arg1, int arg2, int arg3) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareCall");
+    }
+
+    @Override
+    public java.sql.CallableStatement prepareCall(String arg0, int arg1, int arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareCall");
+    }
+
+    @Override
+    public java.sql.CallableStatement prepareCall(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareCall");
+    }
+
+    @Override
+    public java.sql.PreparedStatement prepareStatement(String arg0, int[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareStatement");
+    }
+
+    @Override
+    public java.sql.PreparedStatement prepareStatement(String arg0, String[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareStatement");
+    }
+
+    @Override
+    public java.sql.PreparedStatement prepareStatement(String arg0, int arg1, int arg2, int arg3) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareStatement");
+    }
+
+    @Override
+    public java.sql.PreparedStatement prepareStatement(String arg0, int arg1, int arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareStatement");
+    }
+
+    @Override
+    public java.sql.PreparedStatement prepareStatement(String arg0, int arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareStatement");
+    }
+
+    @Override
+    public java.sql.PreparedStatement prepareStatement(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("prepareStatement");
+    }
+
+    @Override
+    public void releaseSavepoint(java.sql.Savepoint arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("releaseSavepoint");
+    }
+
+    @Override
+    public void rollback() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("rollback");
+    }
+
+    @Override
+    public void rollback(java.sql.Savepoint arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("rollback");
+    }
+
+    @Override
+    public void setAutoCommit(boolean arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setAutoCommit");
+    }
+
+    @Override
+    public void setCatalog(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setCatalog");
+    }
+
+    @Override
+    public void setClientInfo(String arg0, String arg1) throws java.sql.SQLClientInfoException {
+        throw new UnsupportedOperationException("setClientInfo");
+    }
+
+    @Override
+    public void setClientInfo(java.util.Properties arg0) throws java.sql.SQLClientInfoException {
+        throw new UnsupportedOperationException("setClientInfo");
+    }
+
+    @Override
+    public void setHoldability(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setHoldability");
+    }
+
+    @Override
+    public void setNetworkTimeout(java.util.concurrent.Executor arg0, int arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNetworkTimeout");
+    }
+
+    @Override
+    public void setReadOnly(boolean arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setReadOnly");
+    }
+
+    @Override
+    public java.sql.Savepoint setSavepoint() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setSavepoint");
+    }
+
+    @Override
+    public java.sql.Savepoint setSavepoint(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setSavepoint");
+    }
+
+    @Override
+    public void setSchema(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setSchema");
+    }
+
+    @Override
+    public void setTransactionIsolation(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setTransactionIsolation");
+    }
+
+    @Override
+    public void setTypeMap(java.util.Map<String, Class<?>> arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setTypeMap");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("unwrap");
+    }
+}
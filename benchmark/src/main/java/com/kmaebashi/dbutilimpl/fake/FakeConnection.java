@@ -0,0 +1,35 @@
+package com.kmaebashi.dbutilimpl.fake;
+
+import java.sql.PreparedStatement;
+
+/* prepareStatement()でFakePreparedStatementを返すだけのConnection。
+ */
+public class FakeConnection extends ConnectionStub {
+    private boolean autoCommit = true;
+    private boolean closed;
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) {
+        return new FakePreparedStatement(this, 64);
+    }
+
+    @Override
+    public boolean getAutoCommit() {
+        return this.autoCommit;
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) {
+        this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed;
+    }
+}
@@ -0,0 +1,150 @@
+package com.kmaebashi.dbutilimpl.fake;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+/* 設定されたパラメタを配列に保持するだけのPreparedStatement。
+ * プリミティブ型の値はlongの配列に格納し、boxingしない(ドライバ側のアロケーションを計測に含めないため)。
+ * executeQuery()は、setResultSet()で設定したResultSetを返す。
+ */
+public class FakePreparedStatement extends PreparedStatementStub {
+    private final Connection connection;
+    private long[] primitives;
+    private Object[] objects;
+    private ResultSet resultSet;
+    private boolean closed;
+
+    public FakePreparedStatement(Connection connection, int capacity) {
+        this.connection = connection;
+        this.primitives = new long[capacity + 1];
+        this.objects = new Object[capacity + 1];
+    }
+
+    public void setResultSet(ResultSet resultSet) {
+        this.resultSet = resultSet;
+    }
+
+    public long getPrimitive(int index) {
+        return this.primitives[index];
+    }
+
+    public Object getObject(int index) {
+        return this.objects[index];
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= this.primitives.length) {
+            this.primitives = Arrays.copyOf(this.primitives, index * 2);
+            this.objects = Arrays.copyOf(this.objects, index * 2);
+        }
+    }
+
+    private void setPrimitive(int index, long value) {
+        ensureCapacity(index);
+        this.primitives[index] = value;
+        this.objects[index] = null;
+    }
+
+    private void setReference(int index, Object value) {
+        ensureCapacity(index);
+        this.objects[index] = value;
+    }
+
+    @Override
+    public void setInt(int index, int value) {
+        setPrimitive(index, value);
+    }
+
+    @Override
+    public void setLong(int index, long value) {
+        setPrimitive(index, value);
+    }
+
+    @Override
+    public void setShort(int index, short value) {
+        setPrimitive(index, value);
+    }
+
+    @Override
+    public void setDouble(int index, double value) {
+        setPrimitive(index, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void setFloat(int index, float value) {
+        setPrimitive(index, Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void setBoolean(int index, boolean value) {
+        setPrimitive(index, value ? 1 : 0);
+    }
+
+    @Override
+    public void setString(int index, String value) {
+        setReference(index, value);
+    }
+
+    @Override
+    public void setBigDecimal(int index, BigDecimal value) {
+        setReference(index, value);
+    }
+
+    @Override
+    public void setDate(int index, Date value) {
+        setReference(index, value);
+    }
+
+    @Override
+    public void setTimestamp(int index, Timestamp value) {
+        setReference(index, value);
+    }
+
+    @Override
+    public void setBytes(int index, byte[] value) {
+        setReference(index, value);
+    }
+
+    @Override
+    public void setObject(int index, Object value) {
+        setReference(index, value);
+    }
+
+    @Override
+    public void setNull(int index, int sqlType) {
+        setPrimitive(index, sqlType);
+    }
+
+    @Override
+    public void clearParameters() {
+        Arrays.fill(this.objects, null);
+    }
+
+    @Override
+    public ResultSet executeQuery() {
+        return this.resultSet;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return this.connection;
+    }
+
+    @Override
+    public void setFetchSize(int rows) {
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed;
+    }
+}
@@ -0,0 +1,132 @@
+package com.kmaebashi.dbutilimpl.fake;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+
+/* rowCount行を返すResultSet。
+ * 100万行分の値をメモリに持たないよう、値はsampleRowsを繰り返して返す(行番号 % sampleRows.length)。
+ * getInt()等はsampleRowsに格納したボックス型の値をunboxingするだけで、アロケーションは発生しない。
+ * 繰り返し使う場合は、ベンチマークの呼び出しごとにreset()すること。
+ */
+public class FakeResultSet extends ResultSetStub {
+    private final FakeResultSetMetaData metaData;
+    private final Object[][] sampleRows;
+    private final int rowCount;
+    private int row = -1;
+    private Object[] current;
+    private boolean wasNull;
+    private boolean closed;
+
+    public FakeResultSet(String[] columnNames, int[] columnTypes, Object[][] sampleRows, int rowCount) {
+        this.metaData = new FakeResultSetMetaData(columnNames, columnTypes);
+        this.sampleRows = sampleRows;
+        this.rowCount = rowCount;
+    }
+
+    public void reset() {
+        this.row = -1;
+        this.current = null;
+    }
+
+    private Object value(int columnIndex) {
+        Object value = this.current[columnIndex - 1];
+        this.wasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() {
+        return this.metaData;
+    }
+
+    @Override
+    public boolean next() {
+        if (this.row + 1 >= this.rowCount) {
+            this.row = this.rowCount;
+            this.current = null;
+            return false;
+        }
+        this.row++;
+        this.current = this.sampleRows[this.row % this.sampleRows.length];
+        return true;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return this.wasNull;
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).shortValue();
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? 0.0 : ((Number) value).doubleValue();
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? 0.0f : ((Number) value).floatValue();
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) {
+        Object value = value(columnIndex);
+        return value != null && (Boolean) value;
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) {
+        return (BigDecimal) value(columnIndex);
+    }
+
+    @Override
+    public Date getDate(int columnIndex) {
+        return (Date) value(columnIndex);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) {
+        return (Timestamp) value(columnIndex);
+    }
+
+    @Override
+    public Object getObject(int columnIndex) {
+        return value(columnIndex);
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed;
+    }
+}
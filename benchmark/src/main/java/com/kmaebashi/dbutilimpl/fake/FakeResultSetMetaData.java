@@ -0,0 +1,31 @@
+package com.kmaebashi.dbutilimpl.fake;
+
+public class FakeResultSetMetaData extends ResultSetMetaDataStub {
+    private final String[] columnNames;
+    private final int[] columnTypes;
+
+    public FakeResultSetMetaData(String[] columnNames, int[] columnTypes) {
+        this.columnNames = columnNames;
+        this.columnTypes = columnTypes;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return this.columnNames[column - 1];
+    }
+
+    @Override
+    public String getColumnLabel(int column) {
+        return this.columnNames[column - 1];
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return this.columnTypes[column - 1];
+    }
+}
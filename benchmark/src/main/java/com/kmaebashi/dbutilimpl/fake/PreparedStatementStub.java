@@ -0,0 +1,503 @@
+package com.kmaebashi.dbutilimpl.fake;
+
+/* java.sql.PreparedStatementのすべてのメソッドでUnsupportedOperationExceptionを投げる基底クラス。
+ * Fake*は、ベンチマークで使うメソッドだけをオーバーライドする。
+ * Proxyで実装すると、呼び出しのたびに引数のboxingや配列の生成が入って計測結果に混ざるので、具象クラスにしている。
+ * (java.sql.PreparedStatementのメソッドの一覧から、リフレクションで機械的に生成したもの)
+ */
+public abstract class PreparedStatementStub implements java.sql.PreparedStatement {
+    @Override
+    public void addBatch() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("addBatch");
+    }
+
+    @Override
+    public void addBatch(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("addBatch");
+    }
+
+    @Override
+    public void cancel() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("cancel");
+    }
+
+    @Override
+    public void clearBatch() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("clearBatch");
+    }
+
+    @Override
+    public void clearParameters() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("clearParameters");
+    }
+
+    @Override
+    public void clearWarnings() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("clearWarnings");
+    }
+
+    @Override
+    public void close() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("close");
+    }
+
+    @Override
+    public void closeOnCompletion() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("closeOnCompletion");
+    }
+
+    @Override
+    public boolean execute() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("execute");
+    }
+
+    @Override
+    public boolean execute(String arg0, int[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("execute");
+    }
+
+    @Override
+    public boolean execute(String arg0, String[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("execute");
+    }
+
+    @Override
+    public boolean execute(String arg0, int arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("execute");
+    }
+
+    @Override
+    public boolean execute(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("execute");
+    }
+
+    @Override
+    public int[] executeBatch() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("executeBatch");
+    }
+
+    @Override
+    public java.sql.ResultSet executeQuery() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("executeQuery");
+    }
+
+    @Override
+    public java.sql.ResultSet executeQuery(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("executeQuery");
+    }
+
+    @Override
+    public int executeUpdate() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("executeUpdate");
+    }
+
+    @Override
+    public int executeUpdate(String arg0, int[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("executeUpdate");
+    }
+
+    @Override
+    public int executeUpdate(String arg0, String[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("executeUpdate");
+    }
+
+    @Override
+    public int executeUpdate(String arg0, int arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("executeUpdate");
+    }
+
+    @Override
+    public int executeUpdate(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("executeUpdate");
+    }
+
+    @Override
+    public java.sql.Connection getConnection() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getConnection");
+    }
+
+    @Override
+    public int getFetchDirection() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getFetchDirection");
+    }
+
+    @Override
+    public int getFetchSize() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getFetchSize");
+    }
+
+    @Override
+    public java.sql.ResultSet getGeneratedKeys() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getGeneratedKeys");
+    }
+
+    @Override
+    public int getMaxFieldSize() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getMaxFieldSize");
+    }
+
+    @Override
+    public int getMaxRows() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getMaxRows");
+    }
+
+    @Override
+    public java.sql.ResultSetMetaData getMetaData() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getMetaData");
+    }
+
+    @Override
+    public boolean getMoreResults() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getMoreResults");
+    }
+
+    @Override
+    public boolean getMoreResults(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getMoreResults");
+    }
+
+    @Override
+    public java.sql.ParameterMetaData getParameterMetaData() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getParameterMetaData");
+    }
+
+    @Override
+    public int getQueryTimeout() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getQueryTimeout");
+    }
+
+    @Override
+    public java.sql.ResultSet getResultSet() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getResultSet");
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getResultSetConcurrency");
+    }
+
+    @Override
+    public int getResultSetHoldability() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getResultSetHoldability");
+    }
+
+    @Override
+    public int getResultSetType() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getResultSetType");
+    }
+
+    @Override
+    public int getUpdateCount() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getUpdateCount");
+    }
+
+    @Override
+    public java.sql.SQLWarning getWarnings() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getWarnings");
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isCloseOnCompletion");
+    }
+
+    @Override
+    public boolean isClosed() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isClosed");
+    }
+
+    @Override
+    public boolean isPoolable() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isPoolable");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isWrapperFor");
+    }
+
+    @Override
+    public void setArray(int arg0, java.sql.Array arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setArray");
+    }
+
+    @Override
+    public void setAsciiStream(int arg0, java.io.InputStream arg1, int arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setAsciiStream");
+    }
+
+    @Override
+    public void setAsciiStream(int arg0, java.io.InputStream arg1, long arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setAsciiStream");
+    }
+
+    @Override
+    public void setAsciiStream(int arg0, java.io.InputStream arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setAsciiStream");
+    }
+
+    @Override
+    public void setBigDecimal(int arg0, java.math.BigDecimal arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBigDecimal");
+    }
+
+    @Override
+    public void setBinaryStream(int arg0, java.io.InputStream arg1, int arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBinaryStream");
+    }
+
+    @Override
+    public void setBinaryStream(int arg0, java.io.InputStream arg1, long arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBinaryStream");
+    }
+
+    @Override
+    public void setBinaryStream(int arg0, java.io.InputStream arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBinaryStream");
+    }
+
+    @Override
+    public void setBlob(int arg0, java.io.InputStream arg1, long arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBlob");
+    }
+
+    @Override
+    public void setBlob(int arg0, java.io.InputStream arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBlob");
+    }
+
+    @Override
+    public void setBlob(int arg0, java.sql.Blob arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBlob");
+    }
+
+    @Override
+    public void setBoolean(int arg0, boolean arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBoolean");
+    }
+
+    @Override
+    public void setByte(int arg0, byte arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setByte");
+    }
+
+    @Override
+    public void setBytes(int arg0, byte[] arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setBytes");
+    }
+
+    @Override
+    public void setCharacterStream(int arg0, java.io.Reader arg1, int arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setCharacterStream");
+    }
+
+    @Override
+    public void setCharacterStream(int arg0, java.io.Reader arg1, long arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setCharacterStream");
+    }
+
+    @Override
+    public void setCharacterStream(int arg0, java.io.Reader arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setCharacterStream");
+    }
+
+    @Override
+    public void setClob(int arg0, java.io.Reader arg1, long arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setClob");
+    }
+
+    @Override
+    public void setClob(int arg0, java.io.Reader arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setClob");
+    }
+
+    @Override
+    public void setClob(int arg0, java.sql.Clob arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setClob");
+    }
+
+    @Override
+    public void setCursorName(String arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setCursorName");
+    }
+
+    @Override
+    public void setDate(int arg0, java.sql.Date arg1, java.util.Calendar arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setDate");
+    }
+
+    @Override
+    public void setDate(int arg0, java.sql.Date arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setDate");
+    }
+
+    @Override
+    public void setDouble(int arg0, double arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setDouble");
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setEscapeProcessing");
+    }
+
+    @Override
+    public void setFetchDirection(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setFetchDirection");
+    }
+
+    @Override
+    public void setFetchSize(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setFetchSize");
+    }
+
+    @Override
+    public void setFloat(int arg0, float arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setFloat");
+    }
+
+    @Override
+    public void setInt(int arg0, int arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setInt");
+    }
+
+    @Override
+    public void setLong(int arg0, long arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setLong");
+    }
+
+    @Override
+    public void setMaxFieldSize(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setMaxFieldSize");
+    }
+
+    @Override
+    public void setMaxRows(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setMaxRows");
+    }
+
+    @Override
+    public void setNCharacterStream(int arg0, java.io.Reader arg1, long arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNCharacterStream");
+    }
+
+    @Override
+    public void setNCharacterStream(int arg0, java.io.Reader arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNCharacterStream");
+    }
+
+    @Override
+    public void setNClob(int arg0, java.io.Reader arg1, long arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNClob");
+    }
+
+    @Override
+    public void setNClob(int arg0, java.io.Reader arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNClob");
+    }
+
+    @Override
+    public void setNClob(int arg0, java.sql.NClob arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNClob");
+    }
+
+    @Override
+    public void setNString(int arg0, String arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNString");
+    }
+
+    @Override
+    public void setNull(int arg0, int arg1, String arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNull");
+    }
+
+    @Override
+    public void setNull(int arg0, int arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setNull");
+    }
+
+    @Override
+    public void setObject(int arg0, Object arg1, int arg2, int arg3) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setObject");
+    }
+
+    @Override
+    public void setObject(int arg0, Object arg1, int arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setObject");
+    }
+
+    @Override
+    public void setObject(int arg0, Object arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setObject");
+    }
+
+    @Override
+    public void setPoolable(boolean arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setPoolable");
+    }
+
+    @Override
+    public void setQueryTimeout(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setQueryTimeout");
+    }
+
+    @Override
+    public void setRef(int arg0, java.sql.Ref arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setRef");
+    }
+
+    @Override
+    public void setRowId(int arg0, java.sql.RowId arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setRowId");
+    }
+
+    @Override
+    public void setSQLXML(int arg0, java.sql.SQLXML arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setSQLXML");
+    }
+
+    @Override
+    public void setShort(int arg0, short arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setShort");
+    }
+
+    @Override
+    public void setString(int arg0, String arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setString");
+    }
+
+    @Override
+    public void setTime(int arg0, java.sql.Time arg1, java.util.Calendar arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setTime");
+    }
+
+    @Override
+    public void setTime(int arg0, java.sql.Time arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setTime");
+    }
+
+    @Override
+    public void setTimestamp(int arg0, java.sql.Timestamp arg1, java.util.Calendar arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setTimestamp");
+    }
+
+    @Override
+    public void setTimestamp(int arg0, java.sql.Timestamp arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setTimestamp");
+    }
+
+    @Override
+    public void setURL(int arg0, java.net.URL arg1) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setURL");
+    }
+
+    @Override
+    public void setUnicodeStream(int arg0, java.io.InputStream arg1, int arg2) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("setUnicodeStream");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("unwrap");
+    }
+}
@@ -0,0 +1,123 @@
+package com.kmaebashi.dbutilimpl.fake;
+
+/* java.sql.ResultSetMetaDataのすべてのメソッドでUnsupportedOperationExceptionを投げる基底クラス。
+ * Fake*は、ベンチマークで使うメソッドだけをオーバーライドする。
+ * Proxyで実装すると、呼び出しのたびに引数のboxingや配列の生成が入って計測結果に混ざるので、具象クラスにしている。
+ * (java.sql.ResultSetMetaDataのメソッドの一覧から、リフレクションで機械的に生成したもの)
+ */
+public abstract class ResultSetMetaDataStub implements java.sql.ResultSetMetaData {
+    @Override
+    public String getCatalogName(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getCatalogName");
+    }
+
+    @Override
+    public String getColumnClassName(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getColumnClassName");
+    }
+
+    @Override
+    public int getColumnCount() throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getColumnCount");
+    }
+
+    @Override
+    public int getColumnDisplaySize(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getColumnDisplaySize");
+    }
+
+    @Override
+    public String getColumnLabel(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getColumnLabel");
+    }
+
+    @Override
+    public String getColumnName(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getColumnName");
+    }
+
+    @Override
+    public int getColumnType(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getColumnType");
+    }
+
+    @Override
+    public String getColumnTypeName(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getColumnTypeName");
+    }
+
+    @Override
+    public int getPrecision(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getPrecision");
+    }
+
+    @Override
+    public int getScale(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getScale");
+    }
+
+    @Override
+    public String getSchemaName(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getSchemaName");
+    }
+
+    @Override
+    public String getTableName(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("getTableName");
+    }
+
+    @Override
+    public boolean isAutoIncrement(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isAutoIncrement");
+    }
+
+    @Override
+    public boolean isCaseSensitive(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isCaseSensitive");
+    }
+
+    @Override
+    public boolean isCurrency(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isCurrency");
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isDefinitelyWritable");
+    }
+
+    @Override
+    public int isNullable(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isNullable");
+    }
+
+    @Override
+    public boolean isReadOnly(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isReadOnly");
+    }
+
+    @Override
+    public boolean isSearchable(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isSearchable");
+    }
+
+    @Override
+    public boolean isSigned(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isSigned");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isWrapperFor");
+    }
+
+    @Override
+    public boolean isWritable(int arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("isWritable");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> arg0) throws java.sql.SQLException {
+        throw new UnsupportedOperationException("unwrap");
+    }
+}
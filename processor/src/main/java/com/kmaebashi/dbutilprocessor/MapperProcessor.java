@@ -0,0 +1,577 @@
+package com.kmaebashi.dbutilprocessor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* @TableColumnを付けたDTOごとに、com.kmaebashi.dbutil.GeneratedDtoMapperの実装を生成する注釈処理。
+ * DbUtilの本体とは別のjar(DbUtil-processor)にしてあり、利用する側でannotationProcessorPathsなどに指定して実行する。
+ * 生成するクラスは、パッケージプライベートのフィールドにも直接アクセスできるようDTOと同じパッケージに置き、
+ * 名前は入れ子のクラス名を_でつないだものに_DbUtilMapperを付けたものとする(実行時には、GeneratedMappersがこの名前で探す)。
+ * privateなフィールドや、読み出しに対応していない型のフィールドがあるなど、DTOへの変換とパラメタの設定の
+ * どちらかでも生成できない場合は、そのDTOのクラスは生成せず、実行時にリフレクションで処理される(その旨をNOTEとして出力する)。
+ */
+@SupportedAnnotationTypes("com.kmaebashi.dbutil.TableColumn")
+public class MapperProcessor extends AbstractProcessor {
+    private static final String TABLE_COLUMN = "com.kmaebashi.dbutil.TableColumn";
+    private static final String TABLE_CONSTRUCTOR = "com.kmaebashi.dbutil.TableConstructor";
+    private static final String MAPPER_INTERFACE = "com.kmaebashi.dbutil.GeneratedDtoMapper";
+    private static final String SUFFIX = "_DbUtilMapper";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            return false;
+        }
+        TypeElement tableColumn = this.processingEnv.getElementUtils().getTypeElement(TABLE_COLUMN);
+        if (tableColumn == null) {
+            return false;
+        }
+        // recordの場合、同じ@TableColumnが構成要素、フィールド、コンストラクタの引数のすべてに付く。
+        Set<TypeElement> dtoClasses = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(tableColumn)) {
+            TypeElement dtoClass = dtoClassOf(element);
+            if (dtoClass != null) {
+                dtoClasses.add(dtoClass);
+            }
+        }
+        for (TypeElement dtoClass : dtoClasses) {
+            try {
+                generate(dtoClass);
+            } catch (IOException ex) {
+                error(dtoClass, "マッピングのクラスを出力できませんでした(" + ex + ")。");
+            }
+        }
+        return false;
+    }
+
+    private static TypeElement dtoClassOf(Element element) {
+        Element enclosing = element.getEnclosingElement();
+        if (element.getKind() == ElementKind.PARAMETER) {
+            if (enclosing.getKind() != ElementKind.CONSTRUCTOR) {
+                return null;
+            }
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return enclosing instanceof TypeElement typeElement ? typeElement : null;
+    }
+
+    private void generate(TypeElement dtoClass) throws IOException {
+        String reason = checkClass(dtoClass);
+        if (reason != null) {
+            note(dtoClass, reason);
+            return;
+        }
+        MapSide mapSide = mapSide(dtoClass);
+        BindSide bindSide = bindSide(dtoClass);
+        if (mapSide.reason != null || bindSide.reason != null) {
+            note(dtoClass, (mapSide.reason != null ? mapSide.reason : bindSide.reason) + "リフレクションで処理します。");
+            return;
+        }
+        String packageName = packageOf(dtoClass).getQualifiedName().toString();
+        String simpleName = flatName(dtoClass) + SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(qualifiedName, dtoClass).openWriter();
+             PrintWriter out = new PrintWriter(writer)) {
+            writeSource(out, packageName, simpleName, dtoClass, mapSide, bindSide);
+        }
+    }
+
+    private String checkClass(TypeElement dtoClass) {
+        if (dtoClass.getKind() != ElementKind.CLASS && dtoClass.getKind() != ElementKind.RECORD) {
+            return "クラスでもrecordでもありません。";
+        }
+        if (dtoClass.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "抽象クラスです。";
+        }
+        if (!dtoClass.getTypeParameters().isEmpty()) {
+            return "型パラメタがあります。";
+        }
+        for (Element element = dtoClass; element instanceof TypeElement type;
+             element = element.getEnclosingElement()) {
+            if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+                return "ローカルクラスまたは無名クラスです。";
+            }
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                return "privateなクラスです。";
+            }
+            if (type.getNestingKind() == NestingKind.MEMBER && type.getKind() == ElementKind.CLASS
+                && !type.getModifiers().contains(Modifier.STATIC)) {
+                return "staticでない内部クラスです。";
+            }
+        }
+        return null;
+    }
+
+    /* DTOへの変換に使う列。recordなら標準コンストラクタ、@TableConstructorがあればそのコンストラクタ、
+     * どちらもなければ引数なしのコンストラクタで生成して@TableColumnを付けたフィールドに代入する
+     * (実行時のDtoAccessorと同じ順で判定する)。
+     */
+    private MapSide mapSide(TypeElement dtoClass) {
+        MapSide side = new MapSide();
+        if (dtoClass.getKind() == ElementKind.RECORD) {
+            for (RecordComponentElement component : dtoClass.getRecordComponents()) {
+                side.columns.add(columnOf(component, component.getSimpleName().toString(),
+                                          component.asType()));
+            }
+            side.useConstructor = true;
+        } else {
+            ExecutableElement rowCtor = null;
+            for (ExecutableElement ctor : ElementFilter.constructorsIn(dtoClass.getEnclosedElements())) {
+                if (findAnnotation(ctor, TABLE_CONSTRUCTOR) != null) {
+                    if (rowCtor != null) {
+                        side.reason = "@TableConstructorが複数あります。";
+                        return side;
+                    }
+                    rowCtor = ctor;
+                }
+            }
+            if (rowCtor != null) {
+                if (rowCtor.getModifiers().contains(Modifier.PRIVATE)) {
+                    side.reason = "@TableConstructorを付けたコンストラクタがprivateです。";
+                    return side;
+                }
+                for (VariableElement param : rowCtor.getParameters()) {
+                    side.columns.add(columnOf(param, param.getSimpleName().toString(), param.asType()));
+                }
+                side.useConstructor = true;
+            }
+        }
+        if (!side.useConstructor) {
+            if (!hasNoArgConstructor(dtoClass)) {
+                side.reason = "privateでない、引数なしのコンストラクタがありません。";
+                return side;
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(dtoClass.getEnclosedElements())) {
+                Column column = columnOf(field, field.getSimpleName().toString(), field.asType());
+                if (column.name == null) {
+                    continue;
+                }
+                if (field.getModifiers().contains(Modifier.PRIVATE)
+                    || field.getModifiers().contains(Modifier.FINAL)
+                    || field.getModifiers().contains(Modifier.STATIC)) {
+                    side.reason = "フィールド" + field.getSimpleName() + "がprivate、finalまたはstaticです。";
+                    return side;
+                }
+                side.columns.add(column);
+            }
+        }
+        for (Column column : side.columns) {
+            if (column.name != null && !isSupported(column.type)) {
+                side.reason = column.javaName + "の型" + column.type + "の読み出しには対応していません。";
+                return side;
+            }
+        }
+        return side;
+    }
+
+    // パラメタの値を読むフィールド。recordなら構成要素のアクセサ、それ以外は@TableColumnを付けたフィールド。
+    private BindSide bindSide(TypeElement dtoClass) {
+        BindSide side = new BindSide();
+        if (dtoClass.getKind() == ElementKind.RECORD) {
+            for (RecordComponentElement component : dtoClass.getRecordComponents()) {
+                Column column = columnOf(component, component.getSimpleName() + "()", component.asType());
+                if (column.name != null) {
+                    side.columns.add(column);
+                }
+            }
+            return side;
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(dtoClass.getEnclosedElements())) {
+            Column column = columnOf(field, field.getSimpleName().toString(), field.asType());
+            if (column.name == null) {
+                continue;
+            }
+            if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.STATIC)) {
+                side.reason = "フィールド" + field.getSimpleName() + "がprivateまたはstaticです。";
+                return side;
+            }
+            side.columns.add(column);
+        }
+        return side;
+    }
+
+    private static boolean hasNoArgConstructor(TypeElement dtoClass) {
+        for (ExecutableElement ctor : ElementFilter.constructorsIn(dtoClass.getEnclosedElements())) {
+            if (ctor.getParameters().isEmpty()) {
+                return !ctor.getModifiers().contains(Modifier.PRIVATE);
+            }
+        }
+        return false;
+    }
+
+    private Column columnOf(Element element, String javaName, TypeMirror type) {
+        Column column = new Column(javaName, type);
+        AnnotationMirror mirror = findAnnotation(element, TABLE_COLUMN);
+        if (mirror != null) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : this.processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                if (key.equals("value")) {
+                    column.name = (String) entry.getValue().getValue();
+                } else if (key.equals("trim")) {
+                    column.trim = (Boolean) entry.getValue().getValue();
+                }
+            }
+        }
+        return column;
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    // 組み込みの変換(ConverterRegistry)のうち、列の型によらず読み出し方が1通りに決まるもの。
+    private static boolean isSupported(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+            case LONG:
+            case SHORT:
+            case FLOAT:
+            case DOUBLE:
+            case BOOLEAN:
+                return true;
+            case ARRAY:
+                return type.toString().equals("byte[]");
+            case DECLARED:
+                if (((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) {
+                    return true;
+                }
+                return readExpression(qualifiedName(type)) != null;
+            default:
+                return false;
+        }
+    }
+
+    private static String qualifiedName(TypeMirror type) {
+        return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+    }
+
+    /* 参照型の値を読み出す式。rs.getXxx(idx)の値をそのまま使えない型の場合は、1行目でvalueという名前の変数に
+     * 読んでおき、2行目にそれを変換する式を返す。対応していない型ならnullを返す。
+     */
+    private static String readExpression(String typeName) {
+        switch (typeName) {
+            case "java.lang.Integer":
+                return "int value = rs.getInt(idx);\n"
+                        + "rs.wasNull() ? null : java.lang.Integer.valueOf(value)";
+            case "java.lang.Long":
+                return "long value = rs.getLong(idx);\n"
+                        + "rs.wasNull() ? null : java.lang.Long.valueOf(value)";
+            case "java.lang.Short":
+                return "short value = rs.getShort(idx);\n"
+                        + "rs.wasNull() ? null : java.lang.Short.valueOf(value)";
+            case "java.lang.Float":
+                return "float value = rs.getFloat(idx);\n"
+                        + "rs.wasNull() ? null : java.lang.Float.valueOf(value)";
+            case "java.lang.Double":
+                return "double value = rs.getDouble(idx);\n"
+                        + "rs.wasNull() ? null : java.lang.Double.valueOf(value)";
+            case "java.lang.Boolean":
+                return "boolean value = rs.getBoolean(idx);\n"
+                        + "rs.wasNull() ? null : java.lang.Boolean.valueOf(value)";
+            case "java.lang.String":
+                return "rs.getString(idx)";
+            case "java.math.BigDecimal":
+                return "rs.getBigDecimal(idx)";
+            case "java.sql.Date":
+                return "rs.getDate(idx)";
+            case "java.sql.Timestamp":
+                return "rs.getTimestamp(idx)";
+            case "java.time.LocalDate":
+                return "java.sql.Date value = rs.getDate(idx);\n"
+                        + "value == null ? null : value.toLocalDate()";
+            case "java.time.LocalDateTime":
+                return "java.sql.Timestamp value = rs.getTimestamp(idx);\n"
+                        + "value == null ? null : value.toLocalDateTime()";
+            case "java.time.Instant":
+                return "java.sql.Timestamp value = rs.getTimestamp(idx);\n"
+                        + "value == null ? null : value.toInstant()";
+            case "java.time.OffsetDateTime":
+                return "rs.getObject(idx, java.time.OffsetDateTime.class)";
+            case "java.util.UUID":
+                return "rs.getObject(idx, java.util.UUID.class)";
+            default:
+                return null;
+        }
+    }
+
+    // 列の値をtargetに代入する文。rsとidxは生成するメソッドの変数。
+    private static void writeRead(PrintWriter out, String indent, Column column, String target) {
+        TypeMirror type = column.type;
+        if (type.getKind().isPrimitive()) {
+            String name = type.toString();
+            out.println(indent + target + " = rs.get" + Character.toUpperCase(name.charAt(0)) + name.substring(1)
+                        + "(idx);");
+            return;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            out.println(indent + target + " = rs.getBytes(idx);");
+            return;
+        }
+        String expression;
+        if (((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) {
+            expression = "java.lang.String value = rs.getString(idx);\n"
+                    + "value == null ? null : " + qualifiedName(type) + ".valueOf(value)";
+        } else if (column.trim && qualifiedName(type).equals("java.lang.String")) {
+            expression = "java.lang.String value = rs.getString(idx);\n"
+                    + "value == null ? null : value.stripTrailing()";
+        } else {
+            expression = readExpression(qualifiedName(type));
+        }
+        String[] lines = expression.split("\n");
+        if (lines.length == 1) {
+            out.println(indent + target + " = " + lines[0] + ";");
+        } else {
+            out.println(indent + lines[0]);
+            out.println(indent + target + " = " + lines[1] + ";");
+        }
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        if (type.getKind() == TypeKind.BOOLEAN) {
+            return "false";
+        } else if (type.getKind() == TypeKind.INT) {
+            return "0";
+        } else if (type.getKind().isPrimitive()) {
+            return "(" + type + ") 0";
+        }
+        return "null";
+    }
+
+    private void writeSource(PrintWriter out, String packageName, String simpleName, TypeElement dtoClass,
+                             MapSide mapSide, BindSide bindSide) {
+        String dtoName = dtoClass.getQualifiedName().toString();
+        List<Column> mapColumns = new ArrayList<>();
+        for (Column column : mapSide.columns) {
+            if (column.name != null) {
+                mapColumns.add(column);
+            }
+        }
+        if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("@javax.annotation.processing.Generated(\"" + MapperProcessor.class.getName() + "\")");
+        out.println("public final class " + simpleName + " implements " + MAPPER_INTERFACE + "<" + dtoName + "> {");
+        writeNameArray(out, "COLUMN_NAMES", mapColumns);
+        writeTypeArray(out, "COLUMN_TYPES", mapColumns);
+        writeNameArray(out, "PARAMETER_NAMES", bindSide.columns);
+        writeTypeArray(out, "PARAMETER_TYPES", bindSide.columns);
+        out.println();
+        out.println("    @Override");
+        out.println("    public java.lang.Class<" + dtoName + "> getDtoClass() {");
+        out.println("        return " + dtoName + ".class;");
+        out.println("    }");
+        writeArrayGetter(out, "java.lang.String[]", "getColumnNames", "COLUMN_NAMES");
+        writeArrayGetter(out, "java.lang.Class<?>[]", "getColumnTypes", "COLUMN_TYPES");
+        writeArrayGetter(out, "java.lang.String[]", "getParameterNames", "PARAMETER_NAMES");
+        writeArrayGetter(out, "java.lang.Class<?>[]", "getParameterTypes", "PARAMETER_TYPES");
+
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + dtoName + " map(java.sql.ResultSet rs, int[] columnIndexes)"
+                    + " throws java.sql.SQLException {");
+        if (mapSide.useConstructor) {
+            writeConstructorMap(out, dtoName, mapSide.columns);
+        } else {
+            writeFieldMap(out, dtoName, mapColumns);
+        }
+        out.println("    }");
+
+        out.println();
+        out.println("    @Override");
+        out.println("    public java.lang.Object getValue(" + dtoName + " dto, int index) {");
+        out.println("        switch (index) {");
+        for (int i = 0; i < bindSide.columns.size(); i++) {
+            out.println("            case " + i + ":");
+            out.println("                return dto." + bindSide.columns.get(i).javaName + ";");
+        }
+        out.println("            default:");
+        out.println("                throw new java.lang.IndexOutOfBoundsException(index);");
+        out.println("        }");
+        out.println("    }");
+        writePrimitiveGetter(out, dtoName, bindSide.columns, TypeKind.INT, "int", "getInt");
+        writePrimitiveGetter(out, dtoName, bindSide.columns, TypeKind.LONG, "long", "getLong");
+        writePrimitiveGetter(out, dtoName, bindSide.columns, TypeKind.DOUBLE, "double", "getDouble");
+        writePrimitiveGetter(out, dtoName, bindSide.columns, TypeKind.BOOLEAN, "boolean", "getBoolean");
+        out.println("}");
+    }
+
+    // getValue()のうち、型がkindの列だけを、boxingせずに返すメソッド。
+    private static void writePrimitiveGetter(PrintWriter out, String dtoName, List<Column> columns, TypeKind kind,
+                                             String typeName, String method) {
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + typeName + " " + method + "(" + dtoName + " dto, int index) {");
+        out.println("        switch (index) {");
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).type.getKind() == kind) {
+                out.println("            case " + i + ":");
+                out.println("                return dto." + columns.get(i).javaName + ";");
+            }
+        }
+        out.println("            default:");
+        out.println("                throw new java.lang.IndexOutOfBoundsException(index);");
+        out.println("        }");
+        out.println("    }");
+    }
+
+    private static void writeFieldMap(PrintWriter out, String dtoName, List<Column> columns) {
+        out.println("        " + dtoName + " dto = new " + dtoName + "();");
+        if (!columns.isEmpty()) {
+            out.println("        int idx;");
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            out.println("        if ((idx = columnIndexes[" + i + "]) > 0) {");
+            writeRead(out, "            ", columns.get(i), "dto." + columns.get(i).javaName);
+            out.println("        }");
+        }
+        out.println("        return dto;");
+    }
+
+    private static void writeConstructorMap(PrintWriter out, String dtoName, List<Column> params) {
+        int columnIndex = 0;
+        if (params.stream().anyMatch(param -> param.name != null)) {
+            out.println("        int idx;");
+        }
+        for (int i = 0; i < params.size(); i++) {
+            Column param = params.get(i);
+            out.println("        " + param.type + " arg" + i + " = " + defaultValue(param.type) + ";");
+            if (param.name == null) {
+                continue;
+            }
+            out.println("        if ((idx = columnIndexes[" + columnIndex + "]) > 0) {");
+            writeRead(out, "            ", param, "arg" + i);
+            out.println("        }");
+            columnIndex++;
+        }
+        StringBuilder args = new StringBuilder();
+        for (int i = 0; i < params.size(); i++) {
+            args.append(i == 0 ? "" : ", ").append("arg").append(i);
+        }
+        out.println("        return new " + dtoName + "(" + args + ");");
+    }
+
+    private static void writeNameArray(PrintWriter out, String name, List<Column> columns) {
+        StringBuilder sb = new StringBuilder("    private static final java.lang.String[] " + name + " = {");
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i == 0 ? "" : ", ").append(stringLiteral(columns.get(i).name));
+        }
+        out.println(sb.append("};"));
+    }
+
+    private void writeTypeArray(PrintWriter out, String name, List<Column> columns) {
+        StringBuilder sb = new StringBuilder("    private static final java.lang.Class<?>[] " + name + " = {");
+        for (int i = 0; i < columns.size(); i++) {
+            TypeMirror erasure = this.processingEnv.getTypeUtils().erasure(columns.get(i).type);
+            sb.append(i == 0 ? "" : ", ").append(erasure).append(".class");
+        }
+        out.println(sb.append("};"));
+    }
+
+    private static void writeArrayGetter(PrintWriter out, String type, String method, String field) {
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + type + " " + method + "() {");
+        out.println("        return " + field + ".clone();");
+        out.println("    }");
+    }
+
+    private static String stringLiteral(String str) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static PackageElement packageOf(Element element) {
+        while (!(element instanceof PackageElement)) {
+            element = element.getEnclosingElement();
+        }
+        return (PackageElement) element;
+    }
+
+    private static String flatName(TypeElement type) {
+        if (type.getEnclosingElement() instanceof TypeElement outer) {
+            return flatName(outer) + "_" + type.getSimpleName();
+        }
+        return type.getSimpleName().toString();
+    }
+
+    private void note(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "クラス" + element + ": " + message, element);
+    }
+
+    private void error(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static class Column {
+        final String javaName;
+        final TypeMirror type;
+        String name;
+        boolean trim;
+
+        Column(String javaName, TypeMirror type) {
+            this.javaName = javaName;
+            this.type = type;
+        }
+    }
+
+    private static class MapSide {
+        final List<Column> columns = new ArrayList<>();
+        boolean useConstructor;
+        String reason;
+    }
+
+    private static class BindSide {
+        final List<Column> columns = new ArrayList<>();
+        String reason;
+    }
+}
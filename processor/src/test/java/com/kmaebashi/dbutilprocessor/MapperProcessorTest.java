@@ -0,0 +1,226 @@
+package com.kmaebashi.dbutilprocessor;
+
+import com.kmaebashi.dbutil.NamedParameterPreparedStatement;
+import com.kmaebashi.dbutil.ResultSetMapper;
+import com.kmaebashi.dbutil.TableColumn;
+import com.kmaebashi.dbutilimpl.GeneratedMappers;
+import com.kmaebashi.dbutilimpl.MappingPlan;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// テストのコンパイル時にMapperProcessorが生成したマッピングを、DbUtilの実行時に使えることを確かめる。
+class MapperProcessorTest {
+    private static Connection conn;
+    @BeforeAll
+    static void connectDb() throws Exception {
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+
+        Class.forName(rb.getString("dbutiltest.driver-class-name"));
+        conn = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+    }
+
+    @AfterAll
+    static void closeDb() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void generatedTest001() throws Exception {
+        String sql = """
+                SELECT * FROM RESULTSETMAPPERTEST
+                ORDER BY TEST_KEY
+                """;
+        ResultSet rs = conn.prepareStatement(sql).executeQuery();
+        MappingPlan plan = MappingPlan.getInstance(rs.getMetaData(), MapperProcessorTestDto.class);
+        assertNotNull(plan.getGenerated());
+        assertNull(plan.getAccessor());
+        List<MapperProcessorTestDto> list = ResultSetMapper.toDtoList(rs, MapperProcessorTestDto.class);
+        assertEquals(2, list.size());
+        assertEquals("test01", list.get(0).testKey);
+        assertEquals(10, list.get(0).intVal);
+        assertEquals(10.5, list.get(0).realVal);
+        assertEquals(true, list.get(0).booleanVal);
+        assertEquals("abc       ", list.get(0).charVal);
+        assertEquals("2023-11-04 23:15:30",
+                     list.get(0).timeStampVal.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        assertEquals("2023-11-05", list.get(0).dateVal.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        assertEquals(0, list.get(1).intVal);
+        assertNull(list.get(1).charVal);
+    }
+
+    @Test
+    void generatedTest002() throws Exception {
+        String sql = """
+                SELECT TEST_KEY, INT_VAL, DATE_VAL FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = :TEST_KEY AND INT_VAL = :INT_VAL
+                """;
+        // 入れ子のクラスの場合は、Outer_Nested_DbUtilMapperのような名前で生成する。
+        assertEquals("com.kmaebashi.dbutilprocessor.MapperProcessorTest_NestedDto_DbUtilMapper",
+                     GeneratedMappers.find(NestedDto.class).getClass().getName());
+        NestedDto param = new NestedDto();
+        param.testKey = "test01";
+        param.intVal = 10;
+        NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql);
+        npps.setParameters(param);
+        ResultSet rs = npps.getPreparedStatement().executeQuery();
+        NestedDto dto = ResultSetMapper.toDto(rs, NestedDto.class);
+        assertEquals("test01", dto.testKey);
+        assertEquals(10, dto.intVal);
+        assertEquals(LocalDate.of(2023, 11, 5), dto.dateVal);
+        assertEquals("not read", dto.varcharVal);
+    }
+
+    @Test
+    void generatedTest003() throws Exception {
+        String sql = """
+                SELECT TEST_KEY, INT_VAL, CHAR_VAL, DATE_VAL FROM RESULTSETMAPPERTEST
+                ORDER BY TEST_KEY
+                """;
+        ResultSet rs = conn.prepareStatement(sql).executeQuery();
+        assertNotNull(MappingPlan.getInstance(rs.getMetaData(), MapperProcessorTestRecord.class).getGenerated());
+        List<MapperProcessorTestRecord> records = ResultSetMapper.toDtoList(rs, MapperProcessorTestRecord.class);
+        assertEquals(new MapperProcessorTestRecord("test01", 10, "abc", LocalDate.of(2023, 11, 5), null),
+                     records.get(0));
+        assertEquals(0, records.get(1).intVal());
+
+        rs = conn.prepareStatement(sql).executeQuery();
+        assertNotNull(MappingPlan.getInstance(rs.getMetaData(), MapperProcessorTestDto2.class).getGenerated());
+        List<MapperProcessorTestDto2> list = ResultSetMapper.toDtoList(rs, MapperProcessorTestDto2.class);
+        assertEquals("test01", list.get(0).testKey);
+        assertEquals(10L, list.get(0).intVal);
+    }
+
+    @Test
+    void generatedTest004() throws Exception {
+        // 一部でも生成できないDTOについては、何も生成せず、すべてリフレクションで処理する。
+        assertNull(GeneratedMappers.find(MapperProcessorTestDto3.class));
+        String sql = """
+                SELECT TEST_KEY, TIMESTAMP_VAL FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = 'test01'
+                """;
+        ResultSet rs = conn.prepareStatement(sql).executeQuery();
+        MappingPlan plan = MappingPlan.getInstance(rs.getMetaData(), MapperProcessorTestDto3.class);
+        assertNull(plan.getGenerated());
+        assertNotNull(plan.getAccessor());
+        MapperProcessorTestDto3 dto = ResultSetMapper.toDto(rs, MapperProcessorTestDto3.class);
+        assertEquals("test01", dto.getTestKey());
+        assertNotNull(dto.timeStampVal);
+    }
+
+    @Test
+    void bindTest001() throws Exception {
+        // int, long, double, booleanのフィールドは、生成したgetInt()等でboxingせずに設定する。
+        String sql = """
+                SELECT CAST(:INT_VAL AS integer) AS INT_VAL, CAST(:LONG_VAL AS bigint) AS LONG_VAL,
+                  CAST(:DOUBLE_VAL AS double precision) AS DOUBLE_VAL, CAST(:BOOLEAN_VAL AS boolean) AS BOOLEAN_VAL,
+                  CAST(:SHORT_VAL AS smallint) AS SHORT_VAL, CAST(:STRING_VAL AS varchar) AS STRING_VAL
+                """;
+        assertNotNull(GeneratedMappers.find(PrimitiveDto.class));
+        PrimitiveDto param = new PrimitiveDto();
+        param.intVal = 12;
+        param.longVal = 12345678901L;
+        param.doubleVal = 0.1;
+        param.booleanVal = true;
+        param.shortVal = 7;
+        param.stringVal = null;
+        NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql);
+        npps.setParameters(param);
+        ResultSet rs = npps.getPreparedStatement().executeQuery();
+        PrimitiveDto dto = ResultSetMapper.toDto(rs, PrimitiveDto.class);
+        assertEquals(12, dto.intVal);
+        assertEquals(12345678901L, dto.longVal);
+        assertEquals(0.1, dto.doubleVal);
+        assertTrue(dto.booleanVal);
+        assertEquals(7, dto.shortVal);
+        assertNull(dto.stringVal);
+    }
+
+    @Test
+    void trimTest001() throws Exception {
+        String sql = """
+                SELECT CHAR_VAL, CAST('abc  ' AS VARCHAR(10)) AS VARCHAR_VAL FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = 'test01'
+                """;
+        // 生成したコードは列の型を知らないので、trim=trueでVARCHARの列を読む場合はリフレクションで処理する。
+        ResultSet rs = conn.prepareStatement(sql).executeQuery();
+        assertNotNull(GeneratedMappers.find(TrimDto.class));
+        assertNull(MappingPlan.getInstance(rs.getMetaData(), TrimDto.class).getGenerated());
+        TrimDto dto = ResultSetMapper.toDto(rs, TrimDto.class);
+        assertEquals("abc", dto.charVal);
+        assertEquals("abc  ", dto.varcharVal);
+    }
+
+    @Test
+    void pipelinedTest001() throws Exception {
+        String sql = """
+                SELECT 'k' || g AS TEST_KEY, CAST(g / 10.0 AS real) AS REAL_VAL
+                FROM generate_series(1, 100) AS g
+                ORDER BY g
+                """;
+        List<MapperProcessorTestDto> expected
+                = ResultSetMapper.toDtoList(conn.prepareStatement(sql).executeQuery(), MapperProcessorTestDto.class);
+        List<MapperProcessorTestDto> actual
+                = ResultSetMapper.toDtoListPipelined(conn.prepareStatement(sql).executeQuery(),
+                                                     MapperProcessorTestDto.class, 7, 3);
+        assertEquals(100, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).testKey, actual.get(i).testKey);
+            assertEquals(expected.get(i).realVal, actual.get(i).realVal);
+        }
+        assertEquals(0.1, actual.get(0).realVal);
+    }
+
+    static class NestedDto {
+        @TableColumn("TEST_KEY")
+        String testKey;
+
+        @TableColumn("INT_VAL")
+        Integer intVal;
+
+        @TableColumn("DATE_VAL")
+        LocalDate dateVal;
+
+        @TableColumn("VARCHAR_VAL")
+        String varcharVal = "not read";
+    }
+
+    static class PrimitiveDto {
+        @TableColumn("INT_VAL")
+        int intVal;
+
+        @TableColumn("LONG_VAL")
+        long longVal;
+
+        @TableColumn("DOUBLE_VAL")
+        double doubleVal;
+
+        @TableColumn("BOOLEAN_VAL")
+        boolean booleanVal;
+
+        @TableColumn("SHORT_VAL")
+        short shortVal;
+
+        @TableColumn("STRING_VAL")
+        String stringVal;
+    }
+
+    static class TrimDto {
+        @TableColumn(value="CHAR_VAL", trim=true)
+        String charVal;
+
+        @TableColumn(value="VARCHAR_VAL", trim=true)
+        String varcharVal;
+    }
+}
@@ -0,0 +1,29 @@
+package com.kmaebashi.dbutilprocessor;
+
+import com.kmaebashi.dbutil.TableColumn;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class MapperProcessorTestDto {
+    @TableColumn("TEST_KEY")
+    public String testKey;
+
+    @TableColumn("INT_VAL")
+    public int intVal;
+
+    @TableColumn("REAL_VAL")
+    public double realVal;
+
+    @TableColumn("BOOLEAN_VAL")
+    public boolean booleanVal;
+
+    @TableColumn("CHAR_VAL")
+    public String charVal;
+
+    @TableColumn("TIMESTAMP_VAL")
+    public LocalDateTime timeStampVal;
+
+    @TableColumn("DATE_VAL")
+    public LocalDate dateVal;
+}
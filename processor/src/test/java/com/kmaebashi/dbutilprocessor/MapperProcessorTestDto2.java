@@ -0,0 +1,19 @@
+package com.kmaebashi.dbutilprocessor;
+
+import com.kmaebashi.dbutil.TableColumn;
+import com.kmaebashi.dbutil.TableConstructor;
+
+// フィールドがprivateでなければ、@TableConstructorを使うクラスでもパラメタの設定まで生成できる。
+public class MapperProcessorTestDto2 {
+    @TableColumn("TEST_KEY")
+    final String testKey;
+
+    @TableColumn("INT_VAL")
+    final long intVal;
+
+    @TableConstructor
+    public MapperProcessorTestDto2(@TableColumn("TEST_KEY") String testKey, @TableColumn("INT_VAL") long intVal) {
+        this.testKey = testKey;
+        this.intVal = intVal;
+    }
+}
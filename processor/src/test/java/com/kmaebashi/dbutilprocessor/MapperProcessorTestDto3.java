@@ -0,0 +1,19 @@
+package com.kmaebashi.dbutilprocessor;
+
+import com.kmaebashi.dbutil.TableColumn;
+
+import java.util.Date;
+
+// java.util.Dateは列の型によって読み出し方が変わり、privateなフィールドは生成したコードから設定できないので、
+// このクラスのマッピングは生成されない。
+public class MapperProcessorTestDto3 {
+    @TableColumn("TEST_KEY")
+    private String testKey;
+
+    @TableColumn("TIMESTAMP_VAL")
+    Date timeStampVal;
+
+    public String getTestKey() {
+        return this.testKey;
+    }
+}
@@ -0,0 +1,13 @@
+package com.kmaebashi.dbutilprocessor;
+
+import com.kmaebashi.dbutil.TableColumn;
+
+import java.time.LocalDate;
+
+public record MapperProcessorTestRecord(
+        @TableColumn("TEST_KEY") String testKey,
+        @TableColumn("INT_VAL") int intVal,
+        @TableColumn(value="CHAR_VAL", trim=true) String charVal,
+        @TableColumn("DATE_VAL") LocalDate dateVal,
+        String note) {
+}
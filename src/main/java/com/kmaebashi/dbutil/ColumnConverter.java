@@ -0,0 +1,12 @@
+package com.kmaebashi.dbutil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/* ResultSetの1つの列の値を、DTOのフィールドの型に変換する。
+ * ResultSetMapper.registerConverter()で、java.sql.Typesの値とフィールドの型の組に対して登録する。
+ */
+@FunctionalInterface
+public interface ColumnConverter<T> {
+    public T convert(ResultSet rs, int columnIndex) throws SQLException;
+}
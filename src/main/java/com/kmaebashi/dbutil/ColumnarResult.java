@@ -0,0 +1,389 @@
+package com.kmaebashi.dbutil;
+
+import com.kmaebashi.dbutilimpl.ConverterRegistry;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* ResultSetの内容を、列ごとの配列として保持する。
+ * 集計など、少数の数値列を大量の行について読むだけの用途向けで、行ごとにDTOを生成しない。
+ * Types.INTEGER/Types.SMALLINT/Types.TINYINTはint[]、Types.BIGINTはlong[]、
+ * Types.REAL/Types.FLOAT/Types.DOUBLE/Types.NUMERIC/Types.DECIMALはdouble[]、Types.BIT/Types.BOOLEANはビット列に、
+ * プリミティブ型のまま格納する。NULLかどうかは、列ごとのビット列で別に保持する。
+ * それ以外の列はObjectの配列に格納する。値は、ConverterRegistryの変換で、文字列の列はString、
+ * DATEはLocalDate、TIMESTAMPはLocalDateTime、TIMESTAMP_WITH_TIMEZONEはOffsetDateTime、バイナリの列はbyte[]、
+ * その他の列(Types.OTHER等)はStringとして読む(変換がない型ならUnsupportedTypeExceptionを投げる)。
+ * 配列は行を読みながら倍々に伸ばし、最後に行数に合わせて切り詰めることはしない。
+ * getIntColumn()等が返す配列の長さは行数以上になるので、有効な要素の数はgetRowCount()で得ること。
+ * 列番号、行番号はどちらも0から始まる。
+ */
+public class ColumnarResult {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Column[] columns;
+    private int rowCount;
+
+    private ColumnarResult(Column[] columns) {
+        this.columns = columns;
+    }
+
+    public static ColumnarResult of(ResultSet rs) throws SQLException, UnsupportedTypeException {
+        ResultSetMetaData rsmd = rs.getMetaData();
+        Column[] columns = new Column[rsmd.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            String colName = rsmd.getColumnName(i + 1).toUpperCase();
+            int colType = rsmd.getColumnType(i + 1);
+            switch (colType) {
+                case Types.INTEGER:
+                case Types.SMALLINT:
+                case Types.TINYINT:
+                    columns[i] = new IntColumn(colName, colType, INITIAL_CAPACITY);
+                    break;
+                case Types.BIGINT:
+                    columns[i] = new LongColumn(colName, colType, INITIAL_CAPACITY);
+                    break;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    columns[i] = new DoubleColumn(colName, colType, INITIAL_CAPACITY);
+                    break;
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    columns[i] = new BooleanColumn(colName, colType, INITIAL_CAPACITY);
+                    break;
+                default:
+                    ColumnConverter<?> converter
+                            = ConverterRegistry.findConverter(colType, objectType(colType), colName);
+                    columns[i] = new ObjectColumn(colName, colType, converter, INITIAL_CAPACITY);
+                    break;
+            }
+        }
+
+        ColumnarResult result = new ColumnarResult(columns);
+        int capacity = INITIAL_CAPACITY;
+        int row = 0;
+        while (rs.next()) {
+            if (row == capacity) {
+                capacity *= 2;
+                for (Column column : columns) {
+                    column.grow(capacity);
+                }
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].read(rs, i + 1, row);
+            }
+            row++;
+        }
+        result.rowCount = row;
+        return result;
+    }
+
+    // Objectの配列に格納する列の、値の型。
+    private static Class<?> objectType(int sqlType) {
+        switch (sqlType) {
+            case Types.DATE:
+                return LocalDate.class;
+            case Types.TIMESTAMP:
+                return LocalDateTime.class;
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return OffsetDateTime.class;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return byte[].class;
+            default:
+                return String.class;
+        }
+    }
+
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    public int getColumnCount() {
+        return this.columns.length;
+    }
+
+    public String getColumnName(int col) {
+        return this.columns[col].name;
+    }
+
+    public int getColumnType(int col) {
+        return this.columns[col].sqlType;
+    }
+
+    // 列名(大文字小文字は区別しない)から列番号を返す。見つからなければ-1を返す。
+    public int findColumn(String name) {
+        String upperName = name.toUpperCase();
+        for (int i = 0; i < this.columns.length; i++) {
+            if (this.columns[i].name.equals(upperName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isNull(int col, int row) {
+        checkRow(row);
+        return isSet(this.columns[col].nulls, row);
+    }
+
+    // NULLの場合は、ResultSet.getInt()と同様に0を返す。
+    public int getInt(int col, int row) {
+        checkRow(row);
+        return intColumn(col).values[row];
+    }
+
+    // BIGINTの列に加えて、int[]に格納した列も読める。
+    public long getLong(int col, int row) {
+        checkRow(row);
+        Column column = this.columns[col];
+        if (column instanceof IntColumn intColumn) {
+            return intColumn.values[row];
+        }
+        return longColumn(col).values[row];
+    }
+
+    public double getDouble(int col, int row) {
+        checkRow(row);
+        return doubleColumn(col).values[row];
+    }
+
+    public boolean getBoolean(int col, int row) {
+        checkRow(row);
+        return isSet(booleanColumn(col).bits, row);
+    }
+
+    public Object getObject(int col, int row) {
+        checkRow(row);
+        Column column = this.columns[col];
+        if (isSet(column.nulls, row)) {
+            return null;
+        } else if (column instanceof IntColumn intColumn) {
+            return intColumn.values[row];
+        } else if (column instanceof LongColumn longColumn) {
+            return longColumn.values[row];
+        } else if (column instanceof DoubleColumn doubleColumn) {
+            return doubleColumn.values[row];
+        } else if (column instanceof BooleanColumn booleanColumn) {
+            return isSet(booleanColumn.bits, row);
+        } else {
+            return ((ObjectColumn) column).values[row];
+        }
+    }
+
+    /* 列の値の配列をそのまま返す(コピーはしない)。配列の長さは行数以上で、先頭のgetRowCount()個だけが有効。
+     * 返された配列を書き換えないこと。
+     */
+    public int[] getIntColumn(int col) {
+        return intColumn(col).values;
+    }
+
+    public long[] getLongColumn(int col) {
+        return longColumn(col).values;
+    }
+
+    public double[] getDoubleColumn(int col) {
+        return doubleColumn(col).values;
+    }
+
+    public BitSet getBooleanColumn(int col) {
+        return BitSet.valueOf(booleanColumn(col).bits);
+    }
+
+    public BitSet getNullBitmap(int col) {
+        return BitSet.valueOf(this.columns[col].nulls);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("行番号" + row + "は範囲外です(行数:" + this.rowCount + ")。");
+        }
+    }
+
+    private IntColumn intColumn(int col) {
+        if (this.columns[col] instanceof IntColumn intColumn) {
+            return intColumn;
+        }
+        throw new IllegalArgumentException("列" + this.columns[col].name + "は整数の列ではありません。");
+    }
+
+    private LongColumn longColumn(int col) {
+        if (this.columns[col] instanceof LongColumn longColumn) {
+            return longColumn;
+        }
+        throw new IllegalArgumentException("列" + this.columns[col].name + "はBIGINTの列ではありません。");
+    }
+
+    private DoubleColumn doubleColumn(int col) {
+        if (this.columns[col] instanceof DoubleColumn doubleColumn) {
+            return doubleColumn;
+        }
+        throw new IllegalArgumentException("列" + this.columns[col].name + "は実数の列ではありません。");
+    }
+
+    private BooleanColumn booleanColumn(int col) {
+        if (this.columns[col] instanceof BooleanColumn booleanColumn) {
+            return booleanColumn;
+        }
+        throw new IllegalArgumentException("列" + this.columns[col].name + "はブーリアンの列ではありません。");
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static int wordCount(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    private abstract static class Column {
+        final String name;
+        final int sqlType;
+        long[] nulls;
+
+        Column(String name, int sqlType, int capacity) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.nulls = new long[wordCount(capacity)];
+        }
+
+        abstract void read(ResultSet rs, int rsIdx, int row) throws SQLException;
+
+        void grow(int capacity) {
+            this.nulls = Arrays.copyOf(this.nulls, wordCount(capacity));
+        }
+    }
+
+    private static class IntColumn extends Column {
+        int[] values;
+
+        IntColumn(String name, int sqlType, int capacity) {
+            super(name, sqlType, capacity);
+            this.values = new int[capacity];
+        }
+
+        @Override
+        void read(ResultSet rs, int rsIdx, int row) throws SQLException {
+            this.values[row] = rs.getInt(rsIdx);
+            if (rs.wasNull()) {
+                set(this.nulls, row);
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+    }
+
+    private static class LongColumn extends Column {
+        long[] values;
+
+        LongColumn(String name, int sqlType, int capacity) {
+            super(name, sqlType, capacity);
+            this.values = new long[capacity];
+        }
+
+        @Override
+        void read(ResultSet rs, int rsIdx, int row) throws SQLException {
+            this.values[row] = rs.getLong(rsIdx);
+            if (rs.wasNull()) {
+                set(this.nulls, row);
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+        double[] values;
+
+        DoubleColumn(String name, int sqlType, int capacity) {
+            super(name, sqlType, capacity);
+            this.values = new double[capacity];
+        }
+
+        @Override
+        void read(ResultSet rs, int rsIdx, int row) throws SQLException {
+            this.values[row] = rs.getDouble(rsIdx);
+            if (rs.wasNull()) {
+                set(this.nulls, row);
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+        long[] bits;
+
+        BooleanColumn(String name, int sqlType, int capacity) {
+            super(name, sqlType, capacity);
+            this.bits = new long[wordCount(capacity)];
+        }
+
+        @Override
+        void read(ResultSet rs, int rsIdx, int row) throws SQLException {
+            if (rs.getBoolean(rsIdx)) {
+                set(this.bits, row);
+            } else if (rs.wasNull()) {
+                set(this.nulls, row);
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.bits = Arrays.copyOf(this.bits, wordCount(capacity));
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+        final ColumnConverter<?> converter;
+        Object[] values;
+
+        ObjectColumn(String name, int sqlType, ColumnConverter<?> converter, int capacity) {
+            super(name, sqlType, capacity);
+            this.converter = converter;
+            this.values = new Object[capacity];
+        }
+
+        @Override
+        void read(ResultSet rs, int rsIdx, int row) throws SQLException {
+            Object value = this.converter.convert(rs, rsIdx);
+            this.values[row] = value;
+            if (value == null) {
+                set(this.nulls, row);
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+    }
+}
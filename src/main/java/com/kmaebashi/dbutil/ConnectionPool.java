@@ -0,0 +1,73 @@
+package com.kmaebashi.dbutil;
+
+import com.kmaebashi.dbutilimpl.ConnectionPoolImpl;
+
+import javax.sql.DataSource;
+import java.sql.DriverManager;
+
+/* 外部のライブラリに依存しない、最小限のコネクションプール。
+ * getConnection()で取得したコネクションをclose()すると、物理的なコネクションはクローズせずにプールに戻す。
+ * 各コネクションはPreparedStatementのキャッシュ(withStatementCache()と同じもの)を持ち、
+ * プールに戻しても保持するので、次に取得した時にも同じSQLのPreparedStatementが再利用される。
+ * 空いているコネクションは、最後に使ったものから順に貸し出す。
+ * 設定を変更するsetXXX()は、使い始める前に呼ぶこと。
+ */
+public interface ConnectionPool extends DataSource, AutoCloseable {
+    public static ConnectionPool newInstance(String url, String user, String password, int maxSize) {
+        return new ConnectionPoolImpl(() -> DriverManager.getConnection(url, user, password), maxSize);
+    }
+
+    /* コネクションの作成を、プールしないDataSourceに任せる。
+     */
+    public static ConnectionPool newInstance(DataSource source, int maxSize) {
+        return new ConnectionPoolImpl(source::getConnection, maxSize);
+    }
+
+    /* 作成からこの時間を過ぎたコネクションは、プールに戻った時または次に貸し出す時にクローズする(初期値30分)。
+     */
+    public void setMaxLifetimeMillis(long maxLifetimeMillis);
+
+    /* 最後に使ってからこの時間を過ぎた空きコネクションは、貸し出す前にisValid()で確認する(初期値1秒)。
+     */
+    public void setValidationIntervalMillis(long validationIntervalMillis);
+
+    /* コネクションがすべて使用中の場合に、空くのを待つ時間(初期値30秒)。
+     * 超えた場合はSQLExceptionをスローする。
+     */
+    public void setConnectionTimeoutMillis(long connectionTimeoutMillis);
+
+    /* コネクションごとのPreparedStatementのキャッシュの件数(初期値100)。0ならキャッシュしない。
+     * これより後に作成されたコネクションから有効になる。
+     */
+    public void setStatementCacheSize(int statementCacheSize);
+
+    public int getMaxSize();
+
+    public int getActiveCount();
+
+    public int getIdleCount();
+
+    public int getTotalCount();
+
+    /* getConnection()の呼び出し回数と、コネクションが空くのを待った時間の合計、最大(タイムアウトしたものを含む)。
+     */
+    public long getAcquireCount();
+
+    public long getTotalWaitNanos();
+
+    public long getMaxWaitNanos();
+
+    public long getTimeoutCount();
+
+    /* 物理的なコネクションを作成した回数と、寿命や確認の失敗でクローズした回数。
+     */
+    public long getCreatedCount();
+
+    public long getEvictedCount();
+
+    /* 空いているコネクションをクローズし、以降のgetConnection()を失敗させる。
+     * 使用中のコネクションは、プールに戻った時にクローズする。
+     */
+    @Override
+    public void close();
+}
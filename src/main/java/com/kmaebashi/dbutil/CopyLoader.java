@@ -0,0 +1,33 @@
+package com.kmaebashi.dbutil;
+
+import com.kmaebashi.dbutilimpl.CopyWriter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.stream.Stream;
+
+/* PostgreSQLのCOPY ... FROM STDINを使って、@TableColumnを付けたDTOをテーブルに一括で流し込む。
+ * 列は、DTOの@TableColumnが付いたフィールドの宣言順に並べる。
+ */
+public class CopyLoader {
+    public enum Format {
+        TEXT,
+        BINARY
+    }
+
+    private CopyLoader() {
+    }
+
+    public static <T> long copyIn(Connection conn, String tableName, Class<T> dtoClass,
+                                  Iterable<? extends T> rows, Format format)
+        throws SQLException, UnsupportedTypeException, IllegalAccessException, InvocationTargetException {
+        return CopyWriter.copyIn(conn, tableName, dtoClass, rows.iterator(), format == Format.BINARY);
+    }
+
+    public static <T> long copyIn(Connection conn, String tableName, Class<T> dtoClass,
+                                  Stream<? extends T> rows, Format format)
+        throws SQLException, UnsupportedTypeException, IllegalAccessException, InvocationTargetException {
+        return CopyWriter.copyIn(conn, tableName, dtoClass, rows.iterator(), format == Format.BINARY);
+    }
+}
@@ -0,0 +1,25 @@
+package com.kmaebashi.dbutil;
+
+import com.kmaebashi.dbutilimpl.ExecutionListeners;
+
+/* NamedParameterPreparedStatementとResultSetMapperの処理の段階ごとに、所要時間の通知を受ける。
+ * sqlは?に置き換えた後のSQL(テンプレートごとに同じ文字列になる)。MAPの場合はnull。
+ * dtoClassはMAPの場合のDTOのクラスで、それ以外ではnull。
+ * rowCountは、EXECUTEではexecuteUpdate()、executeBatch()の更新件数、MAPでは変換した行数。
+ * 件数がない場合は-1。
+ * 通知は処理を行ったスレッドで同期的に行われるので、onPhase()は速やかに戻ること。
+ * 例外がスローされた処理については通知しない。
+ * リスナーが1つも登録されていなければ、時刻の取得も行わない。
+ */
+@FunctionalInterface
+public interface ExecutionListener {
+    public void onPhase(ExecutionPhase phase, String sql, Class<?> dtoClass, long elapsedNanos, long rowCount);
+
+    public static void register(ExecutionListener listener) {
+        ExecutionListeners.add(listener);
+    }
+
+    public static void unregister(ExecutionListener listener) {
+        ExecutionListeners.remove(listener);
+    }
+}
@@ -0,0 +1,14 @@
+package com.kmaebashi.dbutil;
+
+/* ExecutionListenerに通知する処理の段階。
+ * PREPARE: SQLのパース(キャッシュ済みならその検索)とPreparedStatementの作成(またはキャッシュからの取り出し)
+ * BIND: パラメタの設定
+ * EXECUTE: SQLの実行(DBとの往復)
+ * MAP: ResultSetからDTOへの変換
+ */
+public enum ExecutionPhase {
+    PREPARE,
+    BIND,
+    EXECUTE,
+    MAP
+}
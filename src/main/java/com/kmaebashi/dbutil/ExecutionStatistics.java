@@ -0,0 +1,119 @@
+package com.kmaebashi.dbutil;
+
+import com.kmaebashi.dbutilimpl.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/* 組み込みのExecutionListener。段階とテンプレートの組ごとに、回数、合計時間、最大時間、行数と、
+ * 所要時間のヒストグラムを集計する。テンプレートは、MAP以外では?に置き換えた後のSQL、MAPではDTOのクラス名。
+ * カウンタはLongAdder、LongAccumulatorなので、多数のスレッドから同時に通知されても競合しにくい。
+ *   ExecutionStatistics stats = new ExecutionStatistics();
+ *   ExecutionListener.register(stats);
+ */
+public class ExecutionStatistics implements ExecutionListener {
+    // 段階ごとの、テンプレートからEntryへのMap。通知のたびにキーのオブジェクトを作らないよう、段階で分けている。
+    private final EnumMap<ExecutionPhase, ConcurrentHashMap<String, Entry>> entries
+            = new EnumMap<>(ExecutionPhase.class);
+
+    public ExecutionStatistics() {
+        for (ExecutionPhase phase : ExecutionPhase.values()) {
+            this.entries.put(phase, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void onPhase(ExecutionPhase phase, String sql, Class<?> dtoClass, long elapsedNanos, long rowCount) {
+        String template = sql != null ? sql : dtoClass != null ? dtoClass.getName() : "";
+        ConcurrentHashMap<String, Entry> phaseEntries = this.entries.get(phase);
+        Entry entry = phaseEntries.get(template);
+        if (entry == null) {
+            entry = phaseEntries.computeIfAbsent(template, t -> new Entry(phase, t));
+        }
+        entry.record(elapsedNanos, rowCount);
+    }
+
+    /* 見つからなければnullを返す。
+     */
+    public Entry getEntry(ExecutionPhase phase, String template) {
+        return this.entries.get(phase).get(template);
+    }
+
+    public List<Entry> getEntries() {
+        ArrayList<Entry> list = new ArrayList<>();
+        for (ConcurrentHashMap<String, Entry> phaseEntries : this.entries.values()) {
+            list.addAll(phaseEntries.values());
+        }
+        return list;
+    }
+
+    public void reset() {
+        for (ConcurrentHashMap<String, Entry> phaseEntries : this.entries.values()) {
+            phaseEntries.clear();
+        }
+    }
+
+    public static class Entry {
+        private final ExecutionPhase phase;
+        private final String template;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder rowCount = new LongAdder();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Entry(ExecutionPhase phase, String template) {
+            this.phase = phase;
+            this.template = template;
+        }
+
+        void record(long elapsedNanos, long rows) {
+            this.count.increment();
+            this.totalNanos.add(elapsedNanos);
+            this.maxNanos.accumulate(elapsedNanos);
+            if (rows > 0) {
+                this.rowCount.add(rows);
+            }
+            this.histogram.record(elapsedNanos);
+        }
+
+        public ExecutionPhase getPhase() {
+            return this.phase;
+        }
+
+        public String getTemplate() {
+            return this.template;
+        }
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public long getTotalNanos() {
+            return this.totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return this.maxNanos.get();
+        }
+
+        public long getRowCount() {
+            return this.rowCount.sum();
+        }
+
+        public double getMeanNanos() {
+            long n = getCount();
+            return n == 0 ? 0.0 : (double) getTotalNanos() / n;
+        }
+
+        /* percentileは0〜100。誤差は12.5%以内で、実際の値以上の値を返す。
+         */
+        public long getPercentileNanos(double percentile) {
+            return Math.min(this.histogram.getValueAtPercentile(percentile), getMaxNanos());
+        }
+    }
+}
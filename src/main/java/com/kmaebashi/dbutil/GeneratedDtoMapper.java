@@ -0,0 +1,49 @@
+package com.kmaebashi.dbutil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/* 注釈処理(com.kmaebashi.dbutilprocessor.MapperProcessor)が、@TableColumnを付けたDTOごとに生成する、
+ * リフレクションを使わない読み出しとパラメタ設定の実装。
+ * 生成したクラスはDTOと同じパッケージに決まった名前で置かれ、
+ * ResultSetMapperとNamedParameterPreparedStatementは、DTOのクラスに対応するものがあればこれを使う。
+ * なければ(あるいは利用者が登録した変換を使う列がある場合は)、従来どおりリフレクションで処理する。
+ * 注釈処理は、DTOへの変換とパラメタの設定の両方を生成できるDTOについてだけ、これを生成する。
+ * 利用者がこのインタフェースを直接実装することは想定していない。
+ */
+public interface GeneratedDtoMapper<T> {
+    public Class<T> getDtoClass();
+
+    /* map()で読み出す列の名前(@TableColumnに書いたとおり)。フィールドの場合は宣言順、
+     * recordや@TableConstructorの場合は引数の順(@TableColumnのない引数は除く)。
+     */
+    public String[] getColumnNames();
+
+    // getColumnNames()の列ごとの、フィールド(引数)の型。
+    public Class<?>[] getColumnTypes();
+
+    /* 現在の行からDTOを生成する。columnIndexesは、getColumnNames()の列ごとの、rsの列番号。
+     * 結果にない列は0で、フィールドは初期値のまま(コンストラクタの引数ならnullや0やfalse)とする。
+     */
+    public T map(ResultSet rs, int[] columnIndexes) throws SQLException;
+
+    // getValue()で値を返せる列の名前。
+    public String[] getParameterNames();
+
+    // getParameterNames()の列ごとの、フィールドの型。
+    public Class<?>[] getParameterTypes();
+
+    // getParameterNames()のindex番目の列の値を返す。プリミティブ型の値はboxingして返す。
+    public Object getValue(T dto, int index);
+
+    /* getParameterNames()のindex番目の列の値を、boxingせずに返す。
+     * 列の型がそれぞれint, long, double, booleanの場合にだけ使える(それ以外はIndexOutOfBoundsExceptionを投げる)。
+     */
+    public int getInt(T dto, int index);
+
+    public long getLong(T dto, int index);
+
+    public double getDouble(T dto, int index);
+
+    public boolean getBoolean(T dto, int index);
+}
@@ -0,0 +1,52 @@
+package com.kmaebashi.dbutil;
+
+import com.kmaebashi.dbutilimpl.MultiRowInsertImpl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/* 1行分の名前付きパラメタのINSERT文(INSERT INTO T (A, B) VALUES (:A, :B))から、
+ * 「VALUES (...), (...), ...」の複数行のINSERT文を作り、rowsの各行を挿入する。
+ * rowsの要素は、Map、ParameterSource、@TableColumnを付けたDTOのいずれか。
+ * 1つの文のパラメタの数は、PostgreSQLの上限(MAX_BIND_PARAMETERS)を超えないように分割する。
+ * 複数の文に分かれた場合もまとめて1つのトランザクションにはしないので、必要なら呼び出し側でトランザクションを開始すること。
+ */
+public class MultiRowInsert {
+    // PostgreSQLのプロトコルで、1つの文に指定できるパラメタの数の上限。
+    public static final int MAX_BIND_PARAMETERS = 32767;
+    public static final int DEFAULT_MAX_ROWS_PER_STATEMENT = 1024;
+
+    private MultiRowInsert() {
+    }
+
+    // 挿入した行数を返す。
+    public static long insert(Connection conn, String sql, Iterable<?> rows)
+        throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException,
+            IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        return MultiRowInsertImpl.insert(conn, sql, rows, DEFAULT_MAX_ROWS_PER_STATEMENT);
+    }
+
+    public static long insert(Connection conn, String sql, Iterable<?> rows, int maxRowsPerStatement)
+        throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException,
+            IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        return MultiRowInsertImpl.insert(conn, sql, rows, maxRowsPerStatement);
+    }
+
+    /* RETURNING句を付けたINSERT文を実行し、返された行をDTOにして返す。
+     * 行の順序は、PostgreSQLがVALUESの順に返すことを前提に、rowsの順になる。
+     */
+    public static <T> List<T> insertReturning(Connection conn, String sql, Iterable<?> rows, Class<T> dtoClass)
+        throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException,
+            IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        return MultiRowInsertImpl.insertReturning(conn, sql, rows, dtoClass, DEFAULT_MAX_ROWS_PER_STATEMENT);
+    }
+
+    public static <T> List<T> insertReturning(Connection conn, String sql, Iterable<?> rows, Class<T> dtoClass,
+                                              int maxRowsPerStatement)
+        throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException,
+            IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        return MultiRowInsertImpl.insertReturning(conn, sql, rows, dtoClass, maxRowsPerStatement);
+    }
+}
@@ -1,17 +1,101 @@
 package com.kmaebashi.dbutil;
 import java.sql.*;
+import java.util.List;
 import java.util.Map;
 
+import com.kmaebashi.dbutilimpl.BinderRegistry;
 import com.kmaebashi.dbutilimpl.NamedParameterPreparedStatementImpl;
+import com.kmaebashi.dbutilimpl.StatementCachingConnection;
 
-public interface NamedParameterPreparedStatement {
+public interface NamedParameterPreparedStatement extends AutoCloseable {
     public static NamedParameterPreparedStatement newInstance(Connection conn, String sql)
             throws SQLException, SqlParseException  {
         return new NamedParameterPreparedStatementImpl(conn, sql);
     }
 
+    /* newInstance(conn, sql)の後にsetParameters(params)を呼ぶのと同じだが、
+     * 値がCollectionまたは配列のパラメタは、IN句用に「?, ?, ...」に展開する。
+     * ?の数は要素数以上の2のべき乗(1, 2, 4, 8, ...)に切り上げ、余った?には最後の要素を繰り返して設定するので、
+     * 要素数が変わってもSQLの種類はわずかで済み、PreparedStatementのキャッシュが効く。
+     * 要素が0個の場合は、1つの?にNULLを設定する。
+     */
+    public static NamedParameterPreparedStatement newInstance(Connection conn, String sql, Map<String, Object> params)
+            throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException {
+        return new NamedParameterPreparedStatementImpl(conn, sql, ParameterSource.of(params));
+    }
+
+    public static NamedParameterPreparedStatement newInstance(Connection conn, String sql, ParameterSource params)
+            throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException {
+        return new NamedParameterPreparedStatementImpl(conn, sql, params);
+    }
+
+    /* PreparedStatementをキャッシュするコネクションを返す。
+     * 返されたコネクションでnewInstance()したNamedParameterPreparedStatementをclose()すると、
+     * PreparedStatementはクローズされずにキャッシュに戻り、同じSQLで次にnewInstance()した時に再利用される。
+     * キャッシュはmaxSize件までで、超えた分は最も長く使われていないものからクローズする。
+     * 返されたコネクションをclose()すると、キャッシュ中のPreparedStatementと元のコネクションをクローズする。
+     */
+    public static Connection withStatementCache(Connection conn, int maxSize) {
+        return StatementCachingConnection.wrap(conn, maxSize);
+    }
+
+    /* valueClassの値をパラメタに設定する方法を登録する。
+     * 組み込みで扱えるのは、Integer, Long, Short, Double, Float, BigDecimal, Boolean, String,
+     * java.sql.Date, LocalDate, java.sql.Timestamp, LocalDateTime, OffsetDateTime, Instant, UUID, byte[]とenum、
+     * およびSqlNull, SqlArray。
+     * 値のクラスに登録がなければ、スーパークラス、インタフェースに登録されたものを使う。
+     */
+    public static <T> void registerBinder(Class<T> valueClass, ParameterBinder<? super T> binder) {
+        BinderRegistry.register(valueClass, binder);
+    }
+
     public void setParameters(Map<String, Object> params)
             throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException;
 
+    /* ParameterSourceから取得した値をパラメタに設定する。
+     * 同じ名前のパラメタがSQL中に複数回登場しても、値の取得と型の判定はパラメタ名ごとに1回だけ行う。
+     */
+    public void setParameters(ParameterSource source)
+            throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException;
+
+    /* @TableColumnを付けたDTOのフィールドの値をパラメタに設定する。
+     * パラメタ名と@TableColumnの列名は、大文字小文字を区別せずに対応付ける。
+     * 対応付けはSQLとDTOのクラスの組ごとに1回だけ行い、int, long, double, booleanのフィールドは
+     * boxingせずに設定する。dtoがnullの場合はIllegalArgumentExceptionを投げる。
+     */
+    public void setParameters(Object dto)
+            throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException, IllegalAccessException;
+
+    /* パラメタを設定して、PreparedStatementのバッチに追加する。
+     */
+    public void addBatch(Map<String, Object> params)
+            throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException;
+
+    /* getPreparedStatement().executeQuery()と同じだが、ExecutionListenerにEXECUTEとして通知する。
+     */
+    public ResultSet executeQuery() throws SQLException;
+
+    /* getPreparedStatement().executeUpdate()と同じだが、ExecutionListenerにEXECUTEとして通知する。
+     */
+    public int executeUpdate() throws SQLException;
+
+    /* addBatch()で溜めたバッチを実行する。
+     */
+    public int[] executeBatch() throws SQLException;
+
+    /* rowsの各要素をバッチに追加し、chunkSize件ごとに実行する。
+     * 戻り値は、chunkごとのPreparedStatement.executeBatch()の戻り値のList。
+     * PostgreSQLのJDBCドライバでreWriteBatchedInserts=trueを指定している場合、
+     * INSERT文はまとめて送信され、件数はStatement.SUCCESS_NO_INFOになることがある。
+     */
+    public List<int[]> executeBatch(Iterable<? extends Map<String, Object>> rows, int chunkSize)
+            throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException;
+
     public PreparedStatement getPreparedStatement();
+
+    /* PreparedStatementをクローズする。ただし、withStatementCache()で作ったコネクションの場合は、
+     * PreparedStatementをクローズせずにキャッシュに戻す。
+     */
+    @Override
+    public void close() throws SQLException;
 }
@@ -0,0 +1,13 @@
+package com.kmaebashi.dbutil;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/* パラメタの値を、PreparedStatementのindex番目のパラメタに設定する。
+ * NamedParameterPreparedStatement.registerBinder()で、値のクラスに対して登録する。
+ * valueはnullにならない(nullの場合はps.setNull()で設定する)。
+ */
+@FunctionalInterface
+public interface ParameterBinder<T> {
+    public void bind(PreparedStatement ps, int index, T value) throws SQLException;
+}
@@ -0,0 +1,69 @@
+package com.kmaebashi.dbutil;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/* NamedParameterPreparedStatementに設定するパラメタの値の供給元。
+ * 同じ名前のパラメタがSQL中に複数回登場しても、getValue()はパラメタ名ごとに1回しか呼ばれない。
+ */
+public interface ParameterSource {
+    public boolean hasValue(String name);
+
+    public Object getValue(String name);
+
+    public static ParameterSource of(Map<String, ?> map) {
+        return new ParameterSource() {
+            @Override
+            public boolean hasValue(String name) {
+                return map.containsKey(name);
+            }
+
+            @Override
+            public Object getValue(String name) {
+                return map.get(name);
+            }
+        };
+    }
+
+    /* names[i]の値がvalues[i]。名前から要素の番号を引くHashMapは、ここで1回だけ作る。
+     * 同じ名前が複数あれば、最初のものを使う。
+     */
+    public static ParameterSource of(String[] names, Object[] values) {
+        if (names.length != values.length) {
+            throw new IllegalArgumentException("namesとvaluesの要素数が異なります("
+                    + names.length + ", " + values.length + ")。");
+        }
+        HashMap<String, Integer> nameToIndex = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            nameToIndex.putIfAbsent(names[i], i);
+        }
+        return new ParameterSource() {
+            @Override
+            public boolean hasValue(String name) {
+                return nameToIndex.containsKey(name);
+            }
+
+            @Override
+            public Object getValue(String name) {
+                Integer index = nameToIndex.get(name);
+                return index != null ? values[index] : null;
+            }
+        };
+    }
+
+    // すべての名前について値があるものとみなし、functionの戻り値を値とする。
+    public static ParameterSource of(Function<String, ?> function) {
+        return new ParameterSource() {
+            @Override
+            public boolean hasValue(String name) {
+                return true;
+            }
+
+            @Override
+            public Object getValue(String name) {
+                return function.apply(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,167 @@
+package com.kmaebashi.dbutil;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/* 名前付きパラメタのSQLの実行とResultSetMapperによる変換を別スレッドで行い、結果をCompletableFutureで返す。
+ * 画面の表示に必要な独立した10本のSQLを、順番にではなく同時に実行する、といった用途向け。
+ * Java 21以降では仮想スレッド(1タスク1スレッド)で実行する。それより前のJavaでは、
+ * maxConcurrency個のスレッドのスレッドプールで実行する。
+ * DBへの同時接続数は、Semaphoreによって最大maxConcurrencyに制限する。
+ * コネクションはタスクごとにDataSourceから取得し、タスクの終了時にclose()する
+ * (コネクションプールのDataSourceであればプールに戻る)。
+ * タスクで発生した例外(SQLException等)は、CompletableFutureの例外として返す。
+ * 使い終わったらclose()すること。
+ */
+public class QueryExecutor implements AutoCloseable {
+    private final DataSource dataSource;
+    private final Semaphore semaphore;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    @FunctionalInterface
+    public interface ConnectionTask<R> {
+        public R execute(Connection conn) throws Exception;
+    }
+
+    private QueryExecutor(DataSource dataSource, int maxConcurrency, ExecutorService executor, boolean ownsExecutor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrencyには1以上を指定してください(" + maxConcurrency + ")。");
+        }
+        this.dataSource = dataSource;
+        this.semaphore = new Semaphore(maxConcurrency, true);
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    public static QueryExecutor create(DataSource dataSource, int maxConcurrency) {
+        return new QueryExecutor(dataSource, maxConcurrency, newExecutor(maxConcurrency), true);
+    }
+
+    /* タスクを実行するExecutorServiceを指定する。executorは、このQueryExecutorのclose()ではシャットダウンしない。
+     */
+    public static QueryExecutor create(DataSource dataSource, int maxConcurrency, ExecutorService executor) {
+        return new QueryExecutor(dataSource, maxConcurrency, executor, false);
+    }
+
+    // Java 17でもコンパイルできるよう、Executors.newVirtualThreadPerTaskExecutor()はリフレクションで呼ぶ。
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                Thread thread = new Thread(runnable, "dbutil-query-executor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /* paramsには、Map、ParameterSource、@TableColumnを付けたDTOのいずれかを指定する。パラメタがなければnull。
+     * MapとParameterSourceの場合、値がCollectionまたは配列のパラメタはIN句用に展開する。
+     */
+    public <T> CompletableFuture<List<T>> queryList(String sql, Object params, Class<T> dtoClass) {
+        return submit(conn -> {
+            try (NamedParameterPreparedStatement npps = prepare(conn, sql, params);
+                 ResultSet rs = npps.executeQuery()) {
+                return ResultSetMapper.toDtoList(rs, dtoClass);
+            }
+        });
+    }
+
+    /* 結果が0件ならnullを返す。2件以上なら、MultipleMatchExceptionで例外として完了する。
+     */
+    public <T> CompletableFuture<T> queryOne(String sql, Object params, Class<T> dtoClass) {
+        return submit(conn -> {
+            try (NamedParameterPreparedStatement npps = prepare(conn, sql, params);
+                 ResultSet rs = npps.executeQuery()) {
+                return ResultSetMapper.toDto(rs, dtoClass);
+            }
+        });
+    }
+
+    /* 結果をResultSetMapper.stream()で1行ずつDTOに変換し、consumerに渡す。
+     * consumerはタスクのスレッドでコネクションを保持したまま呼ばれ、その戻り値でCompletableFutureが完了する。
+     * Streamはconsumerの中で処理を終えること(consumerの外に持ち出しても、その時点でクローズされている)。
+     */
+    public <T, R> CompletableFuture<R> queryStream(String sql, Object params, Class<T> dtoClass, int fetchSize,
+                                                   Function<? super Stream<T>, ? extends R> consumer) {
+        return submit(conn -> {
+            try (NamedParameterPreparedStatement npps = prepare(conn, sql, params);
+                 Stream<T> stream = ResultSetMapper.stream(npps, dtoClass, fetchSize)) {
+                return consumer.apply(stream);
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> update(String sql, Object params) {
+        return submit(conn -> {
+            try (NamedParameterPreparedStatement npps = prepare(conn, sql, params)) {
+                return npps.executeUpdate();
+            }
+        });
+    }
+
+    /* DataSourceから取得したコネクションでtaskを実行する。
+     */
+    public <R> CompletableFuture<R> submit(ConnectionTask<R> task) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        this.executor.execute(() -> {
+            try {
+                R result;
+                this.semaphore.acquire();
+                try (Connection conn = this.dataSource.getConnection()) {
+                    result = task.execute(conn);
+                } finally {
+                    this.semaphore.release();
+                }
+                // コネクションを返却してから完了させる(完了を待った呼び出し元から、使用中のコネクションが見えないように)。
+                future.complete(result);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private static NamedParameterPreparedStatement prepare(Connection conn, String sql, Object params)
+            throws Exception {
+        if (params instanceof Map<?, ?> map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> paramMap = (Map<String, Object>) map;
+            return NamedParameterPreparedStatement.newInstance(conn, sql, paramMap);
+        } else if (params instanceof ParameterSource source) {
+            return NamedParameterPreparedStatement.newInstance(conn, sql, source);
+        }
+        NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql);
+        try {
+            if (params != null) {
+                npps.setParameters(params);
+            }
+        } catch (Exception ex) {
+            npps.close();
+            throw ex;
+        }
+        return npps;
+    }
+
+    /* 実行待ちのタスクは実行してから終了する。
+     */
+    @Override
+    public void close() {
+        if (this.ownsExecutor) {
+            this.executor.shutdown();
+        }
+    }
+}
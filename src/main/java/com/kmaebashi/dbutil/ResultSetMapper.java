@@ -1,21 +1,55 @@
 package com.kmaebashi.dbutil;
 
-import java.lang.reflect.Field;
+import com.kmaebashi.dbutilimpl.ColumnReader;
+import com.kmaebashi.dbutilimpl.ConverterRegistry;
+import com.kmaebashi.dbutilimpl.ExecutionListeners;
+import com.kmaebashi.dbutilimpl.MappingPlan;
+import com.kmaebashi.dbutilimpl.NestedPlan;
+import com.kmaebashi.dbutilimpl.ResultMapEvent;
+import com.kmaebashi.dbutilimpl.RowBatch;
+import com.kmaebashi.dbutilimpl.RowSourceMapper;
+
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Types;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ResultSetMapper {
     private ResultSetMapper() {
     }
 
+    /* Executorを指定しないforEachPipelined()が共有するスレッドプール。最初に使われたときに作る。
+     * スレッドはデーモンスレッドなので、アプリケーションの終了を妨げない。
+     */
+    private static class SharedExecutor {
+        private static final ExecutorService INSTANCE
+                = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                    Thread thread = new Thread(runnable, "dbutil-result-mapper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
     public static <T> T toDto(ResultSet rs, Class<T> dtoClass)
         throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
             MultipleMatchException, NoSuchMethodException, InvocationTargetException {
@@ -32,136 +66,483 @@ public class ResultSetMapper {
     public static <T> List<T> toDtoList(ResultSet rs, Class<T> dtoClass)
         throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
             NoSuchMethodException, InvocationTargetException {
+        long start = ExecutionListeners.start();
+        ResultMapEvent event = new ResultMapEvent();
+        event.begin();
+        List<T> list = new ArrayList<>();
+
+        // マッピングプランは最初の行を読んでから作る。結果が空なら、列とフィールドの型が合わなくても例外にしない。
+        if (rs.next()) {
+            MappingPlan plan = MappingPlan.getInstance(rs.getMetaData(), dtoClass);
+            do {
+                list.add(mapRow(rs, dtoClass, plan));
+            } while (rs.next());
+        }
+        ExecutionListeners.end(start, ExecutionPhase.MAP, null, dtoClass, list.size());
+        if (event.shouldCommit()) {
+            event.dtoClass = dtoClass;
+            event.rows = list.size();
+            event.commit();
+        }
+        return list;
+    }
+
+    /* toDtoList()と同じ結果を、行の読み出しとDTOへの変換を並行して行うことで返す(forEachPipelined()を参照)。
+     */
+    public static <T> List<T> toDtoListPipelined(ResultSet rs, Class<T> dtoClass, int batchSize, int workers)
+        throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+            NoSuchMethodException, InvocationTargetException, InterruptedException {
+        return toDtoListPipelined(rs, dtoClass, batchSize, workers, SharedExecutor.INSTANCE);
+    }
+
+    public static <T> List<T> toDtoListPipelined(ResultSet rs, Class<T> dtoClass, int batchSize, int workers,
+                                                 Executor executor)
+        throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+            NoSuchMethodException, InvocationTargetException, InterruptedException {
+        long start = ExecutionListeners.start();
+        ResultMapEvent event = new ResultMapEvent();
+        event.begin();
+        List<T> list = new ArrayList<>();
+        forEachPipelined(rs, dtoClass, batchSize, workers, executor, list::add);
+        ExecutionListeners.end(start, ExecutionPhase.MAP, null, dtoClass, list.size());
+        if (event.shouldCommit()) {
+            event.dtoClass = dtoClass;
+            event.rows = list.size();
+            event.commit();
+        }
+        return list;
+    }
+
+    /* 行の読み出しとDTOへの変換を、別のスレッドで並行して行う。
+     * 呼び出し元のスレッドがResultSetからbatchSize行ずつ値を読み出し、executorのスレッドがそれをDTOに変換する。
+     * 変換待ちのまとまりはworkers * 2個までとし、それを超えたら最も古いまとまりの変換が終わるのを待つので、
+     * 読み出しが変換より速くてもメモリ使用量は一定の範囲に収まる。同時に変換するまとまりの数は、
+     * workers * 2とexecutorのスレッド数の小さいほうになる。
+     * executorを指定しない場合は、CPUの数と同じ数のスレッドを持つ、ライブラリで共有するスレッドプールを使う
+     * (呼び出しごとにスレッドを作ることはしない)。
+     * consumerは呼び出し元のスレッドで、ResultSetの行の順に呼ばれる。
+     * fetch sizeを大きくしていて、通信の待ち時間とDTOへの変換の時間が同程度の場合に効果がある。
+     * 呼び出し元のスレッドは、DTOへの変換が使うのと同じgetterで列の値を読み出しておくので、
+     * 結果はtoDtoList()と同じになる。registerConverter()で登録した変換を使う列がある場合は、
+     * 登録された変換がResultSetのどのメソッドを呼ぶかわからないので、並行させずに呼び出し元のスレッドで変換する。
+     */
+    public static <T> void forEachPipelined(ResultSet rs, Class<T> dtoClass, int batchSize, int workers,
+                                            Consumer<? super T> consumer)
+        throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+            NoSuchMethodException, InvocationTargetException, InterruptedException {
+        forEachPipelined(rs, dtoClass, batchSize, workers, SharedExecutor.INSTANCE, consumer);
+    }
+
+    public static <T> void forEachPipelined(ResultSet rs, Class<T> dtoClass, int batchSize, int workers,
+                                            Executor executor, Consumer<? super T> consumer)
+        throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+            NoSuchMethodException, InvocationTargetException, InterruptedException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSizeには1以上を指定してください(" + batchSize + ")。");
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("workersには1以上を指定してください(" + workers + ")。");
+        }
         ResultSetMetaData rsmd = rs.getMetaData();
-        int colCount = rsmd.getColumnCount();
+        MappingPlan plan = MappingPlan.getInstance(rsmd, dtoClass);
+        ColumnConverter<?>[] fetchers = plan.getFetchers();
+        if (fetchers == null) {
+            while (rs.next()) {
+                consumer.accept(mapRow(rs, dtoClass, plan));
+            }
+            return;
+        }
+        RowSourceMapper rowMapper = plan.getRowSourceMapper();
+        int maxPending = workers * 2;
+        ArrayDeque<FutureTask<List<T>>> pending = new ArrayDeque<>();
+        try {
+            RowBatch batch;
+            do {
+                batch = RowBatch.fetch(rs, fetchers, batchSize);
+                if (batch == null) {
+                    break;
+                }
+                if (pending.size() >= maxPending) {
+                    deliver(pending.poll(), consumer);
+                }
+                final RowBatch rows = batch;
+                FutureTask<List<T>> task = new FutureTask<>(() -> mapBatch(rows, dtoClass, rowMapper));
+                pending.add(task);
+                executor.execute(task);
+            } while (batch.getRowCount() == batchSize);
+            while (!pending.isEmpty()) {
+                deliver(pending.poll(), consumer);
+            }
+        } finally {
+            // 例外で抜ける場合に、残りのまとまりの変換を取り消す(共有のスレッドプールは止めない)。
+            for (FutureTask<List<T>> task : pending) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /* ResultSetを1行ずつDTOに変換するIteratorを返す。
+     * 全件をListに溜めないので、大量の行を処理する際にもメモリ使用量は行数に比例しない。
+     * Iterator内で発生した例外は、ResultSetMapperExceptionに包んでスローする。
+     * ResultSetのクローズは呼び出し側で行うこと。
+     */
+    public static <T> Iterator<T> iterator(ResultSet rs, Class<T> dtoClass)
+        throws SQLException, IllegalAccessException, UnsupportedTypeException {
+        return new DtoIterator<>(rs, dtoClass, MappingPlan.getInstance(rs.getMetaData(), dtoClass));
+    }
 
-        HashMap<String, Integer> nameToIndex = new HashMap<>();
-        Field[] fieldArray = dtoClass.getDeclaredFields();
-        for (int i = 0; i < fieldArray.length; i++) {
-            TableColumn tc = fieldArray[i].getAnnotation(TableColumn.class);
-            if (tc != null)
-            {
-                nameToIndex.put(tc.value().toUpperCase(), i);
+    public static <T> Stream<T> stream(ResultSet rs, Class<T> dtoClass)
+        throws SQLException, IllegalAccessException, UnsupportedTypeException {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(rs, dtoClass),
+                                                                        Spliterator.ORDERED | Spliterator.NONNULL),
+                                    false);
+    }
+
+    /* NamedParameterPreparedStatementを実行し、結果を1行ずつDTOに変換するStreamを返す。
+     * PostgreSQLでサーバサイドカーソルを使わせるため、fetchSizeを設定し、
+     * 必要であればauto commitを一時的にオフにする。
+     * 返されたStreamは必ずclose()すること(try-with-resourcesを推奨)。
+     * close()でResultSetをクローズし、auto commitを元に戻す。
+     */
+    public static <T> Stream<T> stream(NamedParameterPreparedStatement npps, Class<T> dtoClass, int fetchSize)
+        throws SQLException, IllegalAccessException, UnsupportedTypeException {
+        PreparedStatement ps = npps.getPreparedStatement();
+        Connection conn = ps.getConnection();
+        boolean autoCommit = conn.getAutoCommit();
+        if (autoCommit) {
+            conn.setAutoCommit(false);
+        }
+        ResultSet rs = null;
+        try {
+            ps.setFetchSize(fetchSize);
+            rs = npps.executeQuery();
+            final ResultSet cursor = rs;
+            return stream(cursor, dtoClass).onClose(() -> {
+                try {
+                    cursor.close();
+                    if (autoCommit) {
+                        conn.setAutoCommit(true);
+                    }
+                } catch (SQLException ex) {
+                    throw new ResultSetMapperException("ResultSetのクローズに失敗しました。", ex);
+                }
+            });
+        } catch (SQLException | IllegalAccessException | UnsupportedTypeException | RuntimeException ex) {
+            if (rs != null) {
+                rs.close();
             }
+            if (autoCommit) {
+                conn.setAutoCommit(true);
+            }
+            throw ex;
         }
+    }
 
-        List<T> list = new ArrayList<>();
+    /* JOINの結果を、@TableColumn(key=true)の列の値が同じ行ごとに1つのDTOにまとめ、@TableChildrenを付けた
+     * フィールドのListに、同じ行から読んだ子のDTOを追加する(子がさらに子を持ってもよい)。
+     * 親も、キーのある子も、キーごとのMap(identity map)で重複を除き、最初に現れた順に並べる。
+     * 行の順序は問わないが、すべての親をメモリ上に保持する。件数が多い場合はnestedStream()を使うこと。
+     * キーの列にNULLがある行は、その階層(とその下の階層)では読み飛ばす。
+     */
+    public static <T> List<T> toNestedDtoList(ResultSet rs, Class<T> dtoClass)
+        throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+            NoSuchMethodException, InvocationTargetException {
+        long start = ExecutionListeners.start();
+        ResultMapEvent event = new ResultMapEvent();
+        event.begin();
+        NestedPlan plan = NestedPlan.getInstance(rs.getMetaData(), dtoClass);
 
+        List<Object> parents = new ArrayList<>();
+        NestedLevel top = new NestedLevel(plan, parents);
         while (rs.next()) {
-            T dto = dtoClass.getDeclaredConstructor().newInstance();
+            top.add(rs);
+        }
+        List<T> list = new ArrayList<>(parents.size());
+        for (Object parent : parents) {
+            list.add(dtoClass.cast(parent));
+        }
+        ExecutionListeners.end(start, ExecutionPhase.MAP, null, dtoClass, list.size());
+        if (event.shouldCommit()) {
+            event.dtoClass = dtoClass;
+            event.rows = list.size();
+            event.commit();
+        }
+        return list;
+    }
 
-            for (int i = 0; i < colCount; i++) {
-                final int rsIdx = i + 1;
-                String colName = rsmd.getColumnName(rsIdx).toUpperCase();
-                if (!nameToIndex.containsKey(colName))
-                    continue;
+    /* toNestedDtoList()と同様に親子のDTOを組み立てるが、同じ親の行が連続している(親のキーでORDER BYしている)
+     * ことを前提に、キーが変わった時点でその親を返す。メモリ上に保持するのは組み立て中の親1件分だけなので、
+     * 親が大量にあっても使える。同じキーの行が離れて現れた場合は、別の親として2回返される。
+     */
+    public static <T> Iterator<T> nestedIterator(ResultSet rs, Class<T> dtoClass)
+        throws SQLException, IllegalAccessException, UnsupportedTypeException {
+        return new NestedIterator<>(rs, dtoClass, NestedPlan.getInstance(rs.getMetaData(), dtoClass));
+    }
 
-                int fieldIndex = nameToIndex.get(colName);
-
-                int colType = rsmd.getColumnType(rsIdx);
-                switch (colType) {
-                    case Types.INTEGER:
-                        if (fieldArray[fieldIndex].getType() == Integer.TYPE) {
-                            fieldArray[fieldIndex].setInt(dto, rs.getInt(rsIdx));
-                        } else if (fieldArray[fieldIndex].getType() == Integer.class) {
-                            int intValue = rs.getInt(rsIdx);
-                            if (rs.wasNull()) {
-                                fieldArray[fieldIndex].set(dto, null);
-                            } else {
-                                fieldArray[fieldIndex].set(dto, intValue);
-                            }
-                        } else {
-                            throw new UnsupportedTypeException("整数を型"
-                                    + fieldArray[fieldIndex].getType().getTypeName()
-                                    + "に変換できません(列:" + colName + ")。");
-                        }
-                        break;
-                    case Types.REAL:
-                        if (fieldArray[fieldIndex].getType() == Double.TYPE) {
-                            fieldArray[fieldIndex].setDouble(dto, rs.getDouble(rsIdx));
-                        } else if (fieldArray[fieldIndex].getType() == Double.class) {
-                            double doubleValue = rs.getDouble(rsIdx);
-                            if (rs.wasNull()) {
-                                fieldArray[fieldIndex].set(dto, null);
-                            } else {
-                                fieldArray[fieldIndex].set(dto, doubleValue);
-                            }
-                        } else {
-                            throw new UnsupportedTypeException("実数を型"
-                                    + fieldArray[fieldIndex].getType().getTypeName()
-                                    + "に変換できません(列:" + colName + ")。");
-                        }
-                        break;
-                    case Types.BIT:
-                    case Types.BOOLEAN:
-                        if (fieldArray[fieldIndex].getType() == Boolean.TYPE) {
-                            fieldArray[fieldIndex].setBoolean(dto, rs.getBoolean(rsIdx));
-                        } else if (fieldArray[fieldIndex].getType() == Boolean.class) {
-                            boolean boolValue = rs.getBoolean(rsIdx);
-                            if (rs.wasNull()) {
-                                fieldArray[fieldIndex].set(dto, null);
-                            } else {
-                                fieldArray[fieldIndex].set(dto, boolValue);
-                            }
-                        } else {
-                            throw new UnsupportedTypeException("ブーリアンを型"
-                                    + fieldArray[fieldIndex].getType().getTypeName()
-                                    + "に変換できません(列:" + colName + ")。");
-                        }
-                        break;
-                    case Types.CHAR:
-                        if (fieldArray[fieldIndex].getAnnotation(TableColumn.class).trim()) {
-                            if (rs.getString(rsIdx) == null) {
-                                fieldArray[fieldIndex].set(dto, null);
-                            } else {
-                                fieldArray[fieldIndex].set(dto, rs.getString(rsIdx).stripTrailing());
-                            }
-                        } else {
-                            fieldArray[fieldIndex].set(dto, rs.getString(rsIdx));
-                        }
-                        break;
-                    case Types.VARCHAR:
-                    case Types.NVARCHAR:
-                        fieldArray[fieldIndex].set(dto, rs.getString(rsIdx));
-                        break;
-                    case Types.DATE:
-                        java.sql.Date sqlDate = rs.getDate(rsIdx);
-                        if (fieldArray[fieldIndex].getType() == java.util.Date.class) {
-                            fieldArray[fieldIndex].set(dto, sqlDate);
-                        } else if (fieldArray[fieldIndex].getType() == LocalDate.class) {
-                            if (sqlDate == null) {
-                                fieldArray[fieldIndex].set(dto, null);
-                            } else {
-                                fieldArray[fieldIndex].set(dto, sqlDate.toLocalDate());
-                            }
-                        } else {
-                            throw new UnsupportedTypeException("DATE型を型"
-                                    + fieldArray[fieldIndex].getType().getTypeName()
-                                    + "に変換できません(列:" + colName + ")。");
-                        }
-                        break;
-                    case Types.TIMESTAMP:
-                        java.sql.Timestamp sqlTimestamp = rs.getTimestamp(rsIdx);
-                        if (fieldArray[fieldIndex].getType() == java.util.Date.class) {
-                            fieldArray[fieldIndex].set(dto, sqlTimestamp);
-                        } else if (fieldArray[fieldIndex].getType() == LocalDateTime.class) {
-                            if (sqlTimestamp == null) {
-                                fieldArray[fieldIndex].set(dto, null);
-                            } else {
-                                fieldArray[fieldIndex].set(dto, sqlTimestamp.toLocalDateTime());
-                            }
-                        } else {
-                            throw new UnsupportedTypeException("TIMESTAMP型を型"
-                                    + fieldArray[fieldIndex].getType().getTypeName()
-                                    + "に変換できません(列:" + colName + ")。");
-                        }
-                        break;
-                    default:
-                        throw new UnsupportedTypeException("java.sql.Typesの" + colType + "は未対応です。");
-                }
+    public static <T> Stream<T> nestedStream(ResultSet rs, Class<T> dtoClass)
+        throws SQLException, IllegalAccessException, UnsupportedTypeException {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(nestedIterator(rs, dtoClass),
+                                                                        Spliterator.ORDERED | Spliterator.NONNULL),
+                                    false);
+    }
+
+    /* 列の型(java.sql.Typesの値)とフィールドの型の組に対する変換を登録する。
+     * 組み込みの変換と同じ組を指定した場合は、登録したものが優先される。
+     * 登録すると、キャッシュ済みのマッピングプランは次回の使用時に作り直される。
+     */
+    public static <T> void registerConverter(int sqlType, Class<T> fieldType,
+                                             ColumnConverter<? extends T> converter) {
+        ConverterRegistry.register(sqlType, fieldType, converter);
+    }
+
+    private static <T> T mapRow(ResultSet rs, Class<T> dtoClass, MappingPlan plan)
+        throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+            NoSuchMethodException, InvocationTargetException {
+        GeneratedDtoMapper<?> generated = plan.getGenerated();
+        if (generated != null) {
+            return dtoClass.cast(generated.map(rs, plan.getColumnIndexes()));
+        }
+        MethodHandle rowFactory = plan.getRowFactory();
+        if (rowFactory != null) {
+            try {
+                return dtoClass.cast((Object) rowFactory.invokeExact(rs));
+            } catch (SQLException | RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+        T dto = dtoClass.cast(plan.getAccessor().newInstance());
+        try {
+            setColumns(rs, dto, plan.getReaders());
+        } catch (SQLException | UnsupportedTypeException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+        return dto;
+    }
+
+    private static <T> List<T> mapBatch(RowBatch rows, Class<T> dtoClass, RowSourceMapper rowMapper)
+        throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        List<T> list = new ArrayList<>(rows.getRowCount());
+        try {
+            while (rows.next()) {
+                list.add(dtoClass.cast(rowMapper.map(rows)));
             }
-            list.add(dto);
+        } catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException
+                 | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
         }
         return list;
     }
+
+    // 変換したスレッドで発生した例外は、そのままの型で呼び出し元に投げ直す。
+    private static <T> void deliver(Future<List<T>> future, Consumer<? super T> consumer)
+        throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+            NoSuchMethodException, InvocationTargetException, InterruptedException {
+        List<T> list;
+        try {
+            list = future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException e) {
+                throw e;
+            } else if (cause instanceof InstantiationException e) {
+                throw e;
+            } else if (cause instanceof IllegalAccessException e) {
+                throw e;
+            } else if (cause instanceof UnsupportedTypeException e) {
+                throw e;
+            } else if (cause instanceof NoSuchMethodException e) {
+                throw e;
+            } else if (cause instanceof InvocationTargetException e) {
+                throw e;
+            } else if (cause instanceof RuntimeException e) {
+                throw e;
+            } else if (cause instanceof Error e) {
+                throw e;
+            }
+            throw new InvocationTargetException(cause);
+        }
+        for (T dto : list) {
+            consumer.accept(dto);
+        }
+    }
+
+    private static class DtoIterator<T> implements Iterator<T> {
+        private final ResultSet rs;
+        private final Class<T> dtoClass;
+        private final MappingPlan plan;
+        private boolean fetched;
+        private boolean hasRow;
+
+        DtoIterator(ResultSet rs, Class<T> dtoClass, MappingPlan plan) {
+            this.rs = rs;
+            this.dtoClass = dtoClass;
+            this.plan = plan;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!this.fetched) {
+                try {
+                    this.hasRow = this.rs.next();
+                } catch (SQLException ex) {
+                    throw new ResultSetMapperException("ResultSetの読み込みに失敗しました。", ex);
+                }
+                this.fetched = true;
+            }
+            return this.hasRow;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.fetched = false;
+            try {
+                return mapRow(this.rs, this.dtoClass, this.plan);
+            } catch (SQLException | ReflectiveOperationException | UnsupportedTypeException ex) {
+                throw new ResultSetMapperException("DTOへの変換に失敗しました。", ex);
+            }
+        }
+    }
+
+    /* 1つの@TableChildrenのフィールド(最上位の場合は結果のList)に対応する、DTOのListとキーごとのMap。
+     */
+    private static class NestedLevel {
+        private final NestedPlan plan;
+        private final List<Object> list;
+        private final HashMap<Object, NestedNode> nodes;
+
+        NestedLevel(NestedPlan plan, List<Object> list) {
+            this.plan = plan;
+            this.list = list;
+            this.nodes = plan.hasKey() ? new HashMap<>() : null;
+        }
+
+        void add(ResultSet rs)
+            throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+                NoSuchMethodException, InvocationTargetException {
+            if (!this.plan.hasKey()) {
+                if (!this.plan.isAllNull(rs)) {
+                    this.list.add(mapRow(rs, this.plan.getDtoClass(), this.plan.getMappingPlan()));
+                }
+                return;
+            }
+            Object key = this.plan.readKey(rs);
+            if (key == null) {
+                return;
+            }
+            NestedNode node = this.nodes.get(key);
+            if (node == null) {
+                node = new NestedNode(rs, this.plan);
+                this.nodes.put(key, node);
+                this.list.add(node.dto);
+            }
+            node.addChildren(rs);
+        }
+    }
+
+    // キーのあるDTOと、その子のNestedLevel。
+    private static class NestedNode {
+        private final Object dto;
+        private final NestedLevel[] children;
+
+        NestedNode(ResultSet rs, NestedPlan plan)
+            throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+                NoSuchMethodException, InvocationTargetException {
+            this.dto = mapRow(rs, plan.getDtoClass(), plan.getMappingPlan());
+            NestedPlan[] childPlans = plan.getChildren();
+            this.children = new NestedLevel[childPlans.length];
+            for (int i = 0; i < childPlans.length; i++) {
+                List<Object> list = new ArrayList<>();
+                plan.setChildList(this.dto, i, list);
+                this.children[i] = new NestedLevel(childPlans[i], list);
+            }
+        }
+
+        void addChildren(ResultSet rs)
+            throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+                NoSuchMethodException, InvocationTargetException {
+            for (NestedLevel child : this.children) {
+                child.add(rs);
+            }
+        }
+    }
+
+    private static class NestedIterator<T> implements Iterator<T> {
+        private final ResultSet rs;
+        private final Class<T> dtoClass;
+        private final NestedPlan plan;
+        private NestedNode current;
+        private Object currentKey;
+        private T next;
+        private boolean done;
+
+        NestedIterator(ResultSet rs, Class<T> dtoClass, NestedPlan plan) {
+            this.rs = rs;
+            this.dtoClass = dtoClass;
+            this.plan = plan;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next == null && !this.done) {
+                try {
+                    this.next = fetch();
+                } catch (SQLException | ReflectiveOperationException | UnsupportedTypeException ex) {
+                    throw new ResultSetMapperException("DTOへの変換に失敗しました。", ex);
+                }
+                this.done = this.next == null;
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T dto = this.next;
+            this.next = null;
+            return dto;
+        }
+
+        // キーが変わるまで行を読み、組み立て終わった親を返す。
+        private T fetch()
+            throws SQLException, InstantiationException, IllegalAccessException, UnsupportedTypeException,
+                NoSuchMethodException, InvocationTargetException {
+            while (this.rs.next()) {
+                Object key = this.plan.readKey(this.rs);
+                if (key == null) {
+                    continue;
+                }
+                if (this.current != null && key.equals(this.currentKey)) {
+                    this.current.addChildren(this.rs);
+                    continue;
+                }
+                NestedNode finished = this.current;
+                this.current = new NestedNode(this.rs, this.plan);
+                this.currentKey = key;
+                this.current.addChildren(this.rs);
+                if (finished != null) {
+                    return this.dtoClass.cast(finished.dto);
+                }
+            }
+            NestedNode finished = this.current;
+            this.current = null;
+            return finished == null ? null : this.dtoClass.cast(finished.dto);
+        }
+    }
+
+    private static void setColumns(ResultSet rs, Object dto, ColumnReader[] readers) throws Throwable {
+        for (ColumnReader reader : readers) {
+            reader.read(rs, dto);
+        }
+    }
 }
@@ -0,0 +1,7 @@
+package com.kmaebashi.dbutil;
+
+public class ResultSetMapperException extends RuntimeException {
+    public ResultSetMapperException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
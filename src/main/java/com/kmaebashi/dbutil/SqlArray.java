@@ -0,0 +1,53 @@
+package com.kmaebashi.dbutil;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/* 配列型のパラメタ。パラメタの値にSqlArray.of("integer", ids)のように指定すると、
+ * Connection.createArrayOf()で作った配列として1つの?に設定する。
+ * PostgreSQLで「= ANY(:IDS)」のように書けば、要素数によらずSQLが変わらないので、
+ * PreparedStatementのキャッシュやサーバ側の実行計画がそのまま再利用される。
+ * typeNameは、createArrayOf()に渡すDBの要素の型名。
+ */
+public final class SqlArray {
+    private final String typeName;
+    private final Object[] elements;
+
+    private SqlArray(String typeName, Object[] elements) {
+        this.typeName = typeName;
+        this.elements = elements;
+    }
+
+    public static SqlArray of(String typeName, Collection<?> elements) {
+        return new SqlArray(typeName, elements.toArray());
+    }
+
+    public static SqlArray of(String typeName, Object[] elements) {
+        return new SqlArray(typeName, elements.clone());
+    }
+
+    public String getTypeName() {
+        return this.typeName;
+    }
+
+    // 要素の配列をそのまま返す(コピーはしない)。返された配列を書き換えないこと。
+    public Object[] getElements() {
+        return this.elements;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SqlArray other && this.typeName.equals(other.typeName)
+                && Arrays.equals(this.elements, other.elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.typeName.hashCode() + Arrays.hashCode(this.elements);
+    }
+
+    @Override
+    public String toString() {
+        return "SqlArray(" + this.typeName + ", " + Arrays.toString(this.elements) + ")";
+    }
+}
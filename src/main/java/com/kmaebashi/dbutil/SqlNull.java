@@ -0,0 +1,43 @@
+package com.kmaebashi.dbutil;
+
+import java.sql.JDBCType;
+
+/* 型付きのNULL。パラメタの値にSqlNull.of(Types.INTEGER)のように指定すると、
+ * ps.setNull(index, Types.INTEGER)で設定する。
+ * 型を指定せずにnullを設定すると、Types.NULL(PostgreSQLでは型なし)で設定されるため、
+ * 同じPreparedStatementでNULLとNULL以外が交互に現れると、サーバ側で文の準備がやり直されることがある。
+ */
+public final class SqlNull {
+    private final int sqlType;
+
+    private SqlNull(int sqlType) {
+        this.sqlType = sqlType;
+    }
+
+    public static SqlNull of(int sqlType) {
+        return new SqlNull(sqlType);
+    }
+
+    public static SqlNull of(JDBCType jdbcType) {
+        return new SqlNull(jdbcType.getVendorTypeNumber());
+    }
+
+    public int getSqlType() {
+        return this.sqlType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SqlNull other && this.sqlType == other.sqlType;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.sqlType;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlNull(" + this.sqlType + ")";
+    }
+}
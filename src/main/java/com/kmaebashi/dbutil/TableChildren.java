@@ -0,0 +1,15 @@
+package com.kmaebashi.dbutil;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/* ResultSetMapper.toNestedDtoList()等で、JOINの結果から子のDTOを集めるフィールドに付ける。
+ * フィールドの型はList<子のDTOのクラス>とし、finalにはしないこと(recordには使えない)。
+ * 子のDTOも、同じ行から@TableColumnで読み出す。列名が親と重なる場合は、SQLで別名を付けること。
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TableChildren {
+}
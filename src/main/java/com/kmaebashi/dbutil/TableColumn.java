@@ -5,9 +5,11 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Target(ElementType.FIELD)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT, ElementType.PARAMETER})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface TableColumn {
     String value();
     boolean trim() default false;
+    // ResultSetMapper.toNestedDtoList()等で、同じDTOの行をまとめるためのキー(主キー)の列であることを示す。
+    boolean key() default false;
 }
@@ -0,0 +1,14 @@
+package com.kmaebashi.dbutil;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/* ResultSetMapperが、フィールドへの書き込みではなくこのコンストラクタの呼び出しでDTOを生成するよう指定する。
+ * コンストラクタの引数には@TableColumnを付ける。recordの場合は、これを付けなくても標準コンストラクタを使う。
+ */
+@Target(ElementType.CONSTRUCTOR)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TableConstructor {
+}
@@ -0,0 +1,123 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.ParameterBinder;
+import com.kmaebashi.dbutil.SqlArray;
+import com.kmaebashi.dbutil.SqlNull;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* パラメタの値のクラスから、ParameterBinderを引くための表。
+ * 値のクラスごとの解決結果はClassValueにキャッシュするので、2回目以降はinstanceofで型を順に調べることはしない。
+ * クラスそのものに登録がなければ、スーパークラス、インタフェースの順に探す。enumは名前の文字列として設定する。
+ * 登録があると、解決済みの結果が古くなるので、ClassValueごと作り直す。
+ * sqlTypes()は、DTOのフィールドの値がnullの場合に、フィールドの型からps.setNull()に渡す型を決めるのに使う。
+ */
+public class BinderRegistry {
+    private static final ConcurrentHashMap<Class<?>, ParameterBinder<?>> binders = new ConcurrentHashMap<>();
+    private static final ParameterBinder<Enum<?>> ENUM_BINDER = (ps, index, v) -> ps.setString(index, v.name());
+    private static volatile ClassValue<ParameterBinder<Object>> resolved = newResolvedCache();
+    private static final Map<Class<?>, Integer> sqlTypes = Map.ofEntries(
+            Map.entry(Integer.class, Types.INTEGER),
+            Map.entry(Long.class, Types.BIGINT),
+            Map.entry(Short.class, Types.SMALLINT),
+            Map.entry(Double.class, Types.DOUBLE),
+            Map.entry(Float.class, Types.REAL),
+            Map.entry(BigDecimal.class, Types.NUMERIC),
+            Map.entry(Boolean.class, Types.BOOLEAN),
+            Map.entry(String.class, Types.VARCHAR),
+            Map.entry(java.sql.Date.class, Types.DATE),
+            Map.entry(LocalDate.class, Types.DATE),
+            Map.entry(Timestamp.class, Types.TIMESTAMP),
+            Map.entry(LocalDateTime.class, Types.TIMESTAMP),
+            Map.entry(OffsetDateTime.class, Types.TIMESTAMP_WITH_TIMEZONE),
+            Map.entry(Instant.class, Types.TIMESTAMP_WITH_TIMEZONE),
+            Map.entry(UUID.class, Types.OTHER),
+            Map.entry(byte[].class, Types.BINARY));
+
+    static {
+        register(Integer.class, (ps, index, v) -> ps.setInt(index, v));
+        register(Long.class, (ps, index, v) -> ps.setLong(index, v));
+        register(Short.class, (ps, index, v) -> ps.setShort(index, v));
+        register(Double.class, (ps, index, v) -> ps.setDouble(index, v));
+        register(Float.class, (ps, index, v) -> ps.setFloat(index, v));
+        register(BigDecimal.class, (ps, index, v) -> ps.setBigDecimal(index, v));
+        register(Boolean.class, (ps, index, v) -> ps.setBoolean(index, v));
+        register(String.class, (ps, index, v) -> ps.setString(index, v));
+        register(java.sql.Date.class, (ps, index, v) -> ps.setDate(index, v));
+        register(LocalDate.class, (ps, index, v) -> ps.setDate(index, java.sql.Date.valueOf(v)));
+        register(Timestamp.class, (ps, index, v) -> ps.setTimestamp(index, v));
+        register(LocalDateTime.class, (ps, index, v) -> ps.setTimestamp(index, Timestamp.valueOf(v)));
+        register(OffsetDateTime.class, (ps, index, v) -> ps.setObject(index, v));
+        register(Instant.class, (ps, index, v) -> ps.setObject(index, v.atOffset(ZoneOffset.UTC)));
+        register(UUID.class, (ps, index, v) -> ps.setObject(index, v));
+        register(byte[].class, (ps, index, v) -> ps.setBytes(index, v));
+        register(SqlNull.class, (ps, index, v) -> ps.setNull(index, v.getSqlType()));
+        register(SqlArray.class, (ps, index, v) -> {
+            ps.setArray(index, ps.getConnection().createArrayOf(v.getTypeName(), v.getElements()));
+        });
+    }
+
+    private BinderRegistry() {
+    }
+
+    public static <T> void register(Class<T> valueClass, ParameterBinder<? super T> binder) {
+        binders.put(valueClass, binder);
+        resolved = newResolvedCache();
+    }
+
+    /* valueClassの値を設定するParameterBinderを返す。見つからなければnullを返す。
+     */
+    static ParameterBinder<Object> find(Class<?> valueClass) {
+        return resolved.get(valueClass);
+    }
+
+    /* fieldTypeの値がnullの場合にps.setNull()に渡す型を返す。不明な場合はTypes.NULLを返す。
+     */
+    static int sqlTypeFor(Class<?> fieldType) {
+        if (fieldType.isEnum()) {
+            return Types.VARCHAR;
+        }
+        return sqlTypes.getOrDefault(fieldType, Types.NULL);
+    }
+
+    private static ClassValue<ParameterBinder<Object>> newResolvedCache() {
+        return new ClassValue<>() {
+            @Override
+            protected ParameterBinder<Object> computeValue(Class<?> valueClass) {
+                return resolve(valueClass);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ParameterBinder<Object> resolve(Class<?> valueClass) {
+        for (Class<?> c = valueClass; c != null; c = c.getSuperclass()) {
+            ParameterBinder<?> binder = binders.get(c);
+            if (binder != null) {
+                return (ParameterBinder<Object>) binder;
+            }
+        }
+        for (Class<?> c = valueClass; c != null; c = c.getSuperclass()) {
+            for (Class<?> i : c.getInterfaces()) {
+                ParameterBinder<?> binder = binders.get(i);
+                if (binder != null) {
+                    return (ParameterBinder<Object>) binder;
+                }
+            }
+        }
+        if (Enum.class.isAssignableFrom(valueClass)) {
+            return (ParameterBinder<Object>) (ParameterBinder<?>) ENUM_BINDER;
+        }
+        return null;
+    }
+}
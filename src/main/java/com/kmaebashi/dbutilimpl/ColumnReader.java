@@ -0,0 +1,10 @@
+package com.kmaebashi.dbutilimpl;
+
+import java.sql.ResultSet;
+
+/* ResultSetの現在の行の1つの列を読み、DTOのフィールドに書き込む。
+ * ConverterRegistry.createReader()で、結果の形ごとに1回だけ作る。
+ */
+public interface ColumnReader {
+    void read(ResultSet rs, Object dto) throws Throwable;
+}
@@ -0,0 +1,429 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.ConnectionPool;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/* ConnectionPoolの実装。
+ * 同時に貸し出すコネクションの数はSemaphoreで制限し、空いているコネクションはConcurrentLinkedDequeに
+ * 積んでおく(どちらもロックを使わない)。貸し出すたびに新しいProxyを作り、close()でプールに戻す。
+ * Proxyのハンドラは StatementCacheProviderなので、NamedParameterPreparedStatementは
+ * 物理的なコネクションごとのStatementCacheを使う。
+ * プールに戻す時は、auto commitがオフであればロールバックする。また、貸し出し中にsetAutoCommit()、setReadOnly()、
+ * setTransactionIsolation()、setSchema()が呼ばれていれば、作成直後に記録しておいた値に戻す
+ * (呼ばれていなければ、値を問い合わせる往復を省く)。
+ */
+public class ConnectionPoolImpl implements ConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final Semaphore semaphore;
+    private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private volatile long maxLifetimeMillis = TimeUnit.MINUTES.toMillis(30);
+    private volatile long validationIntervalMillis = 1000;
+    private volatile long connectionTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+    private volatile int statementCacheSize = 100;
+    private volatile int loginTimeout;
+    private volatile boolean closed;
+
+    public ConnectionPoolImpl(ConnectionFactory factory, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSizeには1以上を指定してください(" + maxSize + ")。");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.semaphore = new Semaphore(maxSize, true);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (this.closed) {
+            throw new SQLException("コネクションプールはクローズされています。");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = this.semaphore.tryAcquire(this.connectionTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("コネクションの取得中に割り込まれました。", ex);
+        }
+        long waitNanos = System.nanoTime() - start;
+        this.acquireCount.increment();
+        this.totalWaitNanos.add(waitNanos);
+        this.maxWaitNanos.accumulate(waitNanos);
+        if (!acquired) {
+            this.timeoutCount.increment();
+            throw new SQLException("コネクションの取得がタイムアウトしました(" + this.connectionTimeoutMillis + "ms)。");
+        }
+        try {
+            PooledConnection pooled;
+            while ((pooled = this.idleConnections.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    break;
+                }
+                evict(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            this.activeCount.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                       new Class<?>[] {Connection.class},
+                                                       new ConnectionHandler(this, pooled));
+        } catch (SQLException | RuntimeException | Error ex) {
+            this.semaphore.release();
+            throw ex;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (now - pooled.createdAt >= this.maxLifetimeMillis) {
+            return false;
+        }
+        if (now - pooled.lastUsedAt > this.validationIntervalMillis) {
+            try {
+                return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = this.factory.create();
+        PooledConnection pooled;
+        try {
+            int cacheSize = this.statementCacheSize;
+            pooled = new PooledConnection(physical, cacheSize > 0 ? new StatementCache(physical, cacheSize) : null);
+        } catch (SQLException | RuntimeException ex) {
+            physical.close();
+            throw ex;
+        }
+        this.totalCount.incrementAndGet();
+        this.createdCount.increment();
+        return pooled;
+    }
+
+    private void evict(PooledConnection pooled) {
+        this.totalCount.decrementAndGet();
+        this.evictedCount.increment();
+        pooled.closePhysical();
+    }
+
+    void release(PooledConnection pooled) {
+        this.activeCount.decrementAndGet();
+        try {
+            boolean reusable = !this.closed && !pooled.unwrapped
+                    && System.currentTimeMillis() - pooled.createdAt < this.maxLifetimeMillis;
+            if (reusable) {
+                try {
+                    pooled.reset();
+                } catch (SQLException ex) {
+                    reusable = false;
+                }
+            }
+            if (reusable) {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                this.idleConnections.offerFirst(pooled);
+                // offerFirst()とclose()が競合した場合に、空きコネクションが残らないようにする。
+                if (this.closed && this.idleConnections.remove(pooled)) {
+                    evict(pooled);
+                }
+            } else {
+                evict(pooled);
+            }
+        } finally {
+            this.semaphore.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        PooledConnection pooled;
+        while ((pooled = this.idleConnections.pollFirst()) != null) {
+            evict(pooled);
+        }
+    }
+
+    @Override
+    public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+    }
+
+    @Override
+    public void setValidationIntervalMillis(long validationIntervalMillis) {
+        this.validationIntervalMillis = validationIntervalMillis;
+    }
+
+    @Override
+    public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    @Override
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    @Override
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return this.activeCount.get();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return this.idleConnections.size();
+    }
+
+    @Override
+    public int getTotalCount() {
+        return this.totalCount.get();
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return this.acquireCount.sum();
+    }
+
+    @Override
+    public long getTotalWaitNanos() {
+        return this.totalWaitNanos.sum();
+    }
+
+    @Override
+    public long getMaxWaitNanos() {
+        return this.maxWaitNanos.get();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return this.timeoutCount.sum();
+    }
+
+    @Override
+    public long getCreatedCount() {
+        return this.createdCount.sum();
+    }
+
+    @Override
+    public long getEvictedCount() {
+        return this.evictedCount.sum();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("ユーザを指定したgetConnection()はサポートしていません。");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return this.loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException(iface.getName() + "のインスタンスではありません。");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /* プール中の物理的なコネクション。作成直後のauto commit等の値を記録しておく。
+     */
+    static class PooledConnection {
+        final Connection physical;
+        final StatementCache statementCache;
+        final long createdAt;
+        final boolean defaultAutoCommit;
+        final boolean defaultReadOnly;
+        final int defaultTransactionIsolation;
+        final String defaultSchema;
+        volatile long lastUsedAt;
+        // 貸し出し中に、auto commit等を変更するメソッドが呼ばれたかどうか。
+        volatile boolean stateChanged;
+        // 物理的なコネクションそのものを貸し出し先に渡したかどうか。渡したものはプールに戻さない。
+        volatile boolean unwrapped;
+
+        PooledConnection(Connection physical, StatementCache statementCache) throws SQLException {
+            this.physical = physical;
+            this.statementCache = statementCache;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsedAt = this.createdAt;
+            this.defaultAutoCommit = physical.getAutoCommit();
+            this.defaultReadOnly = physical.isReadOnly();
+            this.defaultTransactionIsolation = physical.getTransactionIsolation();
+            this.defaultSchema = physical.getSchema();
+        }
+
+        void reset() throws SQLException {
+            if (!this.physical.getAutoCommit()) {
+                this.physical.rollback();
+            }
+            if (this.stateChanged) {
+                this.physical.setAutoCommit(this.defaultAutoCommit);
+                this.physical.setReadOnly(this.defaultReadOnly);
+                this.physical.setTransactionIsolation(this.defaultTransactionIsolation);
+                this.physical.setSchema(this.defaultSchema);
+                this.stateChanged = false;
+            }
+            this.physical.clearWarnings();
+        }
+
+        void closePhysical() {
+            try {
+                if (this.statementCache != null) {
+                    this.statementCache.closeAll();
+                }
+                this.physical.close();
+            } catch (SQLException ex) {
+                // 捨てるコネクションなので、クローズの失敗は無視する。
+            }
+        }
+    }
+
+    /* 貸し出したコネクションのProxyのハンドラ。close()でプールに戻し、それ以降の呼び出しはSQLExceptionにする。
+     * unwrap()で物理的なコネクションをそのまま返すと、プールに戻した後も使われたり、close()等を直接呼ばれたり
+     * するおそれがある。そこで、PGConnectionのような、Connectionを継承しないインタフェースへのunwrap()には、
+     * このハンドラと同じくクローズ後の呼び出しをSQLExceptionにするProxyを返す。それ以外(ドライバのクラスや、
+     * Connectionを継承するインタフェース)へのunwrap()では物理的なコネクションを返すが、そのコネクションは
+     * プールに戻さずに破棄する。
+     */
+    private static class ConnectionHandler implements InvocationHandler, StatementCacheProvider {
+        private final ConnectionPoolImpl pool;
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        ConnectionHandler(ConnectionPoolImpl pool, PooledConnection pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public StatementCache getStatementCache() {
+            return this.pooled.statementCache;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            int argCount = args == null ? 0 : args.length;
+            if (name.equals("equals") && argCount == 1) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode") && argCount == 0) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString") && argCount == 0) {
+                return "Pooled" + (this.closed ? "(closed)" : "") + "[" + this.pooled.physical + "]";
+            }
+            synchronized (this) {
+                if (name.equals("close") && argCount == 0) {
+                    if (!this.closed) {
+                        this.closed = true;
+                        this.pool.release(this.pooled);
+                    }
+                    return null;
+                } else if (name.equals("isClosed") && argCount == 0) {
+                    return this.closed;
+                } else if (name.equals("isValid") && this.closed) {
+                    return false;
+                } else if (this.closed) {
+                    throw new SQLException("コネクションはクローズされています。");
+                }
+            }
+            if (name.equals("unwrap") && argCount == 1) {
+                return unwrap(proxy, (Class<?>) args[0]);
+            } else if (name.equals("setAutoCommit") || name.equals("setReadOnly")
+                       || name.equals("setTransactionIsolation") || name.equals("setSchema")) {
+                this.pooled.stateChanged = true;
+            }
+            return invokeOn(this.pooled.physical, method, args);
+        }
+
+        private Object unwrap(Object proxy, Class<?> iface) throws Throwable {
+            if (iface.isInstance(proxy)) {
+                return proxy;
+            }
+            Object target = this.pooled.physical.unwrap(iface);
+            if (!iface.isInterface() || Connection.class.isAssignableFrom(iface)) {
+                this.pooled.unwrapped = true;
+                return target;
+            }
+            return Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[] {iface}, (p, method, args) -> {
+                synchronized (this) {
+                    if (this.closed) {
+                        throw new SQLException("コネクションはクローズされています。");
+                    }
+                }
+                return invokeOn(target, method, args);
+            });
+        }
+
+        private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.ColumnConverter;
+import com.kmaebashi.dbutil.UnsupportedTypeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* java.sql.Typesの値とDTOのフィールドの型の組から、ColumnConverterを引くための表。
+ * 組み込みの変換に加えて、ResultSetMapper.registerConverter()で利用者が登録した変換を保持する
+ * (同じ組に登録すると組み込みの変換を上書きする)。
+ * createReader()は、列ごとに1つのColumnReaderを作る。プリミティブ型のフィールドに組み込みの変換で
+ * 書き込む場合は、rs.getInt()等の値をboxingせずにsetterに渡す専用のreaderを作る。
+ * createGetter()は、コンストラクタの引数に渡すための、(ResultSet)引数の型 のMethodHandleを作る。
+ * 注釈処理が生成したGeneratedDtoMapperは、isBuiltin()で組み込みの変換だけだと確かめた結果にだけ使う。
+ * 組み込みの変換には、それが呼ぶResultSetのgetterだけを呼んで値をそのまま返すColumnConverter(rawGetter())を
+ * 対応させる。ResultSetMapper.forEachPipelined()は、これで読み出した値をRowBatchに保持し、
+ * 変換用のスレッドでfromRaw()の返すMethodHandleでフィールドの型にする。
+ */
+public class ConverterRegistry {
+    private static final MethodType BOXED_SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final MethodHandle CONVERT;
+    private static final MethodHandle STRIP_TRAILING;
+    private static final MethodHandle OR_DEFAULT;
+    private static final MethodHandle TO_LOCAL_DATE;
+    private static final MethodHandle TO_LOCAL_DATE_TIME;
+    private static final MethodHandle TO_INSTANT;
+    private static final MethodHandle TO_ENUM;
+
+    private static final ColumnConverter<?> GET_INT = (rs, idx) -> {
+        int value = rs.getInt(idx);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnConverter<?> GET_LONG = (rs, idx) -> {
+        long value = rs.getLong(idx);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnConverter<?> GET_SHORT = (rs, idx) -> {
+        short value = rs.getShort(idx);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnConverter<?> GET_DOUBLE = (rs, idx) -> {
+        double value = rs.getDouble(idx);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnConverter<?> GET_FLOAT = (rs, idx) -> {
+        float value = rs.getFloat(idx);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnConverter<?> GET_BOOLEAN = (rs, idx) -> {
+        boolean value = rs.getBoolean(idx);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnConverter<?> GET_STRING = (rs, idx) -> rs.getString(idx);
+    private static final ColumnConverter<?> GET_BIG_DECIMAL = (rs, idx) -> rs.getBigDecimal(idx);
+    private static final ColumnConverter<?> GET_DATE = (rs, idx) -> rs.getDate(idx);
+    private static final ColumnConverter<?> GET_TIMESTAMP = (rs, idx) -> rs.getTimestamp(idx);
+    private static final ColumnConverter<?> GET_OFFSET_DATE_TIME
+            = (rs, idx) -> rs.getObject(idx, OffsetDateTime.class);
+    private static final ColumnConverter<?> GET_UUID = (rs, idx) -> rs.getObject(idx, UUID.class);
+    private static final ColumnConverter<?> GET_BYTES = (rs, idx) -> rs.getBytes(idx);
+
+    private static final ConcurrentHashMap<Key, Entry> converters = new ConcurrentHashMap<>();
+    // 登録のたびに増やす。MappingPlanはこれを見て、古い変換で作ったプランを作り直す。
+    private static volatile int generation;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CONVERT = lookup.findVirtual(ColumnConverter.class, "convert",
+                                         MethodType.methodType(Object.class, ResultSet.class, int.class));
+            STRIP_TRAILING = lookup.findStatic(ConverterRegistry.class, "stripTrailing",
+                                               MethodType.methodType(Object.class, Object.class));
+            OR_DEFAULT = lookup.findStatic(ConverterRegistry.class, "orDefault",
+                                           MethodType.methodType(Object.class, Object.class, Object.class));
+            MethodType unary = MethodType.methodType(Object.class, Object.class);
+            TO_LOCAL_DATE = lookup.findStatic(ConverterRegistry.class, "toLocalDate", unary);
+            TO_LOCAL_DATE_TIME = lookup.findStatic(ConverterRegistry.class, "toLocalDateTime", unary);
+            TO_INSTANT = lookup.findStatic(ConverterRegistry.class, "toInstant", unary);
+            TO_ENUM = lookup.findStatic(ConverterRegistry.class, "toEnum",
+                                        MethodType.methodType(Object.class, Class.class, Object.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+        for (int sqlType : new int[] {Types.INTEGER, Types.SMALLINT, Types.TINYINT}) {
+            registerBuiltin(sqlType, Integer.TYPE, GET_INT, (rs, idx) -> rs.getInt(idx));
+            registerBuiltin(sqlType, Integer.class, GET_INT, (rs, idx) -> {
+                int value = rs.getInt(idx);
+                return rs.wasNull() ? null : value;
+            });
+            registerLongs(sqlType);
+        }
+        for (int sqlType : new int[] {Types.SMALLINT, Types.TINYINT}) {
+            registerBuiltin(sqlType, Short.TYPE, GET_SHORT, (rs, idx) -> rs.getShort(idx));
+            registerBuiltin(sqlType, Short.class, GET_SHORT, (rs, idx) -> {
+                short value = rs.getShort(idx);
+                return rs.wasNull() ? null : value;
+            });
+        }
+        registerLongs(Types.BIGINT);
+        for (int sqlType : new int[] {Types.REAL, Types.FLOAT, Types.DOUBLE, Types.NUMERIC, Types.DECIMAL}) {
+            registerBuiltin(sqlType, Double.TYPE, GET_DOUBLE, (rs, idx) -> rs.getDouble(idx));
+            registerBuiltin(sqlType, Double.class, GET_DOUBLE, (rs, idx) -> {
+                double value = rs.getDouble(idx);
+                return rs.wasNull() ? null : value;
+            });
+        }
+        registerBuiltin(Types.REAL, Float.TYPE, GET_FLOAT, (rs, idx) -> rs.getFloat(idx));
+        registerBuiltin(Types.REAL, Float.class, GET_FLOAT, (rs, idx) -> {
+            float value = rs.getFloat(idx);
+            return rs.wasNull() ? null : value;
+        });
+        for (int sqlType : new int[] {Types.NUMERIC, Types.DECIMAL}) {
+            registerBuiltin(sqlType, BigDecimal.class, GET_BIG_DECIMAL, (rs, idx) -> rs.getBigDecimal(idx));
+        }
+        for (int sqlType : new int[] {Types.BIT, Types.BOOLEAN}) {
+            registerBuiltin(sqlType, Boolean.TYPE, GET_BOOLEAN, (rs, idx) -> rs.getBoolean(idx));
+            registerBuiltin(sqlType, Boolean.class, GET_BOOLEAN, (rs, idx) -> {
+                boolean value = rs.getBoolean(idx);
+                return rs.wasNull() ? null : value;
+            });
+        }
+        for (int sqlType : new int[] {Types.CHAR, Types.NCHAR, Types.VARCHAR, Types.NVARCHAR,
+                                      Types.LONGVARCHAR, Types.LONGNVARCHAR}) {
+            registerBuiltin(sqlType, String.class, GET_STRING, (rs, idx) -> rs.getString(idx));
+        }
+        registerBuiltin(Types.DATE, java.util.Date.class, GET_DATE, (rs, idx) -> rs.getDate(idx));
+        registerBuiltin(Types.DATE, java.sql.Date.class, GET_DATE, (rs, idx) -> rs.getDate(idx));
+        registerBuiltin(Types.DATE, LocalDate.class, GET_DATE, TO_LOCAL_DATE, (rs, idx) -> {
+            java.sql.Date sqlDate = rs.getDate(idx);
+            return sqlDate == null ? null : sqlDate.toLocalDate();
+        });
+        registerBuiltin(Types.TIMESTAMP, java.util.Date.class, GET_TIMESTAMP, (rs, idx) -> rs.getTimestamp(idx));
+        registerBuiltin(Types.TIMESTAMP, java.sql.Timestamp.class, GET_TIMESTAMP, (rs, idx) -> rs.getTimestamp(idx));
+        registerBuiltin(Types.TIMESTAMP, LocalDateTime.class, GET_TIMESTAMP, TO_LOCAL_DATE_TIME, (rs, idx) -> {
+            java.sql.Timestamp sqlTimestamp = rs.getTimestamp(idx);
+            return sqlTimestamp == null ? null : sqlTimestamp.toLocalDateTime();
+        });
+        // PostgreSQLのJDBCドライバは、timestamptzの列もTypes.TIMESTAMPとして返す。
+        for (int sqlType : new int[] {Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE}) {
+            registerBuiltin(sqlType, OffsetDateTime.class, GET_OFFSET_DATE_TIME,
+                            (rs, idx) -> rs.getObject(idx, OffsetDateTime.class));
+            registerBuiltin(sqlType, Instant.class, GET_TIMESTAMP, TO_INSTANT, (rs, idx) -> {
+                java.sql.Timestamp sqlTimestamp = rs.getTimestamp(idx);
+                return sqlTimestamp == null ? null : sqlTimestamp.toInstant();
+            });
+        }
+        registerBuiltin(Types.OTHER, UUID.class, GET_UUID, (rs, idx) -> rs.getObject(idx, UUID.class));
+        registerBuiltin(Types.OTHER, String.class, GET_STRING, (rs, idx) -> rs.getString(idx));
+        for (int sqlType : new int[] {Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY}) {
+            registerBuiltin(sqlType, byte[].class, GET_BYTES, (rs, idx) -> rs.getBytes(idx));
+        }
+    }
+
+    private ConverterRegistry() {
+    }
+
+    private static void registerLongs(int sqlType) {
+        registerBuiltin(sqlType, Long.TYPE, GET_LONG, (rs, idx) -> rs.getLong(idx));
+        registerBuiltin(sqlType, Long.class, GET_LONG, (rs, idx) -> {
+            long value = rs.getLong(idx);
+            return rs.wasNull() ? null : value;
+        });
+    }
+
+    private static void registerBuiltin(int sqlType, Class<?> fieldType, ColumnConverter<?> raw,
+                                        ColumnConverter<?> converter) {
+        registerBuiltin(sqlType, fieldType, raw, null, converter);
+    }
+
+    // rawで読み出した値がそのままフィールドの型の値にならない場合は、その変換をfromRawに指定する。
+    private static void registerBuiltin(int sqlType, Class<?> fieldType, ColumnConverter<?> raw,
+                                        MethodHandle fromRaw, ColumnConverter<?> converter) {
+        converters.put(new Key(sqlType, fieldType), new Entry(converter, raw, fromRaw));
+    }
+
+    public static synchronized <T> void register(int sqlType, Class<T> fieldType, ColumnConverter<? extends T> converter) {
+        converters.put(new Key(sqlType, fieldType), new Entry(converter, null, null));
+        generation++;
+    }
+
+    static int getGeneration() {
+        return generation;
+    }
+
+    /* 列の値をフィールドの型に変換するColumnConverterを返す。
+     * プリミティブ型のフィールドの場合も、boxingした値を返す(NULLの場合は0やfalseになる)。
+     */
+    public static ColumnConverter<?> findConverter(int sqlType, Class<?> fieldType, String colName)
+            throws UnsupportedTypeException {
+        Entry entry = converters.get(new Key(sqlType, fieldType));
+        if (entry != null) {
+            return entry.converter;
+        }
+        if (fieldType.isEnum() && isCharacterType(sqlType)) {
+            return enumConverter(fieldType);
+        }
+        if (isKnownType(sqlType)) {
+            throw new UnsupportedTypeException(typeLabel(sqlType) + "を型"
+                    + fieldType.getTypeName()
+                    + "に変換できません(列:" + colName + ")。");
+        }
+        throw new UnsupportedTypeException("java.sql.Typesの" + sqlType + "は未対応です。");
+    }
+
+    /* 組の変換が、利用者が上書きしていない組み込みのもの(文字列の列から列挙型への変換を含む)かどうか。
+     * 注釈処理が生成したコードは組み込みの変換と同じ読み出し方をするので、そうでない組を含む結果には使えない。
+     */
+    public static boolean isBuiltin(int sqlType, Class<?> fieldType) {
+        Entry entry = converters.get(new Key(sqlType, fieldType));
+        if (entry != null) {
+            return entry.builtin;
+        }
+        return fieldType.isEnum() && isCharacterType(sqlType);
+    }
+
+    /* setterは、DtoAccessor.setterFor()で作ったもの。trimがtrueなら、Types.CHARの列に限り、文字列の末尾の空白を除去する。
+     */
+    public static ColumnReader createReader(int sqlType, String colName, int rsIdx, Class<?> fieldType,
+                                            MethodHandle setter, boolean trim) throws UnsupportedTypeException {
+        ColumnConverter<?> converter = findConverter(sqlType, fieldType, colName);
+        Entry entry = converters.get(new Key(sqlType, fieldType));
+        if (entry != null && entry.builtin && fieldType.isPrimitive()) {
+            return primitiveReader(rsIdx, fieldType, setter);
+        }
+        MethodHandle boxedSetter = setter.asType(BOXED_SETTER_TYPE);
+        if (trim && fieldType == String.class && sqlType == Types.CHAR) {
+            return (rs, dto) -> {
+                String value = (String) converter.convert(rs, rsIdx);
+                boxedSetter.invokeExact(dto, (Object) (value == null ? null : value.stripTrailing()));
+            };
+        }
+        if (fieldType.isPrimitive()) {
+            // 利用者が登録した変換がnullを返しても、NullPointerExceptionにせずに0やfalseのままにする。
+            return (rs, dto) -> {
+                Object value = converter.convert(rs, rsIdx);
+                if (value != null) {
+                    boxedSetter.invokeExact(dto, value);
+                }
+            };
+        }
+        return (rs, dto) -> {
+            boxedSetter.invokeExact(dto, (Object) converter.convert(rs, rsIdx));
+        };
+    }
+
+    /* rsIdx番目の列の値を型typeで返す、(ResultSet)type のMethodHandleを作る。
+     * プリミティブ型への組み込みの変換はrs.getInt()等を直接呼び、boxingしない。
+     * 利用者が登録した変換がnullを返した場合、プリミティブ型なら0やfalseにする。
+     */
+    public static MethodHandle createGetter(int sqlType, String colName, int rsIdx, Class<?> type, boolean trim)
+            throws UnsupportedTypeException {
+        ColumnConverter<?> converter = findConverter(sqlType, type, colName);
+        Entry entry = converters.get(new Key(sqlType, type));
+        MethodType getterType = MethodType.methodType(type, ResultSet.class);
+        if (entry != null && entry.builtin && type.isPrimitive()) {
+            String name = "get" + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+            try {
+                MethodHandle getter = MethodHandles.publicLookup().findVirtual(ResultSet.class, name,
+                        MethodType.methodType(type, int.class));
+                return MethodHandles.insertArguments(getter, 1, rsIdx);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        MethodHandle getter = MethodHandles.insertArguments(CONVERT.bindTo(converter), 1, rsIdx);
+        if (trim && type == String.class && sqlType == Types.CHAR) {
+            getter = MethodHandles.filterReturnValue(getter, STRIP_TRAILING);
+        } else if (type.isPrimitive()) {
+            // プリミティブ型の配列の要素の初期値(0やfalse)を、boxingした既定値として使う。
+            Object defaultValue = Array.get(Array.newInstance(type, 1), 0);
+            getter = MethodHandles.filterReturnValue(getter,
+                                                     MethodHandles.insertArguments(OR_DEFAULT, 1, defaultValue));
+        }
+        return getter.asType(getterType);
+    }
+
+    /* rawGetter()で読み出した値(NULLならnull)を、組み込みの変換と同じ値にする、(Object)type のMethodHandleを返す。
+     * trimの扱いとプリミティブ型でNULLを0やfalseにすることは、createReader()やcreateGetter()と同じ。
+     * rawGetter()がnullを返す組ではnullを返す。
+     */
+    public static MethodHandle fromRaw(int sqlType, Class<?> type, boolean trim) {
+        Entry entry = converters.get(new Key(sqlType, type));
+        MethodHandle handle;
+        if (entry != null) {
+            if (!entry.builtin) {
+                return null;
+            }
+            handle = entry.fromRaw != null ? entry.fromRaw : MethodHandles.identity(Object.class);
+        } else if (type.isEnum() && isCharacterType(sqlType)) {
+            handle = TO_ENUM.bindTo(type);
+        } else {
+            return null;
+        }
+        if (trim && type == String.class && sqlType == Types.CHAR) {
+            handle = MethodHandles.filterReturnValue(handle, STRIP_TRAILING);
+        } else if (type.isPrimitive()) {
+            Object defaultValue = Array.get(Array.newInstance(type, 1), 0);
+            handle = MethodHandles.filterReturnValue(handle,
+                                                     MethodHandles.insertArguments(OR_DEFAULT, 1, defaultValue));
+        }
+        return handle.asType(MethodType.methodType(type, Object.class));
+    }
+
+    private static Object toLocalDate(Object value) {
+        return value == null ? null : ((java.sql.Date) value).toLocalDate();
+    }
+
+    private static Object toLocalDateTime(Object value) {
+        return value == null ? null : ((java.sql.Timestamp) value).toLocalDateTime();
+    }
+
+    private static Object toInstant(Object value) {
+        return value == null ? null : ((java.sql.Timestamp) value).toInstant();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toEnum(Class enumType, Object value) {
+        return value == null ? null : Enum.valueOf(enumType, (String) value);
+    }
+
+    private static Object stripTrailing(Object value) {
+        return value == null ? null : ((String) value).stripTrailing();
+    }
+
+    private static Object orDefault(Object value, Object defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    /* 組み込みの変換(文字列の列から列挙型への変換を含む)が呼ぶResultSetのgetterを呼び、その値を
+     * (プリミティブ型ならboxingし、NULLならnullにして)返すColumnConverterを返す。
+     * 利用者が登録した変換の組など、どのgetterを呼ぶか分からない場合はnullを返す。
+     */
+    public static ColumnConverter<?> rawGetter(int sqlType, Class<?> fieldType) {
+        Entry entry = converters.get(new Key(sqlType, fieldType));
+        if (entry != null) {
+            return entry.raw;
+        }
+        return fieldType.isEnum() && isCharacterType(sqlType) ? GET_STRING : null;
+    }
+
+    private static ColumnReader primitiveReader(int rsIdx, Class<?> fieldType, MethodHandle setter) {
+        if (fieldType == Integer.TYPE) {
+            return (rs, dto) -> {
+                setter.invokeExact(dto, rs.getInt(rsIdx));
+            };
+        } else if (fieldType == Long.TYPE) {
+            return (rs, dto) -> {
+                setter.invokeExact(dto, rs.getLong(rsIdx));
+            };
+        } else if (fieldType == Double.TYPE) {
+            return (rs, dto) -> {
+                setter.invokeExact(dto, rs.getDouble(rsIdx));
+            };
+        } else if (fieldType == Float.TYPE) {
+            return (rs, dto) -> {
+                setter.invokeExact(dto, rs.getFloat(rsIdx));
+            };
+        } else if (fieldType == Short.TYPE) {
+            return (rs, dto) -> {
+                setter.invokeExact(dto, rs.getShort(rsIdx));
+            };
+        } else {
+            return (rs, dto) -> {
+                setter.invokeExact(dto, rs.getBoolean(rsIdx));
+            };
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ColumnConverter<?> enumConverter(Class<?> enumType) {
+        Class<? extends Enum> type = (Class<? extends Enum>) enumType;
+        return (rs, idx) -> {
+            String value = rs.getString(idx);
+            return value == null ? null : Enum.valueOf(type, value);
+        };
+    }
+
+    private static boolean isCharacterType(int sqlType) {
+        return sqlType == Types.CHAR || sqlType == Types.NCHAR || sqlType == Types.VARCHAR
+                || sqlType == Types.NVARCHAR || sqlType == Types.LONGVARCHAR || sqlType == Types.LONGNVARCHAR
+                || sqlType == Types.OTHER;
+    }
+
+    private static boolean isKnownType(int sqlType) {
+        for (Key key : converters.keySet()) {
+            if (key.sqlType == sqlType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String typeLabel(int sqlType) {
+        switch (sqlType) {
+            case Types.INTEGER:
+                return "整数";
+            case Types.REAL:
+                return "実数";
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return "ブーリアン";
+            default:
+                try {
+                    return JDBCType.valueOf(sqlType).getName() + "型";
+                } catch (IllegalArgumentException ex) {
+                    return "java.sql.Typesの" + sqlType + "の値";
+                }
+        }
+    }
+
+    private static class Key {
+        final int sqlType;
+        final Class<?> fieldType;
+
+        Key(int sqlType, Class<?> fieldType) {
+            this.sqlType = sqlType;
+            this.fieldType = fieldType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && this.sqlType == other.sqlType && this.fieldType == other.fieldType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.sqlType, this.fieldType);
+        }
+    }
+
+    private static class Entry {
+        final ColumnConverter<?> converter;
+        // 組み込みの変換の場合、converterが呼ぶgetterの値をそのまま返すもの。利用者が登録した変換ではnull。
+        final ColumnConverter<?> raw;
+        // rawの値からconverterと同じ値を作る(Object)Object。恒等変換ならnull。
+        final MethodHandle fromRaw;
+        final boolean builtin;
+
+        Entry(ColumnConverter<?> converter, ColumnConverter<?> raw, MethodHandle fromRaw) {
+            this.converter = converter;
+            this.raw = raw;
+            this.fromRaw = fromRaw;
+            this.builtin = raw != null;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.TableColumn;
+import com.kmaebashi.dbutil.UnsupportedTypeException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/* PostgreSQLのCOPY ... FROM STDINで、DTOの並びをテーブルに流し込む。
+ * DTOは1件ずつ固定長のバッファに書き込み、バッファが一杯になるたびにCopyIn.writeToCopy()で送信するので、
+ * 全件分のデータをメモリ上に作ることはない。
+ * TEXT形式では、NULLは\N、文字列中の\、タブ、改行、復帰は\でエスケープする。
+ * BINARY形式では、テーブルの列の型に合わせてPostgreSQLの内部表現で書き込む。
+ * テーブル名と@TableColumnの列名はSQLに埋め込むので、識別子の形でない名前はIllegalArgumentExceptionにする。
+ * 引用符で囲まない識別子(PostgreSQLが小文字に畳み込む)と、"で囲んだ識別子(中の"は""と書く)を受け付け、
+ * テーブル名は.で区切ってスキーマ名を前に付けてもよい。
+ */
+public class CopyWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] BINARY_HEADER = {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0,
+        0, 0, 0, 0, // flags
+        0, 0, 0, 0  // header extension length
+    };
+    // PostgreSQLの日付・時刻の基準日(2000-01-01)の、1970-01-01からの日数。
+    private static final long PG_EPOCH_DAYS = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final long PG_EPOCH_SECONDS = PG_EPOCH_DAYS * 24 * 60 * 60;
+    private static final String IDENTIFIER_PART = "(?:[A-Za-z_][A-Za-z0-9_$]*|\"(?:[^\"]|\"\")+\")";
+    private static final Pattern IDENTIFIER = Pattern.compile(IDENTIFIER_PART);
+    private static final Pattern QUALIFIED_IDENTIFIER
+            = Pattern.compile(IDENTIFIER_PART + "(?:\\." + IDENTIFIER_PART + "){0,2}");
+
+    private final CopyIn copyIn;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    private CopyWriter(CopyIn copyIn) {
+        this.copyIn = copyIn;
+    }
+
+    public static long copyIn(Connection conn, String tableName, Class<?> dtoClass, Iterator<?> rows, boolean binary)
+            throws SQLException, UnsupportedTypeException, IllegalAccessException, InvocationTargetException {
+        if (!QUALIFIED_IDENTIFIER.matcher(tableName).matches()) {
+            throw new IllegalArgumentException("テーブル名" + tableName + "は識別子として不正です。");
+        }
+        DtoAccessor accessor = DtoAccessor.getInstance(dtoClass);
+        List<Field> fields = accessor.getColumnFields();
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("クラス" + dtoClass.getName() + "には@TableColumnが付いたフィールドがありません。");
+        }
+        StringBuilder columnList = new StringBuilder();
+        for (Field field : fields) {
+            if (columnList.length() > 0) {
+                columnList.append(", ");
+            }
+            String columnName = field.getAnnotation(TableColumn.class).value();
+            if (!IDENTIFIER.matcher(columnName).matches()) {
+                throw new IllegalArgumentException("列名" + columnName + "は識別子として不正です(フィールド:"
+                                                   + field.getName() + ")。");
+            }
+            columnList.append(columnName);
+        }
+
+        ValueWriter[] writers = new ValueWriter[fields.size()];
+        if (binary) {
+            String[] typeNames = getColumnTypeNames(conn, tableName, columnList.toString());
+            for (int i = 0; i < writers.length; i++) {
+                writers[i] = binaryWriter(accessor, fields.get(i), typeNames[i]);
+            }
+        } else {
+            for (int i = 0; i < writers.length; i++) {
+                writers[i] = textWriter(accessor, fields.get(i));
+            }
+        }
+
+        String copySql = "COPY " + tableName + " (" + columnList + ") FROM STDIN"
+                + (binary ? " (FORMAT binary)" : "");
+        CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+        try {
+            CopyWriter writer = new CopyWriter(copyIn);
+            if (binary) {
+                writer.writeBytes(BINARY_HEADER);
+            }
+            while (rows.hasNext()) {
+                Object dto = rows.next();
+                if (binary) {
+                    writer.writeShort(writers.length);
+                    for (ValueWriter valueWriter : writers) {
+                        valueWriter.write(writer, dto);
+                    }
+                } else {
+                    for (int i = 0; i < writers.length; i++) {
+                        if (i > 0) {
+                            writer.writeByte('\t');
+                        }
+                        writers[i].write(writer, dto);
+                    }
+                    writer.writeByte('\n');
+                }
+            }
+            if (binary) {
+                writer.writeShort(-1);
+            }
+            writer.flush();
+            return copyIn.endCopy();
+        } catch (SQLException | UnsupportedTypeException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static String[] getColumnTypeNames(Connection conn, String tableName, String columnList)
+            throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT " + columnList + " FROM " + tableName + " WHERE 1 = 0")) {
+            ResultSetMetaData rsmd = rs.getMetaData();
+            String[] typeNames = new String[rsmd.getColumnCount()];
+            for (int i = 0; i < typeNames.length; i++) {
+                typeNames[i] = rsmd.getColumnTypeName(i + 1);
+            }
+            return typeNames;
+        }
+    }
+
+    private interface ValueWriter {
+        void write(CopyWriter writer, Object dto) throws Throwable;
+    }
+
+    private static ValueWriter textWriter(DtoAccessor accessor, Field field)
+            throws IllegalAccessException, UnsupportedTypeException {
+        Class<?> type = field.getType();
+        MethodHandle getter = accessor.getterFor(field);
+        if (type == Integer.TYPE) {
+            return (writer, dto) -> writer.writeDecimal((int) getter.invokeExact(dto));
+        } else if (type == Long.TYPE) {
+            return (writer, dto) -> writer.writeDecimal((long) getter.invokeExact(dto));
+        } else if (type == Short.TYPE) {
+            return (writer, dto) -> writer.writeDecimal((short) getter.invokeExact(dto));
+        } else if (type == Double.TYPE) {
+            return (writer, dto) -> writer.writeAscii(Double.toString((double) getter.invokeExact(dto)));
+        } else if (type == Float.TYPE) {
+            return (writer, dto) -> writer.writeAscii(Float.toString((float) getter.invokeExact(dto)));
+        } else if (type == Boolean.TYPE) {
+            return (writer, dto) -> writer.writeByte((boolean) getter.invokeExact(dto) ? 't' : 'f');
+        }
+
+        TextFormatter formatter;
+        if (type == Integer.class || type == Long.class || type == Short.class) {
+            formatter = (writer, value) -> writer.writeDecimal(((Number) value).longValue());
+        } else if (type == Double.class || type == Float.class) {
+            formatter = (writer, value) -> writer.writeAscii(value.toString());
+        } else if (type == BigDecimal.class) {
+            formatter = (writer, value) -> writer.writeAscii(((BigDecimal) value).toPlainString());
+        } else if (type == Boolean.class) {
+            formatter = (writer, value) -> writer.writeByte((Boolean) value ? 't' : 'f');
+        } else if (type == String.class) {
+            formatter = (writer, value) -> writer.writeEscapedText((String) value);
+        } else if (type == LocalDate.class || type == LocalDateTime.class) {
+            formatter = (writer, value) -> writer.writeAscii(value.toString());
+        } else if (type == java.sql.Date.class) {
+            formatter = (writer, value) -> writer.writeAscii(((java.sql.Date) value).toLocalDate().toString());
+        } else if (type == java.sql.Timestamp.class) {
+            formatter = (writer, value) -> writer.writeAscii(((java.sql.Timestamp) value).toLocalDateTime().toString());
+        } else if (type == java.util.Date.class) {
+            formatter = (writer, value) -> writer.writeAscii(
+                    new java.sql.Timestamp(((java.util.Date) value).getTime()).toLocalDateTime().toString());
+        } else {
+            throw new UnsupportedTypeException("型" + type.getTypeName() + "はCOPYでサポートしていません"
+                    + "(フィールド:" + field.getName() + ")。");
+        }
+        return (writer, dto) -> {
+            Object value = (Object) getter.invokeExact(dto);
+            if (value == null) {
+                writer.writeByte('\\');
+                writer.writeByte('N');
+            } else {
+                formatter.format(writer, value);
+            }
+        };
+    }
+
+    private interface TextFormatter {
+        void format(CopyWriter writer, Object value) throws SQLException;
+    }
+
+    private static ValueWriter binaryWriter(DtoAccessor accessor, Field field, String typeName)
+            throws IllegalAccessException, UnsupportedTypeException {
+        Class<?> type = field.getType();
+        // プリミティブ型はboxingしないよう、専用のwriterを使う。
+        if (type == Integer.TYPE && typeName.equals("int4")) {
+            MethodHandle getter = accessor.getterFor(field);
+            return (writer, dto) -> {
+                writer.writeInt(4);
+                writer.writeInt((int) getter.invokeExact(dto));
+            };
+        } else if (type == Double.TYPE && typeName.equals("float8")) {
+            MethodHandle getter = accessor.getterFor(field);
+            return (writer, dto) -> {
+                writer.writeInt(8);
+                writer.writeLong(Double.doubleToLongBits((double) getter.invokeExact(dto)));
+            };
+        } else if (type == Boolean.TYPE && typeName.equals("bool")) {
+            MethodHandle getter = accessor.getterFor(field);
+            return (writer, dto) -> {
+                writer.writeInt(1);
+                writer.writeByte((boolean) getter.invokeExact(dto) ? 1 : 0);
+            };
+        }
+
+        Class<?> boxedType = type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+        BinaryFormatter formatter = null;
+        switch (typeName) {
+            case "int2":
+                if (boxedType == Short.class || boxedType == Integer.class) {
+                    formatter = (writer, value) -> {
+                        writer.writeInt(2);
+                        writer.writeShort(((Number) value).shortValue());
+                    };
+                }
+                break;
+            case "int4":
+                if (boxedType == Short.class || boxedType == Integer.class) {
+                    formatter = (writer, value) -> {
+                        writer.writeInt(4);
+                        writer.writeInt(((Number) value).intValue());
+                    };
+                }
+                break;
+            case "int8":
+                if (boxedType == Short.class || boxedType == Integer.class || boxedType == Long.class) {
+                    formatter = (writer, value) -> {
+                        writer.writeInt(8);
+                        writer.writeLong(((Number) value).longValue());
+                    };
+                }
+                break;
+            case "float4":
+                if (boxedType == Float.class || boxedType == Double.class) {
+                    formatter = (writer, value) -> {
+                        writer.writeInt(4);
+                        writer.writeInt(Float.floatToIntBits(((Number) value).floatValue()));
+                    };
+                }
+                break;
+            case "float8":
+                if (boxedType == Float.class || boxedType == Double.class) {
+                    formatter = (writer, value) -> {
+                        writer.writeInt(8);
+                        writer.writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+                    };
+                }
+                break;
+            case "bool":
+                if (boxedType == Boolean.class) {
+                    formatter = (writer, value) -> {
+                        writer.writeInt(1);
+                        writer.writeByte((Boolean) value ? 1 : 0);
+                    };
+                }
+                break;
+            case "text":
+            case "varchar":
+            case "bpchar":
+                if (boxedType == String.class) {
+                    formatter = (writer, value) -> {
+                        byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                        writer.writeInt(bytes.length);
+                        writer.writeBytes(bytes);
+                    };
+                }
+                break;
+            case "date":
+                if (boxedType == LocalDate.class || java.util.Date.class.isAssignableFrom(boxedType)) {
+                    formatter = (writer, value) -> {
+                        writer.writeInt(4);
+                        writer.writeInt((int) (toLocalDate(value).toEpochDay() - PG_EPOCH_DAYS));
+                    };
+                }
+                break;
+            case "timestamp":
+                if (boxedType == LocalDateTime.class || java.util.Date.class.isAssignableFrom(boxedType)) {
+                    formatter = (writer, value) -> {
+                        LocalDateTime dateTime = toLocalDateTime(value);
+                        writer.writeInt(8);
+                        writer.writeLong((dateTime.toEpochSecond(ZoneOffset.UTC) - PG_EPOCH_SECONDS) * 1_000_000
+                                         + dateTime.getNano() / 1000);
+                    };
+                }
+                break;
+            default:
+                break;
+        }
+        if (formatter == null) {
+            throw new UnsupportedTypeException("型" + type.getTypeName() + "の値を" + typeName
+                    + "型の列にバイナリ形式でCOPYできません(フィールド:" + field.getName() + ")。");
+        }
+        final BinaryFormatter binaryFormatter = formatter;
+        MethodHandle getter = accessor.getterFor(field).asType(MethodType.methodType(Object.class, Object.class));
+        return (writer, dto) -> {
+            Object value = (Object) getter.invokeExact(dto);
+            if (value == null) {
+                writer.writeInt(-1);
+            } else {
+                binaryFormatter.format(writer, value);
+            }
+        };
+    }
+
+    private interface BinaryFormatter {
+        void format(CopyWriter writer, Object value) throws SQLException;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate localDate) {
+            return localDate;
+        } else if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        } else {
+            return toLocalDateTime(value).toLocalDate();
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime;
+        } else if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        } else if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate().atStartOfDay();
+        } else {
+            return new java.sql.Timestamp(((java.util.Date) value).getTime()).toLocalDateTime();
+        }
+    }
+
+    private void ensureCapacity(int length) throws SQLException {
+        if (this.position + length > this.buffer.length) {
+            flush();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (this.position > 0) {
+            this.copyIn.writeToCopy(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+    private void writeByte(int b) throws SQLException {
+        ensureCapacity(1);
+        this.buffer[this.position++] = (byte) b;
+    }
+
+    private void writeShort(int v) throws SQLException {
+        ensureCapacity(2);
+        this.buffer[this.position++] = (byte) (v >>> 8);
+        this.buffer[this.position++] = (byte) v;
+    }
+
+    private void writeInt(int v) throws SQLException {
+        ensureCapacity(4);
+        this.buffer[this.position++] = (byte) (v >>> 24);
+        this.buffer[this.position++] = (byte) (v >>> 16);
+        this.buffer[this.position++] = (byte) (v >>> 8);
+        this.buffer[this.position++] = (byte) v;
+    }
+
+    private void writeLong(long v) throws SQLException {
+        writeInt((int) (v >>> 32));
+        writeInt((int) v);
+    }
+
+    private void writeBytes(byte[] bytes) throws SQLException {
+        if (bytes.length > this.buffer.length) {
+            flush();
+            this.copyIn.writeToCopy(bytes, 0, bytes.length);
+            return;
+        }
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    // 数値、日付などASCII文字だけで構成される文字列を書き込む。
+    private void writeAscii(String str) throws SQLException {
+        int length = str.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            this.buffer[this.position++] = (byte) str.charAt(i);
+        }
+    }
+
+    private void writeDecimal(long v) throws SQLException {
+        if (v == Long.MIN_VALUE) {
+            writeAscii(Long.toString(v));
+            return;
+        }
+        ensureCapacity(20);
+        if (v < 0) {
+            this.buffer[this.position++] = '-';
+            v = -v;
+        }
+        int start = this.position;
+        do {
+            this.buffer[this.position++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        for (int i = start, j = this.position - 1; i < j; i++, j--) {
+            byte tmp = this.buffer[i];
+            this.buffer[i] = this.buffer[j];
+            this.buffer[j] = tmp;
+        }
+    }
+
+    // UTF-8のマルチバイト文字の各バイトはASCIIの範囲と重ならないので、エンコード後のバイト列でエスケープしてよい。
+    private void writeEscapedText(String str) throws SQLException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            switch (b) {
+                case '\\':
+                    writeByte('\\');
+                    writeByte('\\');
+                    break;
+                case '\t':
+                    writeByte('\\');
+                    writeByte('t');
+                    break;
+                case '\n':
+                    writeByte('\\');
+                    writeByte('n');
+                    break;
+                case '\r':
+                    writeByte('\\');
+                    writeByte('r');
+                    break;
+                default:
+                    writeByte(b);
+                    break;
+            }
+        }
+    }
+}
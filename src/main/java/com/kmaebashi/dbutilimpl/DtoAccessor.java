@@ -0,0 +1,248 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.TableChildren;
+import com.kmaebashi.dbutil.TableColumn;
+import com.kmaebashi.dbutil.TableConstructor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/* DTOのクラスごとに、インスタンス生成とフィールドへの書き込みを行うMethodHandleを保持する。
+ * 行ごとにgetDeclaredConstructor()を呼んだり、Field.set()で値をboxingしたりしないで済むよう、
+ * コンストラクタは()Object、フィールドのsetterは(Object, フィールドの型)voidに型を揃えたうえで、
+ * invokeExact()で呼び出す(プリミティブ型のフィールドはプリミティブ型のまま書き込む)。
+ * MethodHandleはstatic finalの定数ではなく、インスタンスのフィールドやColumnReaderのラムダが保持するので、
+ * JITによる定数畳み込みやインライン化は前提にしていない。省けるのはboxingと呼び出しごとのアクセス検査である。
+ * recordおよび@TableConstructorを付けたコンストラクタを持つクラスについては、
+ * そのコンストラクタのMethodHandleと、引数ごとの@TableColumnを保持する(MappingPlanが1行1回の呼び出しに組み立てる)。
+ */
+public class DtoAccessor {
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<DtoAccessor> accessorCache = new ClassValue<>() {
+        @Override
+        protected DtoAccessor computeValue(Class<?> dtoClass) {
+            return new DtoAccessor(dtoClass);
+        }
+    };
+
+    private final Class<?> dtoClass;
+    private final MethodHandles.Lookup lookup;
+    private final Map<String, Field> columnToField;
+    private final List<Field> columnFields;
+    private final MethodHandle constructor;
+    private final ReflectiveOperationException constructorError;
+    private final MethodHandle rowConstructor;
+    private final TableColumn[] rowConstructorColumns;
+    private final String[] keyColumns;
+    private final List<Field> childrenFields;
+
+    private DtoAccessor(Class<?> dtoClass) {
+        this.dtoClass = dtoClass;
+        this.lookup = lookupFor(dtoClass);
+
+        HashMap<String, Field> nameToField = new HashMap<>();
+        ArrayList<Field> fieldList = new ArrayList<>();
+        ArrayList<Field> childrenList = new ArrayList<>();
+        LinkedHashSet<String> keySet = new LinkedHashSet<>();
+        for (Field field : dtoClass.getDeclaredFields()) {
+            TableColumn tc = field.getAnnotation(TableColumn.class);
+            if (tc != null) {
+                nameToField.put(tc.value().toUpperCase(), field);
+                fieldList.add(field);
+                if (tc.key()) {
+                    keySet.add(tc.value().toUpperCase());
+                }
+            }
+            if (field.isAnnotationPresent(TableChildren.class)) {
+                childrenList.add(field);
+            }
+        }
+        this.columnToField = Collections.unmodifiableMap(nameToField);
+        this.columnFields = Collections.unmodifiableList(fieldList);
+        this.childrenFields = Collections.unmodifiableList(childrenList);
+
+        MethodHandle ctor = null;
+        ReflectiveOperationException error = null;
+        try {
+            if (Modifier.isAbstract(dtoClass.getModifiers()) || dtoClass.isInterface()) {
+                throw new InstantiationException(dtoClass.getName());
+            }
+            ctor = this.lookup.unreflectConstructor(dtoClass.getDeclaredConstructor()).asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException ex) {
+            error = ex;
+        }
+        this.constructor = ctor;
+        this.constructorError = error;
+
+        Constructor<?> rowCtor = findRowConstructor(dtoClass);
+        if (rowCtor != null) {
+            TableColumn[] columns = new TableColumn[rowCtor.getParameterCount()];
+            if (dtoClass.isRecord()) {
+                RecordComponent[] components = dtoClass.getRecordComponents();
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = components[i].getAnnotation(TableColumn.class);
+                }
+            } else {
+                Parameter[] params = rowCtor.getParameters();
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = params[i].getAnnotation(TableColumn.class);
+                }
+            }
+            try {
+                this.rowConstructor = this.lookup.unreflectConstructor(rowCtor);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalArgumentException("クラス" + dtoClass.getName()
+                                                   + "のコンストラクタにアクセスできません。", ex);
+            }
+            this.rowConstructorColumns = columns;
+            for (TableColumn tc : columns) {
+                if (tc != null && tc.key()) {
+                    keySet.add(tc.value().toUpperCase());
+                }
+            }
+        } else {
+            this.rowConstructor = null;
+            this.rowConstructorColumns = null;
+        }
+        this.keyColumns = keySet.toArray(new String[0]);
+    }
+
+    public static DtoAccessor getInstance(Class<?> dtoClass) {
+        return accessorCache.get(dtoClass);
+    }
+
+    public Class<?> getDtoClass() {
+        return this.dtoClass;
+    }
+
+    public Map<String, Field> getColumnToField() {
+        return this.columnToField;
+    }
+
+    // @TableColumnが付いたフィールドを宣言順に返す。
+    public List<Field> getColumnFields() {
+        return this.columnFields;
+    }
+
+    /* recordの標準コンストラクタ、または@TableConstructorを付けたコンストラクタを返す。
+     * 型はコンストラクタの宣言どおり。どちらもなければnullを返す。
+     */
+    public MethodHandle getRowConstructor() {
+        return this.rowConstructor;
+    }
+
+    // getRowConstructor()の引数ごとの@TableColumn。付いていない引数の要素はnull。
+    public TableColumn[] getRowConstructorColumns() {
+        return this.rowConstructorColumns;
+    }
+
+    // @TableColumn(key=true)の列名(大文字)を宣言順に返す。なければ長さ0の配列を返す。
+    public String[] getKeyColumns() {
+        return this.keyColumns;
+    }
+
+    // @TableChildrenが付いたフィールドを宣言順に返す。
+    public List<Field> getChildrenFields() {
+        return this.childrenFields;
+    }
+
+    public Object newInstance()
+            throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        if (this.constructor == null) {
+            throwConstructorError();
+        }
+        try {
+            return (Object) this.constructor.invokeExact();
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /* フィールドのsetterを返す。型は、プリミティブ型のフィールドなら(Object, 同じプリミティブ型)void、
+     * それ以外なら(Object, Object)voidとする。
+     */
+    public MethodHandle setterFor(Field field) throws IllegalAccessException {
+        Class<?> valueType = field.getType();
+        if (!valueType.isPrimitive()) {
+            valueType = Object.class;
+        }
+        return this.lookup.unreflectSetter(field)
+                .asType(MethodType.methodType(void.class, Object.class, valueType));
+    }
+
+    /* フィールドのgetterを返す。型はsetterFor()と同様、プリミティブ型のフィールドなら(Object)同じプリミティブ型、
+     * それ以外なら(Object)Objectとする。
+     */
+    public MethodHandle getterFor(Field field) throws IllegalAccessException {
+        Class<?> valueType = field.getType();
+        if (!valueType.isPrimitive()) {
+            valueType = Object.class;
+        }
+        return this.lookup.unreflectGetter(field)
+                .asType(MethodType.methodType(valueType, Object.class));
+    }
+
+    private void throwConstructorError()
+            throws InstantiationException, IllegalAccessException, NoSuchMethodException {
+        if (this.constructorError instanceof InstantiationException ex) {
+            throw ex;
+        } else if (this.constructorError instanceof IllegalAccessException ex) {
+            throw ex;
+        } else if (this.constructorError instanceof NoSuchMethodException ex) {
+            throw ex;
+        } else {
+            throw new InstantiationException(this.constructorError.toString());
+        }
+    }
+
+    private static Constructor<?> findRowConstructor(Class<?> dtoClass) {
+        if (dtoClass.isRecord()) {
+            RecordComponent[] components = dtoClass.getRecordComponents();
+            Class<?>[] types = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                types[i] = components[i].getType();
+            }
+            try {
+                return dtoClass.getDeclaredConstructor(types);
+            } catch (NoSuchMethodException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        Constructor<?> found = null;
+        for (Constructor<?> ctor : dtoClass.getDeclaredConstructors()) {
+            if (ctor.isAnnotationPresent(TableConstructor.class)) {
+                if (found != null) {
+                    throw new IllegalArgumentException("クラス" + dtoClass.getName()
+                                                       + "に@TableConstructorが複数あります。");
+                }
+                found = ctor;
+            }
+        }
+        return found;
+    }
+
+    private static MethodHandles.Lookup lookupFor(Class<?> dtoClass) {
+        try {
+            return MethodHandles.privateLookupIn(dtoClass, MethodHandles.lookup());
+        } catch (IllegalAccessException ex) {
+            // DTOのパッケージがこのライブラリにopenされていない場合は、publicなメンバだけを使う。
+            return MethodHandles.publicLookup();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.GeneratedDtoMapper;
+import com.kmaebashi.dbutil.ParameterValueNotFoundException;
+import com.kmaebashi.dbutil.UnsupportedTypeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* @TableColumnを付けたDTOのフィールドの値を、PreparedStatementのパラメタに設定する。
+ * パラメタ名とフィールドの対応付け(大文字小文字は区別しない)は、SQLのテンプレートとDTOのクラスの組ごとに
+ * 1回だけ行い、SqlAndParamsに保持する。
+ * int, long, double, booleanのフィールドは、boxingせずにps.setInt()等で設定する。
+ * フィールドの値がnullの場合は、SQL中で型が指定されていればその型、なければフィールドの型から決めた型で設定する。
+ * 注釈処理が生成したGeneratedDtoMapperがあれば、フィールドの値はそのgetInt()、getValue()等で読む(リフレクションは使わない)。
+ * その場合も、それらのメソッドを列の番号を埋め込んだMethodHandleにして、リフレクションの場合と同じ形のFieldBinderを作る。
+ */
+class DtoParameterBinder {
+    private static final MethodHandle GET_INT = mapperGetter("getInt", int.class);
+    private static final MethodHandle GET_LONG = mapperGetter("getLong", long.class);
+    private static final MethodHandle GET_DOUBLE = mapperGetter("getDouble", double.class);
+    private static final MethodHandle GET_BOOLEAN = mapperGetter("getBoolean", boolean.class);
+    private static final MethodHandle GET_VALUE = mapperGetter("getValue", Object.class);
+
+    private final FieldBinder[] binders;
+    private final int[][] positions;
+
+    private DtoParameterBinder(FieldBinder[] binders, int[][] positions) {
+        this.binders = binders;
+        this.positions = positions;
+    }
+
+    static DtoParameterBinder getInstance(SqlAndParams template, Class<?> dtoClass)
+            throws ParameterValueNotFoundException, IllegalAccessException {
+        AtomicReference<DtoParameterBinder> holder = template.dtoBinders.get(dtoClass);
+        DtoParameterBinder binder = holder.get();
+        if (binder == null) {
+            binder = create(template, dtoClass);
+            if (!holder.compareAndSet(null, binder)) {
+                binder = holder.get();
+            }
+        }
+        return binder;
+    }
+
+    private static DtoParameterBinder create(SqlAndParams template, Class<?> dtoClass)
+            throws ParameterValueNotFoundException, IllegalAccessException {
+        GeneratedDtoMapper<?> generated = GeneratedMappers.find(dtoClass);
+        if (generated != null) {
+            return createGenerated(template, generated);
+        }
+        String[] paramNames = template.distinctNames;
+        DtoAccessor accessor = DtoAccessor.getInstance(dtoClass);
+        FieldBinder[] binders = new FieldBinder[paramNames.length];
+        for (int i = 0; i < paramNames.length; i++) {
+            Field field = accessor.getColumnToField().get(paramNames[i].toUpperCase());
+            if (field == null) {
+                throw new ParameterValueNotFoundException("パラメタ" + paramNames[i] + "の値が見つかりません。");
+            }
+            int nullType = template.nullTypes[i] != Types.NULL
+                    ? template.nullTypes[i] : BinderRegistry.sqlTypeFor(field.getType());
+            binders[i] = fieldBinder(field.getType(), accessor.getterFor(field), nullType);
+        }
+        return new DtoParameterBinder(binders, template.positions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DtoParameterBinder createGenerated(SqlAndParams template, GeneratedDtoMapper<?> generated)
+            throws ParameterValueNotFoundException {
+        GeneratedDtoMapper<Object> mapper = (GeneratedDtoMapper<Object>) generated;
+        String[] names = mapper.getParameterNames();
+        Class<?>[] types = mapper.getParameterTypes();
+        HashMap<String, Integer> nameToIndex = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            nameToIndex.put(names[i].toUpperCase(), i);
+        }
+        String[] paramNames = template.distinctNames;
+        FieldBinder[] binders = new FieldBinder[paramNames.length];
+        for (int i = 0; i < paramNames.length; i++) {
+            Integer index = nameToIndex.get(paramNames[i].toUpperCase());
+            if (index == null) {
+                throw new ParameterValueNotFoundException("パラメタ" + paramNames[i] + "の値が見つかりません。");
+            }
+            Class<?> type = types[index];
+            int nullType = template.nullTypes[i] != Types.NULL
+                    ? template.nullTypes[i] : BinderRegistry.sqlTypeFor(type);
+            binders[i] = fieldBinder(type, generatedGetter(mapper, type, index), nullType);
+        }
+        return new DtoParameterBinder(binders, template.positions);
+    }
+
+    /* mapperのindex番目の列の値を返すMethodHandle。型はDtoAccessor.getterFor()と同じく、
+     * fieldBinder()がboxingせずに設定するint, long, double, booleanならそのプリミティブ型、それ以外はObjectとする。
+     */
+    private static MethodHandle generatedGetter(GeneratedDtoMapper<Object> mapper, Class<?> type, int index) {
+        MethodHandle getter;
+        if (type == Integer.TYPE) {
+            getter = GET_INT;
+        } else if (type == Long.TYPE) {
+            getter = GET_LONG;
+        } else if (type == Double.TYPE) {
+            getter = GET_DOUBLE;
+        } else if (type == Boolean.TYPE) {
+            getter = GET_BOOLEAN;
+        } else {
+            getter = GET_VALUE;
+        }
+        return MethodHandles.insertArguments(getter.bindTo(mapper), 1, index);
+    }
+
+    private static MethodHandle mapperGetter(String name, Class<?> returnType) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(GeneratedDtoMapper.class, name,
+                    MethodType.methodType(returnType, Object.class, int.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private static FieldBinder fieldBinder(Class<?> fieldType, MethodHandle getter, int nullType) {
+        if (fieldType == Integer.TYPE) {
+            return (ps, positions, dto) -> {
+                int value = (int) getter.invokeExact(dto);
+                for (int position : positions) {
+                    ps.setInt(position, value);
+                }
+            };
+        } else if (fieldType == Long.TYPE) {
+            return (ps, positions, dto) -> {
+                long value = (long) getter.invokeExact(dto);
+                for (int position : positions) {
+                    ps.setLong(position, value);
+                }
+            };
+        } else if (fieldType == Double.TYPE) {
+            return (ps, positions, dto) -> {
+                double value = (double) getter.invokeExact(dto);
+                for (int position : positions) {
+                    ps.setDouble(position, value);
+                }
+            };
+        } else if (fieldType == Boolean.TYPE) {
+            return (ps, positions, dto) -> {
+                boolean value = (boolean) getter.invokeExact(dto);
+                for (int position : positions) {
+                    ps.setBoolean(position, value);
+                }
+            };
+        } else if (fieldType.isPrimitive()) {
+            MethodHandle boxedGetter = getter.asType(getter.type().changeReturnType(Object.class));
+            return (ps, positions, dto) -> NamedParameterPreparedStatementImpl.setParameter(
+                    ps, positions, (Object) boxedGetter.invokeExact(dto), nullType);
+        } else {
+            return (ps, positions, dto) -> NamedParameterPreparedStatementImpl.setParameter(
+                    ps, positions, (Object) getter.invokeExact(dto), nullType);
+        }
+    }
+
+    void bind(PreparedStatement ps, Object dto) throws SQLException, UnsupportedTypeException {
+        bind(ps, dto, this.positions);
+    }
+
+    // positionsは、SqlAndParams.positionsと同じ形の、?の位置の配列(repeatValues()の行ごとのもの)。
+    void bind(PreparedStatement ps, Object dto, int[][] positions) throws SQLException, UnsupportedTypeException {
+        try {
+            for (int i = 0; i < this.binders.length; i++) {
+                this.binders[i].bind(ps, positions[i], dto);
+            }
+        } catch (SQLException | UnsupportedTypeException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    private interface FieldBinder {
+        void bind(PreparedStatement ps, int[] positions, Object dto) throws Throwable;
+    }
+}
@@ -0,0 +1,49 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.ExecutionListener;
+import com.kmaebashi.dbutil.ExecutionPhase;
+
+import java.util.Arrays;
+
+/* 登録されたExecutionListenerの配列。
+ * 登録、削除のたびに配列をコピーして差し替えるので、通知の側はロックなしで配列を読むだけでよい。
+ * 呼び出し側は以下のように使う。リスナーがなければstart()はNOT_STARTEDを返し、System.nanoTime()は呼ばない。
+ *   long start = ExecutionListeners.start();
+ *   (処理)
+ *   ExecutionListeners.end(start, phase, sql, dtoClass, rowCount);
+ */
+public class ExecutionListeners {
+    public static final long NOT_STARTED = Long.MIN_VALUE;
+    private static final ExecutionListener[] EMPTY = new ExecutionListener[0];
+    private static volatile ExecutionListener[] listeners = EMPTY;
+
+    private ExecutionListeners() {
+    }
+
+    public static synchronized void add(ExecutionListener listener) {
+        ExecutionListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    public static synchronized void remove(ExecutionListener listener) {
+        ExecutionListener[] newListeners = Arrays.stream(listeners)
+                                                 .filter(l -> l != listener)
+                                                 .toArray(ExecutionListener[]::new);
+        listeners = newListeners.length == 0 ? EMPTY : newListeners;
+    }
+
+    public static long start() {
+        return listeners.length == 0 ? NOT_STARTED : System.nanoTime();
+    }
+
+    public static void end(long start, ExecutionPhase phase, String sql, Class<?> dtoClass, long rowCount) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        for (ExecutionListener listener : listeners) {
+            listener.onPhase(phase, sql, dtoClass, elapsed, rowCount);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.GeneratedDtoMapper;
+
+/* 注釈処理が生成したGeneratedDtoMapperを、DTOのクラスから探す。
+ * 生成されるクラスの名前は決まっている(DTOと同じパッケージの、入れ子のクラス名を_でつないだものに
+ * _DbUtilMapperを付けたもの)ので、DTOのクラスローダからその名前で読み込む。
+ * 結果はDTOのクラスに結び付けてClassValueにキャッシュするので、DTOのクラスローダが不要になれば一緒に解放される。
+ * 読み込めないものや、名前が偶然一致した別のクラスは無視する(そのDTOはリフレクションで処理される)。
+ */
+public class GeneratedMappers {
+    private static final String SUFFIX = "_DbUtilMapper";
+
+    private static final ClassValue<GeneratedDtoMapper<?>> mapperCache = new ClassValue<>() {
+        @Override
+        protected GeneratedDtoMapper<?> computeValue(Class<?> dtoClass) {
+            return load(dtoClass);
+        }
+    };
+
+    private GeneratedMappers() {
+    }
+
+    // dtoClassに対して生成されたものがなければnullを返す。
+    public static GeneratedDtoMapper<?> find(Class<?> dtoClass) {
+        return mapperCache.get(dtoClass);
+    }
+
+    private static GeneratedDtoMapper<?> load(Class<?> dtoClass) {
+        ClassLoader loader = dtoClass.getClassLoader();
+        if (loader == null || dtoClass.isArray() || dtoClass.isPrimitive()) {
+            return null;
+        }
+        try {
+            Class<?> mapperClass = Class.forName(mapperName(dtoClass), true, loader);
+            if (!GeneratedDtoMapper.class.isAssignableFrom(mapperClass)) {
+                return null;
+            }
+            GeneratedDtoMapper<?> mapper = (GeneratedDtoMapper<?>) mapperClass.getConstructor().newInstance();
+            return mapper.getDtoClass() == dtoClass ? mapper : null;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    // MapperProcessorが生成するクラスの名前。
+    private static String mapperName(Class<?> dtoClass) {
+        StringBuilder sb = new StringBuilder(dtoClass.getSimpleName());
+        for (Class<?> outer = dtoClass.getDeclaringClass(); outer != null; outer = outer.getDeclaringClass()) {
+            sb.insert(0, outer.getSimpleName() + "_");
+        }
+        String packageName = dtoClass.getPackageName();
+        return (packageName.isEmpty() ? "" : packageName + ".") + sb + SUFFIX;
+    }
+}
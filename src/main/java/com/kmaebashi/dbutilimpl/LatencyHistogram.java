@@ -0,0 +1,86 @@
+package com.kmaebashi.dbutilimpl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/* ナノ秒の所要時間のヒストグラム(HdrHistogramと同様の対数バケット)。
+ * 2のべき乗ごとの区間を、さらにSUB_BUCKETS個に等分する。0〜SUB_BUCKETS-1はそのままの値のバケット。
+ * 相対誤差は1/SUB_BUCKETS(12.5%)以内で、バケット数は488個で固定。
+ * バケットごとのカウンタはLongAdderで、多数のスレッドが同じバケットに同時に記録しても、
+ * 1つの要素へのCASで競合し続けることはない(競合したスレッドは別のセルに加算する)。
+ * 所要時間は少数のバケットに集中するので、LongAdderはそのバケットに最初に記録するときに作る。
+ * それ以降の記録は、ロックもアロケーションもしない。
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicReferenceArray<LongAdder> counts = new AtomicReferenceArray<>(BUCKET_COUNT);
+
+    public void record(long nanos) {
+        int index = bucketIndex(Math.max(nanos, 0));
+        LongAdder adder = this.counts.get(index);
+        if (adder == null) {
+            this.counts.compareAndSet(index, null, new LongAdder());
+            adder = this.counts.get(index);
+        }
+        adder.increment();
+    }
+
+    /* 全体のうちpercentile(0〜100)%が収まる値を返す。値はバケットの上限なので、実際の値以上になる。
+     * 記録がなければ0を返す。
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            LongAdder adder = this.counts.get(i);
+            snapshot[i] = adder == null ? 0 : adder.sum();
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= threshold) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKET_COUNT - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            LongAdder adder = this.counts.get(i);
+            if (adder != null) {
+                adder.reset();
+            }
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long upperBound(int index) {
+        return index + 1 < BUCKET_COUNT ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,411 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.ColumnConverter;
+import com.kmaebashi.dbutil.GeneratedDtoMapper;
+import com.kmaebashi.dbutil.TableColumn;
+import com.kmaebashi.dbutil.UnsupportedTypeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* ResultSetの列とDTOのフィールドの対応付け(マッピングプラン)。
+ * DTOのクラスごとに、結果の形(列名と列の型の並び)をキーとしてキャッシュする。
+ * 列ごとのColumnReaderはプランの作成時に1回だけ作るので、行ごとのループではreadersを頭から回すだけでよく、
+ * 列名の文字列操作やMapの検索、アノテーションの読み出し、型による分岐は行わない。
+ * recordや@TableConstructorを付けたクラスの場合は、readersの代わりに、列の値を読んで
+ * コンストラクタに渡すまでを1つにまとめた(ResultSet)ObjectのMethodHandle(rowFactory)を作る。
+ * 注釈処理が生成したGeneratedDtoMapperがあり、結果のすべての列が組み込みの変換で読めるなら、
+ * リフレクションは使わず、その列ごとの列番号(columnIndexes)だけを求めてgeneratedに任せる(accessorはnull)。
+ * fetchersは、ResultSetMapper.forEachPipelined()が呼び出し元のスレッドで結果の列ごとに値を読み出すためのもので、
+ * どの場合も、変換が呼ぶのと同じgetterを呼ぶ(ConverterRegistry.rawGetter())。
+ * 読み出した値を変換用のスレッドでDTOにするRowSourceMapperは、最初に使われたときに作る。
+ */
+public class MappingPlan {
+    /* 動的にSQLを組み立てる場合などに無制限に増えないよう、クラスごとの上限を設ける。
+     * 上限を超えたら、SqlTemplateCacheと同じくCLOCK方式(LRUの近似)で、最近使われていないものから追い出す。
+     */
+    private static final int MAX_PLANS_PER_CLASS = 64;
+
+    private static final ClassValue<ConcurrentHashMap<ResultShape, MappingPlan>> planCache = new ClassValue<>() {
+        @Override
+        protected ConcurrentHashMap<ResultShape, MappingPlan> computeValue(Class<?> dtoClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final DtoAccessor accessor;
+    private final ColumnBinding[] bindings;
+    private final ColumnReader[] readers;
+    private final MethodHandle rowFactory;
+    private final GeneratedDtoMapper<?> generated;
+    private final int[] columnIndexes;
+    private final ColumnConverter<?>[] fetchers;
+    private final ResultShape shape;
+    private final Class<?> dtoClass;
+    private final int generation;
+    private volatile boolean referenced;
+    private volatile RowSourceMapper rowSourceMapper;
+
+    private MappingPlan(ResultShape shape, Class<?> dtoClass, DtoAccessor accessor, ColumnBinding[] bindings, ColumnReader[] readers,
+                        MethodHandle rowFactory, GeneratedDtoMapper<?> generated, int[] columnIndexes,
+                        ColumnConverter<?>[] fetchers, int generation) {
+        this.accessor = accessor;
+        this.bindings = bindings;
+        this.readers = readers;
+        this.rowFactory = rowFactory;
+        this.generated = generated;
+        this.columnIndexes = columnIndexes;
+        this.fetchers = fetchers;
+        this.shape = shape;
+        this.dtoClass = dtoClass;
+        this.generation = generation;
+    }
+
+    public DtoAccessor getAccessor() {
+        return this.accessor;
+    }
+
+    public ColumnBinding[] getBindings() {
+        return this.bindings;
+    }
+
+    public ColumnReader[] getReaders() {
+        return this.readers;
+    }
+
+    // コンストラクタでDTOを生成する場合の(ResultSet)ObjectのMethodHandle。フィールドに書き込む場合はnull。
+    public MethodHandle getRowFactory() {
+        return this.rowFactory;
+    }
+
+    // 生成されたGeneratedDtoMapperを使う場合はそれを、使わない場合はnullを返す。
+    public GeneratedDtoMapper<?> getGenerated() {
+        return this.generated;
+    }
+
+    // getGenerated().map()に渡す列番号。
+    public int[] getColumnIndexes() {
+        return this.columnIndexes;
+    }
+
+    /* 結果の列ごと(列番号-1の位置)の、RowBatch.fetch()で値を読み出すColumnConverter。
+     * DTOに対応しない列の要素はnull(読み出さない)。利用者が登録した変換を使う列があればnullを返す。
+     */
+    public ColumnConverter<?>[] getFetchers() {
+        return this.fetchers;
+    }
+
+    /* getFetchers()で読み出した行をDTOにするRowSourceMapperを返す。getFetchers()がnullのプランでは使えない。
+     * 複数のスレッドから同時に呼ばれて2回作ることがあっても、同じものができるので構わない。
+     */
+    public RowSourceMapper getRowSourceMapper() throws IllegalAccessException {
+        RowSourceMapper mapper = this.rowSourceMapper;
+        if (mapper == null) {
+            mapper = buildRowSourceMapper(this.shape, this.dtoClass);
+            this.rowSourceMapper = mapper;
+        }
+        return mapper;
+    }
+
+    public static MappingPlan getInstance(ResultSetMetaData rsmd, Class<?> dtoClass)
+            throws SQLException, IllegalAccessException, UnsupportedTypeException {
+        ResultShape shape = ResultShape.of(rsmd);
+        ConcurrentHashMap<ResultShape, MappingPlan> plans = planCache.get(dtoClass);
+        MappingPlan plan = plans.get(shape);
+        if (plan == null || plan.generation != ConverterRegistry.getGeneration()) {
+            plan = build(shape, dtoClass);
+            plans.put(shape, plan);
+            if (plans.size() > MAX_PLANS_PER_CLASS) {
+                evict(plans);
+            }
+        } else if (!plan.referenced) {
+            plan.referenced = true;
+        }
+        return plan;
+    }
+
+    private static void evict(ConcurrentHashMap<ResultShape, MappingPlan> plans) {
+        synchronized (plans) {
+            // 参照ビットが立っているものはビットを落として一周分だけ見逃す。
+            while (plans.size() > MAX_PLANS_PER_CLASS) {
+                Iterator<MappingPlan> it = plans.values().iterator();
+                while (it.hasNext() && plans.size() > MAX_PLANS_PER_CLASS) {
+                    MappingPlan plan = it.next();
+                    if (plan.referenced) {
+                        plan.referenced = false;
+                    } else {
+                        it.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    private static MappingPlan build(ResultShape shape, Class<?> dtoClass)
+            throws IllegalAccessException, UnsupportedTypeException {
+        int generation = ConverterRegistry.getGeneration();
+        GeneratedDtoMapper<?> generated = GeneratedMappers.find(dtoClass);
+        if (generated != null) {
+            int[] columnIndexes = generatedColumnIndexes(shape, generated, dtoClass);
+            if (columnIndexes != null) {
+                Fetchers fetchers = new Fetchers(shape);
+                Class<?>[] types = generated.getColumnTypes();
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    if (columnIndexes[i] > 0) {
+                        fetchers.add(columnIndexes[i], types[i]);
+                    }
+                }
+                return new MappingPlan(shape, dtoClass, null, new ColumnBinding[0], new ColumnReader[0], null,
+                                       generated, columnIndexes, fetchers.toArray(), generation);
+            }
+        }
+        DtoAccessor accessor = DtoAccessor.getInstance(dtoClass);
+        if (accessor.getRowConstructor() != null) {
+            Fetchers fetchers = new Fetchers(shape);
+            TableColumn[] columns = accessor.getRowConstructorColumns();
+            Class<?>[] paramTypes = accessor.getRowConstructor().type().parameterArray();
+            for (int i = 0; i < columns.length; i++) {
+                int colIdx = columns[i] == null ? -1 : shape.indexOf(columns[i].value().toUpperCase());
+                if (colIdx >= 0) {
+                    fetchers.add(colIdx + 1, paramTypes[i]);
+                }
+            }
+            return new MappingPlan(shape, dtoClass, accessor, new ColumnBinding[0], new ColumnReader[0],
+                                   buildRowFactory(shape, accessor), null, null, fetchers.toArray(), generation);
+        }
+        Map<String, Field> nameToField = accessor.getColumnToField();
+        ArrayList<ColumnBinding> bindingList = new ArrayList<>();
+        ArrayList<ColumnReader> readerList = new ArrayList<>();
+        Fetchers fetchers = new Fetchers(shape);
+        for (int i = 0; i < shape.columnNames.length; i++) {
+            Field field = nameToField.get(shape.columnNames[i]);
+            if (field == null) {
+                continue;
+            }
+            ColumnBinding binding = new ColumnBinding(i + 1, shape.columnNames[i], shape.columnTypes[i], field,
+                                                      field.getAnnotation(TableColumn.class).trim());
+            bindingList.add(binding);
+            fetchers.add(i + 1, field.getType());
+            readerList.add(ConverterRegistry.createReader(binding.columnType, binding.columnName, binding.rsIndex,
+                                                          field.getType(), accessor.setterFor(field),
+                                                          binding.trim));
+        }
+        return new MappingPlan(shape, dtoClass, accessor, bindingList.toArray(new ColumnBinding[0]),
+                               readerList.toArray(new ColumnReader[0]), null, null, null, fetchers.toArray(),
+                               generation);
+    }
+
+    /* generatedの列ごとに、結果での列番号(結果になければ0)を求める。型の検査はリフレクションの場合と同じく
+     * 結果の列の順に行う。利用者が登録した変換を使う列や、生成したコードでは常にトリムしてしまう
+     * Types.CHAR以外のtrim=trueの列があればnullを返す(リフレクションで処理する)。
+     */
+    private static int[] generatedColumnIndexes(ResultShape shape, GeneratedDtoMapper<?> generated,
+                                                Class<?> dtoClass)
+            throws UnsupportedTypeException {
+        String[] names = generated.getColumnNames();
+        Class<?>[] types = generated.getColumnTypes();
+        int[] columnIndexes = new int[names.length];
+        for (int i = 0; i < shape.columnNames.length; i++) {
+            for (int j = 0; j < names.length; j++) {
+                if (!names[j].toUpperCase().equals(shape.columnNames[i])) {
+                    continue;
+                }
+                ConverterRegistry.findConverter(shape.columnTypes[i], types[j], shape.columnNames[i]);
+                if (!ConverterRegistry.isBuiltin(shape.columnTypes[i], types[j])) {
+                    return null;
+                }
+                if (shape.columnTypes[i] != Types.CHAR && isTrimColumn(dtoClass, shape.columnNames[i])) {
+                    return null;
+                }
+                columnIndexes[j] = i + 1;
+            }
+        }
+        return columnIndexes;
+    }
+
+    private static boolean isTrimColumn(Class<?> dtoClass, String columnName) {
+        DtoAccessor accessor = DtoAccessor.getInstance(dtoClass);
+        if (accessor.getRowConstructorColumns() != null) {
+            for (TableColumn tc : accessor.getRowConstructorColumns()) {
+                if (tc != null && tc.trim() && tc.value().toUpperCase().equals(columnName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Field field = accessor.getColumnToField().get(columnName);
+        return field != null && field.getAnnotation(TableColumn.class).trim();
+    }
+
+    /* コンストラクタの各引数に、対応する列を読むgetterをfilterArguments()で前置し、
+     * すべての引数に同じResultSetを渡すようpermuteArguments()でまとめる。
+     * 結果にない列(または@TableColumnのない引数)には、nullや0やfalseを渡す。
+     */
+    private static MethodHandle buildRowFactory(ResultShape shape, DtoAccessor accessor)
+            throws UnsupportedTypeException {
+        MethodHandle ctor = accessor.getRowConstructor();
+        TableColumn[] columns = accessor.getRowConstructorColumns();
+        Class<?>[] paramTypes = ctor.type().parameterArray();
+        MethodHandle[] getters = new MethodHandle[paramTypes.length];
+        for (int i = 0; i < paramTypes.length; i++) {
+            int colIdx = columns[i] == null ? -1 : shape.indexOf(columns[i].value().toUpperCase());
+            if (colIdx < 0) {
+                getters[i] = MethodHandles.empty(MethodType.methodType(paramTypes[i], ResultSet.class));
+            } else {
+                getters[i] = ConverterRegistry.createGetter(shape.columnTypes[colIdx], shape.columnNames[colIdx],
+                                                            colIdx + 1, paramTypes[i], columns[i].trim());
+            }
+        }
+        MethodHandle factory = MethodHandles.filterArguments(ctor.asType(ctor.type().changeReturnType(Object.class)),
+                                                             0, getters);
+        return MethodHandles.permuteArguments(factory, MethodType.methodType(Object.class, ResultSet.class),
+                                              new int[paramTypes.length]);
+    }
+
+    /* buildRowFactory()やcreateReader()と同じ対応付けで、ResultSetの代わりにRowSourceから読むものを作る。
+     * 値はConverterRegistry.fromRaw()でフィールド(引数)の型にする。結果にない引数にはnullや0やfalseを渡す。
+     */
+    private static RowSourceMapper buildRowSourceMapper(ResultShape shape, Class<?> dtoClass)
+            throws IllegalAccessException {
+        DtoAccessor accessor = DtoAccessor.getInstance(dtoClass);
+        MethodHandle ctor = accessor.getRowConstructor();
+        if (ctor != null) {
+            TableColumn[] columns = accessor.getRowConstructorColumns();
+            Class<?>[] paramTypes = ctor.type().parameterArray();
+            int[] columnIndexes = new int[paramTypes.length];
+            MethodHandle[] converters = new MethodHandle[paramTypes.length];
+            for (int i = 0; i < paramTypes.length; i++) {
+                int colIdx = columns[i] == null ? -1 : shape.indexOf(columns[i].value().toUpperCase());
+                if (colIdx < 0) {
+                    converters[i] = MethodHandles.dropArguments(MethodHandles.zero(paramTypes[i]), 0, Object.class);
+                } else {
+                    columnIndexes[i] = colIdx + 1;
+                    converters[i] = ConverterRegistry.fromRaw(shape.columnTypes[colIdx], paramTypes[i],
+                                                              columns[i].trim());
+                }
+            }
+            MethodHandle factory = MethodHandles.filterArguments(
+                    ctor.asType(ctor.type().changeReturnType(Object.class)), 0, converters);
+            return new RowSourceMapper(accessor, columnIndexes, null,
+                                       factory.asSpreader(Object[].class, paramTypes.length));
+        }
+        Map<String, Field> nameToField = accessor.getColumnToField();
+        ArrayList<Integer> indexList = new ArrayList<>();
+        ArrayList<MethodHandle> writerList = new ArrayList<>();
+        for (int i = 0; i < shape.columnNames.length; i++) {
+            Field field = nameToField.get(shape.columnNames[i]);
+            if (field == null) {
+                continue;
+            }
+            MethodHandle setter = accessor.setterFor(field);
+            MethodHandle converter = ConverterRegistry.fromRaw(shape.columnTypes[i], field.getType(),
+                                                               field.getAnnotation(TableColumn.class).trim());
+            indexList.add(i + 1);
+            writerList.add(MethodHandles.filterArguments(setter, 1, converter.asType(
+                    MethodType.methodType(setter.type().parameterType(1), Object.class))));
+        }
+        int[] columnIndexes = new int[indexList.size()];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            columnIndexes[i] = indexList.get(i);
+        }
+        return new RowSourceMapper(accessor, columnIndexes, writerList.toArray(new MethodHandle[0]), null);
+    }
+
+    // 結果の列ごとのfetcherを集める。同じ列を異なるgetterで読むものがあれば、読み出せないものとして扱う。
+    private static class Fetchers {
+        private final int[] columnTypes;
+        private final ColumnConverter<?>[] fetchers;
+        private boolean unsupported;
+
+        Fetchers(ResultShape shape) {
+            this.columnTypes = shape.columnTypes;
+            this.fetchers = new ColumnConverter<?>[shape.columnTypes.length];
+        }
+
+        void add(int rsIdx, Class<?> fieldType) {
+            ColumnConverter<?> raw = ConverterRegistry.rawGetter(this.columnTypes[rsIdx - 1], fieldType);
+            if (raw == null || (this.fetchers[rsIdx - 1] != null && this.fetchers[rsIdx - 1] != raw)) {
+                this.unsupported = true;
+            }
+            this.fetchers[rsIdx - 1] = raw;
+        }
+
+        ColumnConverter<?>[] toArray() {
+            return this.unsupported ? null : this.fetchers;
+        }
+    }
+
+    public static class ColumnBinding {
+        public final int rsIndex;
+        public final String columnName;
+        public final int columnType;
+        public final Field field;
+        public final boolean trim;
+
+        ColumnBinding(int rsIndex, String columnName, int columnType, Field field, boolean trim) {
+            this.rsIndex = rsIndex;
+            this.columnName = columnName;
+            this.columnType = columnType;
+            this.field = field;
+            this.trim = trim;
+        }
+    }
+
+    private static class ResultShape {
+        private final String[] columnNames;
+        private final int[] columnTypes;
+        private final int hash;
+
+        private ResultShape(String[] columnNames, int[] columnTypes) {
+            this.columnNames = columnNames;
+            this.columnTypes = columnTypes;
+            this.hash = 31 * Arrays.hashCode(columnNames) + Arrays.hashCode(columnTypes);
+        }
+
+        static ResultShape of(ResultSetMetaData rsmd) throws SQLException {
+            int colCount = rsmd.getColumnCount();
+            String[] columnNames = new String[colCount];
+            int[] columnTypes = new int[colCount];
+            for (int i = 0; i < colCount; i++) {
+                columnNames[i] = rsmd.getColumnName(i + 1).toUpperCase();
+                columnTypes[i] = rsmd.getColumnType(i + 1);
+            }
+            return new ResultShape(columnNames, columnTypes);
+        }
+
+        int indexOf(String columnName) {
+            for (int i = 0; i < this.columnNames.length; i++) {
+                if (this.columnNames[i].equals(columnName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ResultShape other)) {
+                return false;
+            }
+            return this.hash == other.hash
+                    && Arrays.equals(this.columnTypes, other.columnTypes)
+                    && Arrays.equals(this.columnNames, other.columnNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.MultiRowInsert;
+import com.kmaebashi.dbutil.ParameterValueNotFoundException;
+import com.kmaebashi.dbutil.ResultSetMapper;
+import com.kmaebashi.dbutil.SqlParseException;
+import com.kmaebashi.dbutil.UnsupportedTypeException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/* 1行分のINSERT文のVALUESの(...)を繰り返し、複数行を1つの文で挿入する。
+ * 1つの文の行数は、maxRowsPerStatementと、パラメタの数がMultiRowInsert.MAX_BIND_PARAMETERSを
+ * 超えない行数の小さい方を、2のべき乗に切り下げたもの。最後の端数は2のべき乗の行数ずつに分けて実行する。
+ * こうすることで、SQLの形(SqlAndParams.repeatValues()のキャッシュ、StatementCache、サーバ側の実行計画)は
+ * 行数によらず高々十数通りになる。
+ */
+public class MultiRowInsertImpl {
+    private MultiRowInsertImpl() {
+    }
+
+    public static long insert(Connection conn, String sql, Iterable<?> rows, int maxRowsPerStatement)
+        throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException,
+            IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        return execute(conn, sql, rows, maxRowsPerStatement, null, null);
+    }
+
+    public static <T> List<T> insertReturning(Connection conn, String sql, Iterable<?> rows, Class<T> dtoClass,
+                                              int maxRowsPerStatement)
+        throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException,
+            IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        List<T> results = new ArrayList<>();
+        execute(conn, sql, rows, maxRowsPerStatement, dtoClass, results);
+        return results;
+    }
+
+    private static <T> long execute(Connection conn, String sql, Iterable<?> rows, int maxRowsPerStatement,
+                                    Class<T> dtoClass, List<T> results)
+        throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException,
+            IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        if (maxRowsPerStatement < 1) {
+            throw new IllegalArgumentException("maxRowsPerStatementには1以上を指定してください("
+                                               + maxRowsPerStatement + ")。");
+        }
+        SqlAndParams template = SqlTemplateCache.getInstance().get(sql);
+        // 行がなくても、SQLの誤りはここで検出する。
+        template.repeatValues(1);
+        int rowsPerStatement = rowsPerStatement(template, maxRowsPerStatement);
+
+        long count = 0;
+        ArrayList<Object> chunk = new ArrayList<>(rowsPerStatement);
+        for (Object row : rows) {
+            chunk.add(row);
+            if (chunk.size() == rowsPerStatement) {
+                count += executeChunk(conn, template, chunk, dtoClass, results);
+                chunk.clear();
+            }
+        }
+        int from = 0;
+        while (from < chunk.size()) {
+            int size = Integer.highestOneBit(chunk.size() - from);
+            count += executeChunk(conn, template, chunk.subList(from, from + size), dtoClass, results);
+            from += size;
+        }
+        return count;
+    }
+
+    static int rowsPerStatement(SqlAndParams template, int maxRowsPerStatement) {
+        int rows = maxRowsPerStatement;
+        int paramsPerRow = template.paramNames.length;
+        if (paramsPerRow > MultiRowInsert.MAX_BIND_PARAMETERS) {
+            throw new IllegalArgumentException("1行分のパラメタの数が上限(" + MultiRowInsert.MAX_BIND_PARAMETERS
+                                               + ")を超えています(" + paramsPerRow + ")。");
+        }
+        if (paramsPerRow > 0) {
+            rows = Math.min(rows, MultiRowInsert.MAX_BIND_PARAMETERS / paramsPerRow);
+        }
+        return Integer.highestOneBit(rows);
+    }
+
+    private static <T> long executeChunk(Connection conn, SqlAndParams template, List<?> rows,
+                                         Class<T> dtoClass, List<T> results)
+        throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException,
+            IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        try (NamedParameterPreparedStatementImpl npps
+                     = new NamedParameterPreparedStatementImpl(conn, template.repeatValues(rows.size()))) {
+            npps.setRows(rows);
+            if (dtoClass == null) {
+                return npps.executeUpdate();
+            }
+            try (ResultSet rs = npps.executeQuery()) {
+                List<T> list = ResultSetMapper.toDtoList(rs, dtoClass);
+                results.addAll(list);
+                return list.size();
+            }
+        }
+    }
+}
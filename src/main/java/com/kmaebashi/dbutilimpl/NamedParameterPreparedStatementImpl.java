@@ -1,38 +1,290 @@
 package com.kmaebashi.dbutilimpl;
 
 import java.sql.*;
+import com.kmaebashi.dbutil.ExecutionPhase;
+import com.kmaebashi.dbutil.MultiRowInsert;
 import com.kmaebashi.dbutil.NamedParameterPreparedStatement;
+import com.kmaebashi.dbutil.ParameterBinder;
+import com.kmaebashi.dbutil.ParameterSource;
 import com.kmaebashi.dbutil.ParameterValueNotFoundException;
 import com.kmaebashi.dbutil.SqlParseException;
 import com.kmaebashi.dbutil.UnsupportedTypeException;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 public class NamedParameterPreparedStatementImpl implements NamedParameterPreparedStatement {
     private PreparedStatement preparedStatement;
-    private String[] paramNames;
+    private SqlAndParams template;
+    private String sql;
+    private StatementCache statementCache;
+    private boolean closed;
 
     /* 基本動作:
-     * コンストラクタでSQLをパースし、中に出てくる名前付きパラメタの一覧をparamNamesにセットする。
-     * paramNamesにはSQL中の名前付きパラメタが登場順に格納されている。複数回登場したら、
-     * 重複して格納されている。
-     * setParameters()で、paramNamesを頭からループし、引数のMapから取得した値を
-     * ps.setXXX()で設定する。
+     * コンストラクタでSQLをパースし、中に出てくる名前付きパラメタの一覧をtemplateにセットする。
+     * template.paramNamesにはSQL中の名前付きパラメタが登場順に格納されている。複数回登場したら、
+     * 重複して格納されている。template.positionsには、パラメタ名ごとの登場位置が格納されている。
+     * setParameters()では、パラメタ名ごと(重複なし)に値を1回だけ取得して型を判定し、
+     * そのパラメタが登場するすべての位置にps.setXXX()で設定する。
+     * パース結果はSqlTemplateCacheにキャッシュされ、同じSQLであれば2回目以降はパースしない。
+     * コネクションがStatementCacheを持っていれば、PreparedStatementはそこから取り出し、close()で戻す。
      */
     public NamedParameterPreparedStatementImpl(Connection conn, String sql)
             throws SQLException, SqlParseException {
-        SqlAndParams sqlAndParams = parseSql(sql);
-        this.paramNames = sqlAndParams.paramNames;
-        this.preparedStatement = conn.prepareStatement(sqlAndParams.sql);
+        long start = ExecutionListeners.start();
+        StatementPrepareEvent event = new StatementPrepareEvent();
+        event.begin();
+        prepare(conn, SqlTemplateCache.getInstance().get(sql));
+        endPrepare(start, event);
+    }
+
+    /* paramsの値がCollectionまたは配列のパラメタを、IN句用に「?, ?, ...」に展開してからPreparedStatementを作り、
+     * paramsの値を設定する。?の数は要素数以上の2のべき乗(1, 2, 4, 8, ...)に切り上げ、
+     * 余った?には最後の要素を繰り返して設定する。こうすることで、要素数ごとに異なるSQLが大量にできるのを防ぎ、
+     * PreparedStatementのキャッシュやサーバ側の実行計画が再利用されるようにする。
+     */
+    public NamedParameterPreparedStatementImpl(Connection conn, String sql, ParameterSource params)
+            throws SQLException, SqlParseException, UnsupportedTypeException, ParameterValueNotFoundException {
+        long start = ExecutionListeners.start();
+        StatementPrepareEvent event = new StatementPrepareEvent();
+        event.begin();
+        prepare(conn, expandFor(SqlTemplateCache.getInstance().get(sql), params));
+        endPrepare(start, event);
+        try {
+            setParameters(params);
+        } catch (SQLException | UnsupportedTypeException | ParameterValueNotFoundException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    // SqlAndParams.repeatValues()で作ったSQLのPreparedStatementを作る。パラメタはsetRows()で設定する。
+    NamedParameterPreparedStatementImpl(Connection conn, SqlAndParams repeated) throws SQLException {
+        long start = ExecutionListeners.start();
+        StatementPrepareEvent event = new StatementPrepareEvent();
+        event.begin();
+        prepare(conn, repeated);
+        endPrepare(start, event);
+    }
+
+    private void prepare(Connection conn, SqlAndParams sqlAndParams) throws SQLException {
+        this.template = sqlAndParams;
+        this.sql = sqlAndParams.sql;
+        this.statementCache = StatementCache.of(conn);
+        if (this.statementCache != null) {
+            this.preparedStatement = this.statementCache.checkout(this.sql);
+        } else {
+            this.preparedStatement = conn.prepareStatement(this.sql);
+        }
+    }
+
+    private void endPrepare(long start, StatementPrepareEvent event) {
+        ExecutionListeners.end(start, ExecutionPhase.PREPARE, this.sql, null, -1);
+        if (event.shouldCommit()) {
+            event.sqlTemplate = this.sql;
+            event.paramCount = this.template.paramNames.length;
+            event.statementCacheUsed = this.statementCache != null;
+            event.commit();
+        }
+    }
+
+    /* 2のべき乗に切り上げると?の数がPostgreSQLの上限(MultiRowInsert.MAX_BIND_PARAMETERS)を超える場合は、
+     * 切り上げずに要素数ちょうどに展開する。それでも超える場合は、実行時のエラーにせずここで例外を投げる。
+     */
+    private static SqlAndParams expandFor(SqlAndParams template, ParameterSource params) throws SqlParseException {
+        int[] lengths = null;
+        for (int i = 0; i < template.distinctNames.length; i++) {
+            if (!params.hasValue(template.distinctNames[i])) {
+                continue;
+            }
+            int length = elementCount(params.getValue(template.distinctNames[i]));
+            if (length >= 0) {
+                if (lengths == null) {
+                    lengths = new int[template.distinctNames.length];
+                }
+                lengths[i] = Math.max(length, 1);
+            }
+        }
+        if (lengths == null) {
+            return template;
+        }
+        int[] sizes = new int[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            sizes[i] = lengths[i] > 0 ? bucketSize(lengths[i]) : 0;
+        }
+        if (placeholderCount(template, sizes) > MultiRowInsert.MAX_BIND_PARAMETERS) {
+            sizes = lengths;
+            int count = placeholderCount(template, sizes);
+            if (count > MultiRowInsert.MAX_BIND_PARAMETERS) {
+                throw new IllegalArgumentException("展開後の?の数が上限(" + MultiRowInsert.MAX_BIND_PARAMETERS
+                                                   + ")を超えています(" + count + ")。"
+                                                   + "要素数が多い場合は、SqlArray.of()で配列として設定してください。");
+            }
+        }
+        return template.expand(sizes);
+    }
+
+    // sizesで展開した場合の?の数。展開しないパラメタ(sizes[i]が0)は、登場ごとに1つと数える。
+    private static int placeholderCount(SqlAndParams template, int[] sizes) {
+        long count = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            count += (long) template.positions[i].length * Math.max(sizes[i], 1);
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    // 要素数以上の最小の2のべき乗。要素数が0の場合も1つの?にする(NULLを設定する)。
+    static int bucketSize(int length) {
+        return length <= 1 ? 1 : Integer.highestOneBit(length - 1) << 1;
+    }
+
+    // valueがCollectionまたは配列(byte[]は除く)なら要素数を、それ以外なら-1を返す。
+    private static int elementCount(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        } else if (value != null && value.getClass().isArray() && !(value instanceof byte[])) {
+            return Array.getLength(value);
+        }
+        return -1;
     }
 
     @Override
     public void setParameters(Map<String, Object> params)
         throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException {
-        setParametersImpl(this.preparedStatement, this.paramNames, params);
+        setParameters(ParameterSource.of(params));
+    }
+
+    @Override
+    public void setParameters(ParameterSource source)
+        throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException {
+        long start = ExecutionListeners.start();
+        ParameterBindEvent event = new ParameterBindEvent();
+        event.begin();
+        setParametersImpl(this.preparedStatement, this.template, source);
+        ExecutionListeners.end(start, ExecutionPhase.BIND, this.sql, null, -1);
+        commitBindEvent(event, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setParameters(Object dto)
+        throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException, IllegalAccessException {
+        if (dto == null) {
+            throw new IllegalArgumentException("dtoにnullが指定されました。");
+        } else if (dto instanceof Map<?, ?> map) {
+            setParameters((Map<String, Object>) map);
+            return;
+        } else if (dto instanceof ParameterSource source) {
+            setParameters(source);
+            return;
+        }
+        long start = ExecutionListeners.start();
+        ParameterBindEvent event = new ParameterBindEvent();
+        event.begin();
+        DtoParameterBinder.getInstance(this.template, dto.getClass()).bind(this.preparedStatement, dto);
+        ExecutionListeners.end(start, ExecutionPhase.BIND, this.sql, null, -1);
+        commitBindEvent(event, dto.getClass());
+    }
+
+    /* repeatValues()で作ったSQLの、r行目のパラメタにrows.get(r)の値を設定する。
+     * 各行は、setParameters(Object)と同じく、Map、ParameterSource、@TableColumnを付けたDTOのいずれか。
+     */
+    @SuppressWarnings("unchecked")
+    void setRows(List<?> rows)
+        throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException, IllegalAccessException {
+        long start = ExecutionListeners.start();
+        ParameterBindEvent event = new ParameterBindEvent();
+        event.begin();
+        Class<?> dtoClass = null;
+        for (int r = 0; r < rows.size(); r++) {
+            Object row = rows.get(r);
+            int[][] positions = this.template.rowPositions[r];
+            if (row == null) {
+                throw new IllegalArgumentException("rowsにnullの要素があります。");
+            } else if (row instanceof Map<?, ?> map) {
+                setParametersImpl(this.preparedStatement, this.template,
+                                  ParameterSource.of((Map<String, Object>) map), positions);
+            } else if (row instanceof ParameterSource source) {
+                setParametersImpl(this.preparedStatement, this.template, source, positions);
+            } else {
+                dtoClass = row.getClass();
+                DtoParameterBinder.getInstance(this.template, dtoClass).bind(this.preparedStatement, row, positions);
+            }
+        }
+        ExecutionListeners.end(start, ExecutionPhase.BIND, this.sql, null, -1);
+        commitBindEvent(event, dtoClass);
+    }
+
+    private void commitBindEvent(ParameterBindEvent event, Class<?> dtoClass) {
+        if (event.shouldCommit()) {
+            event.sqlTemplate = this.sql;
+            event.paramCount = this.template.distinctNames.length;
+            event.dtoClass = dtoClass;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void addBatch(Map<String, Object> params)
+        throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException {
+        setParameters(ParameterSource.of(params));
+        this.preparedStatement.addBatch();
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        long start = ExecutionListeners.start();
+        ResultSet rs = this.preparedStatement.executeQuery();
+        ExecutionListeners.end(start, ExecutionPhase.EXECUTE, this.sql, null, -1);
+        return rs;
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        long start = ExecutionListeners.start();
+        int count = this.preparedStatement.executeUpdate();
+        ExecutionListeners.end(start, ExecutionPhase.EXECUTE, this.sql, null, count);
+        return count;
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        long start = ExecutionListeners.start();
+        int[] counts = this.preparedStatement.executeBatch();
+        if (start != ExecutionListeners.NOT_STARTED) {
+            long total = 0;
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+            ExecutionListeners.end(start, ExecutionPhase.EXECUTE, this.sql, null, total);
+        }
+        return counts;
+    }
+
+    @Override
+    public List<int[]> executeBatch(Iterable<? extends Map<String, Object>> rows, int chunkSize)
+        throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSizeには1以上を指定してください(" + chunkSize + ")。");
+        }
+        ArrayList<int[]> results = new ArrayList<>();
+        int pendingCount = 0;
+        for (Map<String, Object> row : rows) {
+            addBatch(row);
+            pendingCount++;
+            if (pendingCount == chunkSize) {
+                results.add(executeBatch());
+                pendingCount = 0;
+            }
+        }
+        if (pendingCount > 0) {
+            results.add(executeBatch());
+        }
+        return results;
     }
 
     @Override
@@ -40,157 +292,387 @@ public class NamedParameterPreparedStatementImpl implements NamedParameterPrepar
         return this.preparedStatement;
     }
 
-    private enum State {
-        INITIAL,
-        COLON,
-        IN_PARAMETER,
-        COMMENT_START,
-        IN_COMMENT,
-        C_STYLE_COMMENT_START,
-        IN_C_STYLE_COMMENT,
-        C_STYLE_COMMENT_END,
-        IN_STRING,
-        STRING_END
+    @Override
+    public void close() throws SQLException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        if (this.statementCache != null) {
+            this.statementCache.release(this.sql, this.preparedStatement);
+        } else {
+            this.preparedStatement.close();
+        }
     }
 
+    /* SQLを先頭から走査し、名前付きパラメタ(:NAME、:NAME{型})を?に置き換える。
+     * パラメタ以外の部分は、次のパラメタの手前までをまとめてStringBuilderにコピーする。
+     * 以下の中にある:はパラメタとはみなさない(PostgreSQLの字句の規則に従う)。
+     *   '文字列'(''はエスケープ)、E'文字列'(\'も)、"引用符付き識別子"、$$や$タグ$で囲んだ文字列、
+     *   --から行末までのコメント、Cスタイルのコメント(入れ子にできる)
+     * また、::(型のキャスト)と、:の直後が数字の場合(配列のスライスa[1:2])もパラメタではない。
+     * 閉じていない文字列やコメントは、SQLの末尾まで続くものとして扱う(エラーはDBに任せる)。
+     */
     static SqlAndParams parseSql(String srcSql) throws SqlParseException {
-        State state = State.INITIAL;
-        StringBuilder sqlSB = new StringBuilder();
-        StringBuilder param = null;
-        ArrayList<String> paramList = new ArrayList<String>();
-
-        for (int i = 0; i < srcSql.length(); i++) {
+        int length = srcSql.length();
+        if (srcSql.indexOf(':') < 0) {
+            return new SqlAndParams(srcSql, new String[0], new int[0], new int[0]);
+        }
+        StringBuilder sqlSB = new StringBuilder(length);
+        ArrayList<String> paramList = new ArrayList<>();
+        int[] types = new int[8];
+        int[] offsets = new int[8];
+        int copyFrom = 0;
+        int i = 0;
+        while (i < length) {
             char ch = srcSql.charAt(i);
-
-            switch (state) {
-                case INITIAL:
-                    if (ch == ':') {
-                        state = State.COLON;
-                    } else if (ch == '-') {
-                        state = State.COMMENT_START;
-                        sqlSB.append(ch);
-                    } else if (ch == '/') {
-                        state = State.C_STYLE_COMMENT_START;
-                        sqlSB.append(ch);
-                    } else if (ch == '\'') {
-                        state = State.IN_STRING;
-                        sqlSB.append(ch);
-                    } else {
-                        sqlSB.append(ch);
-                    }
+            switch (ch) {
+                case '\'':
+                    i = skipQuoted(srcSql, i + 1, '\'', isEscapeString(srcSql, i));
+                    break;
+                case '"':
+                    i = skipQuoted(srcSql, i + 1, '"', false);
+                    break;
+                case '-':
+                    i = charAt(srcSql, i + 1) == '-' ? skipLineComment(srcSql, i + 2) : i + 1;
                     break;
-                case COLON:
-                    if (Character.isJavaIdentifierStart(ch)) {
-                        param = new StringBuilder();
-                        param.append(ch);
-                        state = State.IN_PARAMETER;
+                case '/':
+                    i = charAt(srcSql, i + 1) == '*' ? skipBlockComment(srcSql, i + 2) : i + 1;
+                    break;
+                case '$':
+                    i = skipDollarQuoted(srcSql, i);
+                    break;
+                case ':':
+                    char next = charAt(srcSql, i + 1);
+                    if (next == ':') {
+                        i += 2;
+                    } else if (next >= '0' && next <= '9') {
+                        i++;
+                    } else if (i + 1 < length && Character.isJavaIdentifierStart(next)) {
+                        int nameEnd = i + 2;
+                        while (nameEnd < length && Character.isJavaIdentifierPart(srcSql.charAt(nameEnd))) {
+                            nameEnd++;
+                        }
+                        String name = srcSql.substring(i + 1, nameEnd);
+                        int type = Types.NULL;
+                        int end = nameEnd;
+                        if (charAt(srcSql, nameEnd) == '{') {
+                            int close = srcSql.indexOf('}', nameEnd + 1);
+                            if (close < 0) {
+                                throw new SqlParseException("パラメタ" + name + "の型の指定が}で閉じられていません。");
+                            }
+                            type = parseTypeHint(name, srcSql.substring(nameEnd + 1, close).strip());
+                            end = close + 1;
+                        }
+                        int count = paramList.size();
+                        if (count == types.length) {
+                            types = Arrays.copyOf(types, count * 2);
+                            offsets = Arrays.copyOf(offsets, count * 2);
+                        }
+                        sqlSB.append(srcSql, copyFrom, i);
+                        offsets[count] = sqlSB.length();
+                        types[count] = type;
+                        paramList.add(name);
+                        sqlSB.append('?');
+                        copyFrom = end;
+                        i = end;
                     } else {
                         throw new SqlParseException(":の後ろに識別子がありません。");
                     }
                     break;
-                case IN_PARAMETER:
-                    if (Character.isJavaIdentifierPart(ch)) {
-                        param.append(ch);
-                    } else {
-                        paramList.add(param.toString());
-                        sqlSB.append('?');
-                        sqlSB.append(ch);
-                        state = State.INITIAL;
-                    }
+                default:
+                    i++;
                     break;
-                case COMMENT_START:
-                    if (ch == '-') {
-                        state = State.IN_COMMENT;
-                    } else {
-                        state = State.INITIAL;
-                    }
-                    sqlSB.append(ch);
+            }
+        }
+        sqlSB.append(srcSql, copyFrom, length);
+        int count = paramList.size();
+        return new SqlAndParams(sqlSB.toString(), paramList.toArray(new String[0]),
+                                Arrays.copyOf(types, count), Arrays.copyOf(offsets, count));
+    }
+
+    // 範囲外なら'\0'を返す。
+    private static char charAt(String str, int index) {
+        return index < str.length() ? str.charAt(index) : '\0';
+    }
+
+    // quoteで閉じる文字列または識別子の、閉じたquoteの次の位置を返す。quoteを2つ重ねたものはエスケープ。
+    private static int skipQuoted(String sql, int from, char quote, boolean backslashEscape) {
+        int i = from;
+        while (true) {
+            int close = sql.indexOf(quote, i);
+            if (close < 0) {
+                return sql.length();
+            }
+            if (backslashEscape && isEscapedByBackslash(sql, i, close)) {
+                i = close + 1;
+            } else if (charAt(sql, close + 1) == quote) {
+                i = close + 2;
+            } else {
+                return close + 1;
+            }
+        }
+    }
+
+    // sql[close]の直前に連続する\\の数が奇数なら、そのquoteはエスケープされている。
+    private static boolean isEscapedByBackslash(String sql, int from, int close) {
+        int count = 0;
+        for (int i = close - 1; i >= from && sql.charAt(i) == '\\'; i--) {
+            count++;
+        }
+        return count % 2 == 1;
+    }
+
+    // sql[quote]の'がE'...'(エスケープ文字列)の開始かどうか。
+    private static boolean isEscapeString(String sql, int quote) {
+        if (quote == 0) {
+            return false;
+        }
+        char prefix = sql.charAt(quote - 1);
+        return (prefix == 'E' || prefix == 'e') && (quote == 1 || !isIdentifierPart(sql.charAt(quote - 2)));
+    }
+
+    private static int skipLineComment(String sql, int from) {
+        int newline = sql.indexOf('\n', from);
+        return newline < 0 ? sql.length() : newline + 1;
+    }
+
+    private static int skipBlockComment(String sql, int from) {
+        int depth = 1;
+        int i = from;
+        int length = sql.length();
+        while (i < length) {
+            char ch = sql.charAt(i);
+            if (ch == '*' && charAt(sql, i + 1) == '/') {
+                i += 2;
+                if (--depth == 0) {
+                    return i;
+                }
+            } else if (ch == '/' && charAt(sql, i + 1) == '*') {
+                i += 2;
+                depth++;
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /* sql[start]の$が$$または$タグ$の開始なら、閉じた位置の次を返す。そうでなければ(識別子中の$や、$1など)
+     * start + 1を返す。
+     */
+    private static int skipDollarQuoted(String sql, int start) {
+        if (start > 0 && isIdentifierPart(sql.charAt(start - 1))) {
+            return start + 1;
+        }
+        int i = start + 1;
+        int length = sql.length();
+        if (i < length && sql.charAt(i) != '$') {
+            char first = sql.charAt(i);
+            if (!(Character.isLetter(first) || first == '_')) {
+                return start + 1;
+            }
+            i++;
+            while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                i++;
+            }
+            if (i == length || sql.charAt(i) != '$') {
+                return start + 1;
+            }
+        }
+        if (i >= length) {
+            return length;
+        }
+        int tagLength = i + 1 - start;
+        int j = i + 1;
+        while (true) {
+            int dollar = sql.indexOf('$', j);
+            if (dollar < 0) {
+                return length;
+            }
+            if (sql.regionMatches(dollar, sql, start, tagLength)) {
+                return dollar + tagLength;
+            }
+            j = dollar + 1;
+        }
+    }
+
+    private static boolean isIdentifierPart(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$';
+    }
+
+    // :NAME{INTEGER}の{}の中身。java.sql.JDBCTypeの名前で指定する(大文字小文字は区別しない)。
+    private static int parseTypeHint(String paramName, String typeName) throws SqlParseException {
+        try {
+            return JDBCType.valueOf(typeName.toUpperCase()).getVendorTypeNumber();
+        } catch (IllegalArgumentException ex) {
+            throw new SqlParseException("パラメタ" + paramName + "の型" + typeName + "はJDBCTypeにありません。");
+        }
+    }
+
+    /* INSERT文のVALUESに続く1行分の(...)の範囲を返す。[0]は(の位置、[1]は対応する)の次の位置。
+     * parseSql()の結果(パラメタを?に置き換えたもの)に使う。文字列やコメント、括弧の中のVALUESは対象としない。
+     */
+    static int[] findValuesTuple(String sql) throws SqlParseException {
+        int length = sql.length();
+        int depth = 0;
+        boolean afterValues = false;
+        int tupleStart = -1;
+        int i = 0;
+        while (i < length) {
+            char ch = sql.charAt(i);
+            switch (ch) {
+                case '\'':
+                    i = skipQuoted(sql, i + 1, '\'', isEscapeString(sql, i));
                     break;
-                case IN_COMMENT:
-                    if (ch == '\n') {
-                        state = State.INITIAL;
-                    }
-                    sqlSB.append(ch);
+                case '"':
+                    i = skipQuoted(sql, i + 1, '"', false);
                     break;
-                case C_STYLE_COMMENT_START:
-                    if (ch == '*') {
-                        state = State.IN_C_STYLE_COMMENT;
-                    } else {
-                        state = State.INITIAL;
-                    }
-                    sqlSB.append(ch);
+                case '-':
+                    i = charAt(sql, i + 1) == '-' ? skipLineComment(sql, i + 2) : i + 1;
                     break;
-                case IN_C_STYLE_COMMENT:
-                    if (ch == '*') {
-                        state = State.C_STYLE_COMMENT_END;
-                    }
-                    sqlSB.append(ch);
+                case '/':
+                    i = charAt(sql, i + 1) == '*' ? skipBlockComment(sql, i + 2) : i + 1;
                     break;
-                case C_STYLE_COMMENT_END:
-                    if (ch == '/') {
-                        state = State.INITIAL;
-                    } else {
-                        state = State.IN_COMMENT;
+                case '$':
+                    i = skipDollarQuoted(sql, i);
+                    break;
+                case '(':
+                    if (afterValues) {
+                        tupleStart = i;
+                        afterValues = false;
                     }
-                    sqlSB.append(ch);
+                    depth++;
+                    i++;
                     break;
-                case IN_STRING:
-                    if (ch == '\'') {
-                        state = State.STRING_END;
+                case ')':
+                    depth--;
+                    i++;
+                    if (depth == 0 && tupleStart >= 0) {
+                        int next = i;
+                        while (next < length && Character.isWhitespace(sql.charAt(next))) {
+                            next++;
+                        }
+                        if (charAt(sql, next) == ',') {
+                            throw new SqlParseException("VALUESには1行分だけを書いてください。");
+                        }
+                        return new int[] {tupleStart, i};
                     }
-                    sqlSB.append(ch);
                     break;
-                case STRING_END:
-                    if (ch == '\'') {
-                        state = State.IN_STRING;
-                        sqlSB.append(ch);
-                    } else {
-                        if (ch == ':') {
-                            state = State.COLON;
-                        } else if (ch == '-') {
-                            state = State.COMMENT_START;
-                            sqlSB.append(ch);
-                        } else if (ch == '/') {
-                            state = State.C_STYLE_COMMENT_START;
-                            sqlSB.append(ch);
-                        } else {
-                            sqlSB.append(ch);
+                default:
+                    if (afterValues && !Character.isWhitespace(ch)) {
+                        throw new SqlParseException("VALUESの後ろに(がありません。");
+                    }
+                    if (isIdentifierPart(ch)) {
+                        int end = i + 1;
+                        while (end < length && isIdentifierPart(sql.charAt(end))) {
+                            end++;
+                        }
+                        if (depth == 0 && tupleStart < 0 && end - i == 6
+                            && sql.regionMatches(true, i, "VALUES", 0, 6)) {
+                            afterValues = true;
                         }
+                        i = end;
+                    } else {
+                        i++;
                     }
+                    break;
             }
         }
-        return new SqlAndParams(sqlSB.toString(), paramList.toArray(new String[0]));
+        throw new SqlParseException("INSERT文にVALUES (...)が見つかりません。");
+    }
+
+    static void setParametersImpl(PreparedStatement ps, SqlAndParams template, ParameterSource source)
+        throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException {
+        setParametersImpl(ps, template, source, template.positions);
     }
 
-    static void setParametersImpl(PreparedStatement ps, String[] paramNames, Map<String, Object> paramValues)
+    // positionsは、template.positionsと同じ形の、?の位置の配列(repeatValues()の行ごとのもの)。
+    static void setParametersImpl(PreparedStatement ps, SqlAndParams template, ParameterSource source,
+                                  int[][] positions)
         throws SQLException, UnsupportedTypeException, ParameterValueNotFoundException {
-        for (int i = 0; i < paramNames.length; i++) {
-            if (!paramValues.containsKey(paramNames[i])) {
-                throw new ParameterValueNotFoundException("パラメタ" + paramNames[i] + "の値が見つかりません。");
-            }
-            Object value = paramValues.get(paramNames[i]);
-            if (value instanceof Integer intValue) {
-                ps.setInt(i + 1, intValue.intValue());
-            } else if (value instanceof Double doubleValue) {
-                ps.setDouble(i + 1, doubleValue);
-            } else if (value instanceof Boolean boolValue) {
-                ps.setBoolean(i + 1, boolValue);
-            } else if (value instanceof String strValue) {
-                ps.setString(i + 1, strValue);
-            } else if (value instanceof java.sql.Date dateValue) {
-                ps.setDate(i + 1, dateValue);
-            } else if (value instanceof LocalDate dateValue) {
-                ps.setDate(i + 1, java.sql.Date.valueOf(dateValue));
-            } else if (value instanceof java.sql.Timestamp timestampValue) {
-                ps.setTimestamp(i + 1, timestampValue);
-            } else if (value instanceof LocalDateTime dateTimeValue) {
-                ps.setTimestamp(i + 1, java.sql.Timestamp.valueOf(dateTimeValue));
-            } else if (value == null) {
-                ps.setNull(i + 1, Types.NULL);
+        String[] names = template.distinctNames;
+        for (int i = 0; i < names.length; i++) {
+            if (!source.hasValue(names[i])) {
+                throw new ParameterValueNotFoundException("パラメタ" + names[i] + "の値が見つかりません。");
+            }
+            if (template.expandSizes[i] > 0) {
+                setExpandedParameter(ps, names[i], positions[i], template.expandSizes[i],
+                                     source.getValue(names[i]), template.nullTypes[i]);
             } else {
-                throw new UnsupportedTypeException("型"+ value.getClass().getName() + "はサポートしていません。"
-                        + "必要に応じて書き足してください。");
+                setParameter(ps, positions[i], source.getValue(names[i]), template.nullTypes[i]);
+            }
+        }
+    }
+
+    /* IN句用に展開したパラメタの設定。positionsには、登場ごとにsize個ずつの位置が並んでいる。
+     * 要素数がsizeより少なければ、最後の要素を繰り返して埋める。要素が0個ならNULLを設定する。
+     * 展開したSQLに対して、Collectionでも配列でもない値を設定した場合は、要素数1として扱う。
+     */
+    private static void setExpandedParameter(PreparedStatement ps, String name, int[] positions, int size,
+                                             Object value, int nullType)
+        throws SQLException, UnsupportedTypeException {
+        Object[] elements;
+        if (value instanceof Collection<?> collection) {
+            elements = collection.toArray();
+        } else if (elementCount(value) >= 0) {
+            elements = new Object[Array.getLength(value)];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = Array.get(value, i);
             }
+        } else if (value == null) {
+            elements = new Object[0];
+        } else {
+            elements = new Object[] {value};
+        }
+        if (elements.length > size) {
+            throw new IllegalArgumentException("パラメタ" + name + "の要素数" + elements.length
+                                               + "が、展開した?の数" + size + "を超えています。");
+        }
+        for (int i = 0; i < positions.length; i++) {
+            int index = i % size;
+            Object element = elements.length == 0 ? null : elements[Math.min(index, elements.length - 1)];
+            bindValue(ps, positions[i], element, nullType);
+        }
+    }
+
+    private static void bindValue(PreparedStatement ps, int position, Object value, int nullType)
+        throws SQLException, UnsupportedTypeException {
+        if (value == null) {
+            ps.setNull(position, nullType);
+        } else {
+            findBinder(value).bind(ps, position, value);
+        }
+    }
+
+    private static ParameterBinder<Object> findBinder(Object value) throws UnsupportedTypeException {
+        ParameterBinder<Object> binder = BinderRegistry.find(value.getClass());
+        if (binder != null) {
+            return binder;
+        }
+        if (elementCount(value) >= 0) {
+            throw new UnsupportedTypeException("型" + value.getClass().getName() + "はサポートしていません。"
+                    + "IN句に展開する場合はNamedParameterPreparedStatement.newInstance(conn, sql, params)を、"
+                    + "配列として設定する場合はSqlArray.of()を使ってください。");
+        }
+        throw new UnsupportedTypeException("型"+ value.getClass().getName() + "はサポートしていません。"
+                + "必要に応じてNamedParameterPreparedStatement.registerBinder()で登録してください。");
+    }
+
+    /* valueがnullの場合は、nullTypeの型で設定する。nullTypeは、SQL中の型の指定やDTOのフィールドの型から決めたもので、
+     * 不明な場合はTypes.NULL。
+     */
+    static void setParameter(PreparedStatement ps, int[] positions, Object value, int nullType)
+        throws SQLException, UnsupportedTypeException {
+        if (value == null) {
+            for (int position : positions) {
+                ps.setNull(position, nullType);
+            }
+            return;
+        }
+        ParameterBinder<Object> binder = findBinder(value);
+        for (int position : positions) {
+            binder.bind(ps, position, value);
         }
     }
 }
@@ -0,0 +1,184 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.TableColumn;
+import com.kmaebashi.dbutil.UnsupportedTypeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/* @TableChildrenによって、JOINの結果の1行から親と子のDTOを読み出すための構成。
+ * 階層ごとに、DTOのMappingPlan、キーの列番号、子を入れるフィールドのsetterと子の階層のNestedPlanを保持する。
+ * 子のDTOも親と同じ行から読むので、MappingPlanは同じResultSetMetaDataについてクラスごとに作る。
+ * キーのない子(@TableColumn(key=true)の列がない)は重複を除かず、読み出す列がすべてNULLの行
+ * (LEFT JOINで子がない場合)は読み飛ばす。キーは、最上位と、子を持つ階層では必須とする。
+ */
+public class NestedPlan {
+    private final Class<?> dtoClass;
+    private final MappingPlan plan;
+    private final int[] keyIndexes;
+    private final int[] valueIndexes;
+    private final MethodHandle[] childSetters;
+    private final NestedPlan[] children;
+
+    private NestedPlan(Class<?> dtoClass, MappingPlan plan, int[] keyIndexes, int[] valueIndexes,
+                       MethodHandle[] childSetters, NestedPlan[] children) {
+        this.dtoClass = dtoClass;
+        this.plan = plan;
+        this.keyIndexes = keyIndexes;
+        this.valueIndexes = valueIndexes;
+        this.childSetters = childSetters;
+        this.children = children;
+    }
+
+    public static NestedPlan getInstance(ResultSetMetaData rsmd, Class<?> dtoClass)
+            throws SQLException, IllegalAccessException, UnsupportedTypeException {
+        HashMap<String, Integer> columns = new HashMap<>();
+        for (int i = rsmd.getColumnCount(); i >= 1; i--) {
+            columns.put(rsmd.getColumnName(i).toUpperCase(), i);
+        }
+        return build(rsmd, columns, dtoClass, new ArrayList<>());
+    }
+
+    private static NestedPlan build(ResultSetMetaData rsmd, Map<String, Integer> columns, Class<?> dtoClass,
+                                    List<Class<?>> path)
+            throws SQLException, IllegalAccessException, UnsupportedTypeException {
+        if (path.contains(dtoClass)) {
+            throw new IllegalArgumentException("@TableChildrenが循環しています(" + dtoClass.getName() + ")。");
+        }
+        DtoAccessor accessor = DtoAccessor.getInstance(dtoClass);
+        List<Field> childrenFields = accessor.getChildrenFields();
+        String[] keyColumns = accessor.getKeyColumns();
+        if (keyColumns.length == 0 && (path.isEmpty() || !childrenFields.isEmpty())) {
+            throw new IllegalArgumentException("クラス" + dtoClass.getName()
+                                               + "に@TableColumn(key=true)の列がありません。");
+        }
+        int[] keyIndexes = new int[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            Integer index = columns.get(keyColumns[i]);
+            if (index == null) {
+                throw new IllegalArgumentException("キーの列" + keyColumns[i] + "がResultSetにありません。");
+            }
+            keyIndexes[i] = index;
+        }
+        int[] valueIndexes = keyColumns.length == 0 ? valueIndexes(accessor, columns) : new int[0];
+
+        path.add(dtoClass);
+        MethodHandle[] childSetters = new MethodHandle[childrenFields.size()];
+        NestedPlan[] children = new NestedPlan[childrenFields.size()];
+        for (int i = 0; i < children.length; i++) {
+            Field field = childrenFields.get(i);
+            childSetters[i] = accessor.setterFor(checkChildrenField(field));
+            Type elementType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            children[i] = build(rsmd, columns, (Class<?>) elementType, path);
+        }
+        path.remove(path.size() - 1);
+
+        return new NestedPlan(dtoClass, MappingPlan.getInstance(rsmd, dtoClass), keyIndexes, valueIndexes,
+                              childSetters, children);
+    }
+
+    private static Field checkChildrenField(Field field) {
+        String name = field.getDeclaringClass().getName() + "." + field.getName();
+        if (Modifier.isFinal(field.getModifiers())) {
+            throw new IllegalArgumentException("@TableChildrenを付けたフィールド" + name + "はfinalにできません。");
+        }
+        if (!field.getType().isAssignableFrom(ArrayList.class)
+                || !(field.getGenericType() instanceof ParameterizedType pt)
+                || !(pt.getActualTypeArguments()[0] instanceof Class<?>)) {
+            throw new IllegalArgumentException("@TableChildrenを付けたフィールド" + name
+                                               + "の型は、List<DTOのクラス>にしてください。");
+        }
+        return field;
+    }
+
+    // キーのないDTOについて、@TableColumnの列のうち結果にあるものの列番号を返す。
+    private static int[] valueIndexes(DtoAccessor accessor, Map<String, Integer> columns) {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        for (Field field : accessor.getColumnFields()) {
+            names.add(field.getAnnotation(TableColumn.class).value().toUpperCase());
+        }
+        if (accessor.getRowConstructorColumns() != null) {
+            for (TableColumn tc : accessor.getRowConstructorColumns()) {
+                if (tc != null) {
+                    names.add(tc.value().toUpperCase());
+                }
+            }
+        }
+        int[] indexes = new int[names.size()];
+        int count = 0;
+        for (String name : names) {
+            Integer index = columns.get(name);
+            if (index != null) {
+                indexes[count++] = index;
+            }
+        }
+        return Arrays.copyOf(indexes, count);
+    }
+
+    public Class<?> getDtoClass() {
+        return this.dtoClass;
+    }
+
+    public MappingPlan getMappingPlan() {
+        return this.plan;
+    }
+
+    public NestedPlan[] getChildren() {
+        return this.children;
+    }
+
+    public boolean hasKey() {
+        return this.keyIndexes.length > 0;
+    }
+
+    /* 現在の行のキーを返す。キーの列が1つならその値を、複数ならその値のListを返す。
+     * キーの列にNULLがあればnullを返す(子のキーに親と共通の列を含めても、LEFT JOINで子がない行を判別できるように)。
+     */
+    public Object readKey(ResultSet rs) throws SQLException {
+        if (this.keyIndexes.length == 1) {
+            return rs.getObject(this.keyIndexes[0]);
+        }
+        Object[] values = new Object[this.keyIndexes.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rs.getObject(this.keyIndexes[i]);
+            if (values[i] == null) {
+                return null;
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    // キーのないDTOについて、現在の行の読み出す列がすべてNULLならtrueを返す。
+    public boolean isAllNull(ResultSet rs) throws SQLException {
+        for (int index : this.valueIndexes) {
+            if (rs.getObject(index) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // dtoの、getChildren()[childIndex]に対応するフィールドにlistを設定する。
+    public void setChildList(Object dto, int childIndex, List<Object> list) throws InvocationTargetException {
+        try {
+            this.childSetters[childIndex].invokeExact(dto, (Object) list);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.kmaebashi.dbutilimpl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/* JFRのイベント。setParameters()でのパラメタの設定を記録する。DTOから設定した場合はdtoClassにそのクラスが入る。
+ */
+@Name("com.kmaebashi.dbutil.ParameterBind")
+@Label("Parameter Bind")
+@Category("DbUtil")
+@Description("PreparedStatementへのパラメタの設定")
+public final class ParameterBindEvent extends jdk.jfr.Event {
+    @Label("SQL Template")
+    public String sqlTemplate;
+
+    @Label("Parameter Count")
+    public int paramCount;
+
+    @Label("DTO Class")
+    public Class<?> dtoClass;
+}
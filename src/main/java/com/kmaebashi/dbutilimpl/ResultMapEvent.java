@@ -0,0 +1,21 @@
+package com.kmaebashi.dbutilimpl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/* JFRのイベント。ResultSetMapper.toDtoList()でのDTOへの変換を記録する。
+ * ResultSetからは元のSQLがわからないので、SQLのテンプレートは持たない。
+ */
+@Name("com.kmaebashi.dbutil.ResultMap")
+@Label("Result Map")
+@Category("DbUtil")
+@Description("ResultSetからDTOへの変換")
+public final class ResultMapEvent extends jdk.jfr.Event {
+    @Label("DTO Class")
+    public Class<?> dtoClass;
+
+    @Label("Rows Mapped")
+    public long rows;
+}
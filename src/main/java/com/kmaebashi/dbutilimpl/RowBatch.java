@@ -0,0 +1,68 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.ColumnConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/* ResultSetから読み出した行のまとまり。1行を1つのObject[]として保持する。
+ * 呼び出し元のスレッドがfetch()で元のResultSetから値を読み出し、
+ * 別のスレッドがこれをRowSourceとして読み、RowSourceMapperでDTOに変換する。
+ * 値は、列ごとにMappingPlan.getFetchers()のColumnConverter、つまりDTOへの変換が呼ぶのと同じgetterで読み出すので、
+ * 元のResultSetから直接変換した場合と同じ値になる。DTOに対応しない列は読み出さない。
+ */
+public class RowBatch implements RowSource {
+    private final Object[][] rows;
+    private final int rowCount;
+    private int row = -1;
+    private Object[] current;
+
+    private RowBatch(Object[][] rows, int rowCount) {
+        this.rows = rows;
+        this.rowCount = rowCount;
+    }
+
+    /* rsから最大maxRows行を読み出す。1行も読めなければnullを返す。
+     * fetchersは、MappingPlan.getFetchers()。
+     */
+    public static RowBatch fetch(ResultSet rs, ColumnConverter<?>[] fetchers, int maxRows) throws SQLException {
+        Object[][] rows = new Object[maxRows][];
+        int rowCount = 0;
+        while (rowCount < maxRows && rs.next()) {
+            Object[] values = new Object[fetchers.length];
+            for (int i = 0; i < fetchers.length; i++) {
+                if (fetchers[i] != null) {
+                    values[i] = fetchers[i].convert(rs, i + 1);
+                }
+            }
+            rows[rowCount++] = values;
+        }
+        if (rowCount == 0) {
+            return null;
+        }
+        return new RowBatch(rows, rowCount);
+    }
+
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public boolean next() {
+        if (this.row + 1 >= this.rowCount) {
+            this.row = this.rowCount;
+            this.current = null;
+            return false;
+        }
+        this.row++;
+        this.current = this.rows[this.row];
+        // 変換済みの行は参照を外し、DTOへの変換中にまとまり全体を保持し続けないようにする。
+        this.rows[this.row] = null;
+        return true;
+    }
+
+    @Override
+    public Object getValue(int columnIndex) {
+        return this.current[columnIndex - 1];
+    }
+}
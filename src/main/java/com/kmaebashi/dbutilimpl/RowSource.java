@@ -0,0 +1,12 @@
+package com.kmaebashi.dbutilimpl;
+
+/* ResultSetMapper.forEachPipelined()で、変換用のスレッドがDTOに変換する行を読むためのもの。
+ * 値は、呼び出し元のスレッドがMappingPlan.getFetchers()のColumnConverterで読み出しておいたもの。
+ */
+public interface RowSource {
+    // 次の行に進む。行がなければfalseを返す。
+    boolean next();
+
+    // 現在の行のcolumnIndex番目(1から)の列の値。NULLおよび読み出していない列ならnull。
+    Object getValue(int columnIndex);
+}
@@ -0,0 +1,40 @@
+package com.kmaebashi.dbutilimpl;
+
+import java.lang.invoke.MethodHandle;
+
+/* RowSourceの現在の行からDTOを生成する。MappingPlan.getRowSourceMapper()で、結果の形ごとに1回だけ作る。
+ * 列ごとに、ConverterRegistry.fromRaw()で値をフィールドの型にしてからsetterに渡す(Object, Object)void
+ * (writers)か、recordや@TableConstructorの場合は、引数ごとに同じ変換を前置したコンストラクタを
+ * 引数の配列で呼ぶ(Object[])Object(factory)を使う。
+ * 注釈処理が生成したGeneratedDtoMapperはResultSetからしか読めないので、生成したクラスがあるDTOでもこちらを使う。
+ */
+public class RowSourceMapper {
+    private final DtoAccessor accessor;
+    private final int[] columnIndexes;
+    private final MethodHandle[] writers;
+    private final MethodHandle factory;
+
+    RowSourceMapper(DtoAccessor accessor, int[] columnIndexes, MethodHandle[] writers, MethodHandle factory) {
+        this.accessor = accessor;
+        this.columnIndexes = columnIndexes;
+        this.writers = writers;
+        this.factory = factory;
+    }
+
+    public Object map(RowSource row) throws Throwable {
+        if (this.factory != null) {
+            Object[] args = new Object[this.columnIndexes.length];
+            for (int i = 0; i < args.length; i++) {
+                if (this.columnIndexes[i] > 0) {
+                    args[i] = row.getValue(this.columnIndexes[i]);
+                }
+            }
+            return (Object) this.factory.invokeExact(args);
+        }
+        Object dto = this.accessor.newInstance();
+        for (int i = 0; i < this.writers.length; i++) {
+            this.writers[i].invokeExact(dto, row.getValue(this.columnIndexes[i]));
+        }
+        return dto;
+    }
+}
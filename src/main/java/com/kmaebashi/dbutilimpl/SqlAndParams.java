@@ -1,11 +1,195 @@
 package com.kmaebashi.dbutilimpl;
 
+import com.kmaebashi.dbutil.SqlParseException;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* parseSql()の結果。SqlTemplateCacheによってスレッド間で共有されるので、生成後は変更しないこと。
+ * paramNamesは?ごとのパラメタ名(重複あり)、distinctNamesはそれを初登場順に重複なしにしたもの、
+ * positions[i]はdistinctNames[i]が登場する?の位置(1から始まる)の配列。
+ * nullTypes[i]は、distinctNames[i]の値がnullの場合にps.setNull()に渡す型。SQL中で:NAME{INTEGER}のように
+ * 指定されていればその型、なければTypes.NULL。
+ * placeholderOffsets[j]は、j番目の?のsql中の位置。
+ * expandSizes[i]は、distinctNames[i]をIN句用に展開した場合の、1回の登場あたりの?の数(展開していなければ0)。
+ * 展開した場合、positions[i]には、登場ごとにexpandSizes[i]個ずつの位置が並ぶ。
+ * dtoBindersは、このSQLに対してDTOのクラスごとに作ったDtoParameterBinderのキャッシュ。
+ * ClassValueなので、DTOのクラスを強参照で保持せず、DTOのクラスローダが不要になれば一緒に解放される
+ * (値はDtoParameterBinderを後から入れる箱で、作成時の例外はDtoParameterBinder.getInstance()から投げる)。
+ * expansionsは、expand()の結果のキャッシュ。
+ * rowPositionsは、repeatValues()で作った場合の行ごとのpositions(rowPositions[r]はr行目の分で、positionsと同じ形)。
+ * それ以外の場合はnull。repetitionsは、repeatValues()の結果のキャッシュ。
+ */
 class SqlAndParams {
-    String sql;
-    String[] paramNames;
+    final String sql;
+    final String[] paramNames;
+    final String[] distinctNames;
+    final int[][] positions;
+    final int[] nullTypes;
+    final int[] paramTypes;
+    final int[] placeholderOffsets;
+    final int[] expandSizes;
+    final int[][][] rowPositions;
+    final ClassValue<AtomicReference<DtoParameterBinder>> dtoBinders = new ClassValue<>() {
+        @Override
+        protected AtomicReference<DtoParameterBinder> computeValue(Class<?> dtoClass) {
+            return new AtomicReference<>();
+        }
+    };
+    private final ConcurrentHashMap<List<Integer>, SqlAndParams> expansions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, SqlAndParams> repetitions = new ConcurrentHashMap<>();
+
+    SqlAndParams(String sql, String[] paramNames, int[] paramTypes, int[] placeholderOffsets)
+            throws SqlParseException {
+        this(sql, paramNames, paramTypes, placeholderOffsets, null, null);
+    }
 
-    SqlAndParams(String sql, String[] paramNames) {
+    private SqlAndParams(String sql, String[] paramNames, int[] paramTypes, int[] placeholderOffsets,
+                         int[] expandSizes, int[][][] rowPositions) throws SqlParseException {
         this.sql = sql;
+        this.rowPositions = rowPositions;
         this.paramNames = paramNames;
+        this.paramTypes = paramTypes;
+        this.placeholderOffsets = placeholderOffsets;
+
+        // ?ごとに、distinctNamesでの番号を求める。
+        HashMap<String, Integer> nameToIndex = new HashMap<>();
+        int[] distinctIndex = new int[paramNames.length];
+        int[] counts = new int[paramNames.length];
+        int[] types = new int[paramNames.length]; // 初期値の0はTypes.NULL
+        int distinctCount = 0;
+        for (int i = 0; i < paramNames.length; i++) {
+            Integer index = nameToIndex.putIfAbsent(paramNames[i], distinctCount);
+            int idx = index != null ? index : distinctCount++;
+            distinctIndex[i] = idx;
+            counts[idx]++;
+            if (paramTypes[i] != Types.NULL) {
+                if (types[idx] != Types.NULL && types[idx] != paramTypes[i]) {
+                    throw new SqlParseException("パラメタ" + paramNames[i] + "に異なる型が指定されています。");
+                }
+                types[idx] = paramTypes[i];
+            }
+        }
+        this.distinctNames = new String[distinctCount];
+        this.positions = new int[distinctCount][];
+        this.nullTypes = Arrays.copyOf(types, distinctCount);
+        for (int idx = 0; idx < distinctCount; idx++) {
+            this.positions[idx] = new int[counts[idx]];
+            counts[idx] = 0;
+        }
+        for (int i = 0; i < paramNames.length; i++) {
+            int idx = distinctIndex[i];
+            this.distinctNames[idx] = paramNames[i];
+            this.positions[idx][counts[idx]++] = i + 1;
+        }
+        this.expandSizes = expandSizes != null ? expandSizes : new int[this.distinctNames.length];
+    }
+
+    /* sizes[i]が1以上のパラメタについて、SQL中の?を「?, ?, ...」のsizes[i]個に展開したSqlAndParamsを返す。
+     * sizesはdistinctNamesと同じ並び。結果はsizesごとにキャッシュする。
+     */
+    SqlAndParams expand(int[] sizes) throws SqlParseException {
+        List<Integer> key = Arrays.stream(sizes).boxed().toList();
+        SqlAndParams expanded = this.expansions.get(key);
+        if (expanded == null) {
+            expanded = buildExpansion(sizes);
+            SqlAndParams existing = this.expansions.putIfAbsent(key, expanded);
+            if (existing != null) {
+                expanded = existing;
+            }
+        }
+        return expanded;
+    }
+
+    private SqlAndParams buildExpansion(int[] sizes) throws SqlParseException {
+        HashMap<String, Integer> nameToIndex = new HashMap<>();
+        for (int i = 0; i < this.distinctNames.length; i++) {
+            nameToIndex.put(this.distinctNames[i], i);
+        }
+        StringBuilder sb = new StringBuilder();
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<Integer> types = new ArrayList<>();
+        ArrayList<Integer> offsets = new ArrayList<>();
+        int prev = 0;
+        for (int j = 0; j < this.paramNames.length; j++) {
+            sb.append(this.sql, prev, this.placeholderOffsets[j]);
+            int count = Math.max(sizes[nameToIndex.get(this.paramNames[j])], 1);
+            for (int k = 0; k < count; k++) {
+                if (k > 0) {
+                    sb.append(", ");
+                }
+                offsets.add(sb.length());
+                sb.append('?');
+                names.add(this.paramNames[j]);
+                types.add(this.paramTypes[j]);
+            }
+            prev = this.placeholderOffsets[j] + 1;
+        }
+        sb.append(this.sql, prev, this.sql.length());
+        return new SqlAndParams(sb.toString(), names.toArray(new String[0]),
+                                types.stream().mapToInt(Integer::intValue).toArray(),
+                                offsets.stream().mapToInt(Integer::intValue).toArray(), sizes.clone(), null);
+    }
+
+    /* INSERT文のVALUESの(...)を、「(...), (...), ...」とrows行分に繰り返したSqlAndParamsを返す。
+     * パラメタはすべて(...)の中になければならない。結果は行数ごとにキャッシュする。
+     */
+    SqlAndParams repeatValues(int rows) throws SqlParseException {
+        SqlAndParams repeated = this.repetitions.get(rows);
+        if (repeated == null) {
+            repeated = buildRepetition(rows);
+            SqlAndParams existing = this.repetitions.putIfAbsent(rows, repeated);
+            if (existing != null) {
+                repeated = existing;
+            }
+        }
+        return repeated;
+    }
+
+    private SqlAndParams buildRepetition(int rows) throws SqlParseException {
+        int[] tuple = NamedParameterPreparedStatementImpl.findValuesTuple(this.sql);
+        for (int j = 0; j < this.paramNames.length; j++) {
+            if (this.placeholderOffsets[j] < tuple[0] || this.placeholderOffsets[j] >= tuple[1]) {
+                throw new SqlParseException("パラメタ" + this.paramNames[j] + "がVALUESの(...)の外にあります。");
+            }
+        }
+        int tupleLength = tuple[1] - tuple[0];
+        StringBuilder sb = new StringBuilder(this.sql.length() + (tupleLength + 2) * (rows - 1));
+        sb.append(this.sql, 0, tuple[1]);
+        int perRow = this.paramNames.length;
+        String[] names = new String[perRow * rows];
+        int[] types = new int[perRow * rows];
+        int[] offsets = new int[perRow * rows];
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) {
+                sb.append(", ");
+                sb.append(this.sql, tuple[0], tuple[1]);
+            }
+            int shift = sb.length() - tuple[1];
+            for (int j = 0; j < perRow; j++) {
+                names[r * perRow + j] = this.paramNames[j];
+                types[r * perRow + j] = this.paramTypes[j];
+                offsets[r * perRow + j] = this.placeholderOffsets[j] + shift;
+            }
+        }
+        sb.append(this.sql, tuple[1], this.sql.length());
+
+        // r行目の?の位置は、1行目の位置に、1行あたりの?の数のr倍を足したもの。
+        int[][][] rowPositions = new int[rows][this.positions.length][];
+        for (int r = 0; r < rows; r++) {
+            for (int i = 0; i < this.positions.length; i++) {
+                int[] shifted = new int[this.positions[i].length];
+                for (int k = 0; k < shifted.length; k++) {
+                    shifted[k] = this.positions[i][k] + r * perRow;
+                }
+                rowPositions[r][i] = shifted;
+            }
+        }
+        return new SqlAndParams(sb.toString(), names, types, offsets, null, rowPositions);
     }
 }
@@ -0,0 +1,20 @@
+package com.kmaebashi.dbutilimpl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/* JFRのイベント。SqlTemplateCacheにないSQLをparseSql()でパースした時に記録する。
+ */
+@Name("com.kmaebashi.dbutil.SqlParse")
+@Label("SQL Parse")
+@Category("DbUtil")
+@Description("名前付きパラメタを含むSQLのパース")
+public final class SqlParseEvent extends jdk.jfr.Event {
+    @Label("SQL Template")
+    public String sqlTemplate;
+
+    @Label("Parameter Count")
+    public int paramCount;
+}
@@ -0,0 +1,118 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.SqlParseException;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/* 名前付きパラメタを含むSQLをパースした結果(SqlAndParams)のキャッシュ。
+ * 元のSQL文字列をキーとし、全スレッド・全コネクションで共有する。
+ * 件数の上限を超えた場合は、CLOCK方式(LRUの近似)で最近使われていないものから追い出す。
+ */
+public class SqlTemplateCache {
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final SqlTemplateCache instance = new SqlTemplateCache(DEFAULT_MAX_SIZE);
+
+    private final ConcurrentHashMap<String, Entry> map = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private volatile int maxSize;
+
+    SqlTemplateCache(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    public static SqlTemplateCache getInstance() {
+        return instance;
+    }
+
+    SqlAndParams get(String srcSql) throws SqlParseException {
+        Entry entry = this.map.get(srcSql);
+        if (entry != null) {
+            this.hitCount.increment();
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.template;
+        }
+        this.missCount.increment();
+        SqlParseEvent event = new SqlParseEvent();
+        event.begin();
+        SqlAndParams template = NamedParameterPreparedStatementImpl.parseSql(srcSql);
+        if (event.shouldCommit()) {
+            event.sqlTemplate = template.sql;
+            event.paramCount = template.paramNames.length;
+            event.commit();
+        }
+        Entry existing = this.map.putIfAbsent(srcSql, new Entry(template));
+        if (existing != null) {
+            return existing.template;
+        }
+        if (this.map.size() > this.maxSize) {
+            evict();
+        }
+        return template;
+    }
+
+    private synchronized void evict() {
+        // 参照ビットが立っているものはビットを落として一周分だけ見逃す。
+        while (this.map.size() > this.maxSize) {
+            Iterator<Entry> it = this.map.values().iterator();
+            while (it.hasNext() && this.map.size() > this.maxSize) {
+                Entry entry = it.next();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    it.remove();
+                    this.evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    public int size() {
+        return this.map.size();
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSizeには1以上を指定してください(" + maxSize + ")。");
+        }
+        this.maxSize = maxSize;
+        if (this.map.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public void clear() {
+        this.map.clear();
+    }
+
+    private static class Entry {
+        final SqlAndParams template;
+        volatile boolean referenced;
+
+        Entry(SqlAndParams template) {
+            this.template = template;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.kmaebashi.dbutilimpl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* コネクションごとのPreparedStatementのキャッシュ。
+ * NamedParameterPreparedStatementの生成時にcheckout()で取り出し、close()時にrelease()で戻す。
+ * 使用中のPreparedStatementはキャッシュから外れているので、同じSQLのNamedParameterPreparedStatementを
+ * 同時に複数使っても、PreparedStatementを共有してしまうことはない。
+ * 空いているPreparedStatementはSQLごとに1個までとし、件数の上限を超えたら、
+ * 最も長く使われていないものをクローズして追い出す。
+ * キャッシュに戻す際には、開いているResultSetをクローズし、fetch size、max rows、query timeoutを
+ * 作成直後の値に戻す(次に同じSQLで取り出した側に、前の利用者の設定が残らないように)。
+ * 戻せなかったPreparedStatementは、キャッシュに入れずにクローズする。
+ */
+public class StatementCache {
+    private final Connection conn;
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> idleStatements
+            = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean defaultsKnown;
+    private int defaultFetchSize;
+    private int defaultMaxRows;
+    private int defaultQueryTimeout;
+    private long hitCount;
+    private long missCount;
+    private boolean closed;
+
+    public StatementCache(Connection conn, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSizeには1以上を指定してください(" + maxSize + ")。");
+        }
+        this.conn = conn;
+        this.maxSize = maxSize;
+    }
+
+    /* connがNamedParameterPreparedStatement.withStatementCache()等で作られたコネクションであれば、
+     * そのStatementCacheを返す。そうでなければnullを返す。
+     */
+    public static StatementCache of(Connection conn) {
+        if (conn != null && Proxy.isProxyClass(conn.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(conn);
+            if (handler instanceof StatementCacheProvider provider) {
+                return provider.getStatementCache();
+            }
+        }
+        return null;
+    }
+
+    synchronized PreparedStatement checkout(String sql) throws SQLException {
+        PreparedStatement ps = this.idleStatements.remove(sql);
+        if (ps != null && !ps.isClosed()) {
+            this.hitCount++;
+            return ps;
+        }
+        this.missCount++;
+        ps = this.conn.prepareStatement(sql);
+        if (!this.defaultsKnown) {
+            this.defaultFetchSize = ps.getFetchSize();
+            this.defaultMaxRows = ps.getMaxRows();
+            this.defaultQueryTimeout = ps.getQueryTimeout();
+            this.defaultsKnown = true;
+        }
+        return ps;
+    }
+
+    synchronized void release(String sql, PreparedStatement ps) throws SQLException {
+        if (ps.isClosed()) {
+            return;
+        }
+        if (this.closed || this.idleStatements.containsKey(sql)) {
+            ps.close();
+            return;
+        }
+        try {
+            reset(ps);
+        } catch (SQLException ex) {
+            ps.close();
+            return;
+        }
+        this.idleStatements.put(sql, ps);
+        Iterator<Map.Entry<String, PreparedStatement>> it = this.idleStatements.entrySet().iterator();
+        while (this.idleStatements.size() > this.maxSize && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            it.remove();
+            eldest.close();
+        }
+    }
+
+    private void reset(PreparedStatement ps) throws SQLException {
+        ResultSet rs = ps.getResultSet();
+        if (rs != null) {
+            rs.close();
+        }
+        ps.clearParameters();
+        ps.clearBatch();
+        ps.clearWarnings();
+        ps.setFetchSize(this.defaultFetchSize);
+        ps.setMaxRows(this.defaultMaxRows);
+        ps.setQueryTimeout(this.defaultQueryTimeout);
+    }
+
+    public synchronized void closeAll() throws SQLException {
+        this.closed = true;
+        SQLException error = null;
+        for (PreparedStatement ps : this.idleStatements.values()) {
+            try {
+                ps.close();
+            } catch (SQLException ex) {
+                if (error == null) {
+                    error = ex;
+                } else {
+                    error.addSuppressed(ex);
+                }
+            }
+        }
+        this.idleStatements.clear();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    public synchronized int size() {
+        return this.idleStatements.size();
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+}
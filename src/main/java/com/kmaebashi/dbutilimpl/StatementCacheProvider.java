@@ -0,0 +1,7 @@
+package com.kmaebashi.dbutilimpl;
+
+/* StatementCacheを持つコネクション(Proxy)のInvocationHandlerが実装するインタフェース。
+ */
+interface StatementCacheProvider {
+    StatementCache getStatementCache();
+}
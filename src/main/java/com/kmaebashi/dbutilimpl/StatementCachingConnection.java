@@ -0,0 +1,55 @@
+package com.kmaebashi.dbutilimpl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/* NamedParameterPreparedStatement.withStatementCache()が返すコネクションの実体。
+ * close()でキャッシュしているPreparedStatementをクローズしてから元のコネクションをクローズする。
+ * それ以外のメソッドは元のコネクションにそのまま委譲する。
+ */
+public class StatementCachingConnection implements InvocationHandler, StatementCacheProvider {
+    private final Connection physical;
+    private final StatementCache statementCache;
+
+    private StatementCachingConnection(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.statementCache = new StatementCache(physical, maxSize);
+    }
+
+    public static Connection wrap(Connection conn, int maxSize) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                   new Class<?>[] {Connection.class},
+                                                   new StatementCachingConnection(conn, maxSize));
+    }
+
+    @Override
+    public StatementCache getStatementCache() {
+        return this.statementCache;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        int argCount = args == null ? 0 : args.length;
+        if (name.equals("equals") && argCount == 1) {
+            return proxy == args[0];
+        } else if (name.equals("hashCode") && argCount == 0) {
+            return System.identityHashCode(proxy);
+        } else if (name.equals("close") && argCount == 0) {
+            try {
+                this.statementCache.closeAll();
+            } finally {
+                this.physical.close();
+            }
+            return null;
+        }
+        try {
+            return method.invoke(this.physical, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.kmaebashi.dbutilimpl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/* JFRのイベント。NamedParameterPreparedStatementの生成(テンプレートの取得とPreparedStatementの作成)を記録する。
+ */
+@Name("com.kmaebashi.dbutil.StatementPrepare")
+@Label("Statement Prepare")
+@Category("DbUtil")
+@Description("NamedParameterPreparedStatementの生成")
+public final class StatementPrepareEvent extends jdk.jfr.Event {
+    @Label("SQL Template")
+    public String sqlTemplate;
+
+    @Label("Parameter Count")
+    public int paramCount;
+
+    @Label("Statement Cache Used")
+    public boolean statementCacheUsed;
+}
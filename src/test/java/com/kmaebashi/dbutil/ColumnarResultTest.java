@@ -0,0 +1,134 @@
+package com.kmaebashi.dbutil;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.ResourceBundle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarResultTest {
+    private static Connection conn;
+    @BeforeAll
+    static void connectDb() throws Exception {
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+
+        Class.forName(rb.getString("dbutiltest.driver-class-name"));
+        conn = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+    }
+
+    @AfterAll
+    static void closeDb() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void columnarResultTest001() throws Exception {
+        String sql = """
+                SELECT TEST_KEY, INT_VAL, REAL_VAL, BOOLEAN_VAL, DATE_VAL, TIMESTAMP_VAL
+                FROM RESULTSETMAPPERTEST
+                ORDER BY TEST_KEY
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        ColumnarResult result = ColumnarResult.of(rs);
+
+        assertEquals(2, result.getRowCount());
+        assertEquals(6, result.getColumnCount());
+        int intCol = result.findColumn("int_val");
+        int realCol = result.findColumn("REAL_VAL");
+        int boolCol = result.findColumn("BOOLEAN_VAL");
+        assertEquals(1, intCol);
+        assertEquals(-1, result.findColumn("NO_SUCH_COLUMN"));
+
+        // 配列は行数に合わせて切り詰めないので、先頭のgetRowCount()個だけを見る。
+        assertArrayEquals(new int[] {10, 0}, Arrays.copyOf(result.getIntColumn(intCol), result.getRowCount()));
+        assertArrayEquals(new double[] {10.5, 0.0},
+                          Arrays.copyOf(result.getDoubleColumn(realCol), result.getRowCount()));
+        assertTrue(result.getBoolean(boolCol, 0));
+        assertFalse(result.getBoolean(boolCol, 1));
+        assertFalse(result.isNull(intCol, 0));
+        assertTrue(result.isNull(intCol, 1));
+        assertTrue(result.isNull(boolCol, 1));
+        assertEquals(1, result.getNullBitmap(realCol).cardinality());
+
+        assertEquals("test01", result.getObject(0, 0));
+        assertEquals(10, result.getObject(intCol, 0));
+        assertNull(result.getObject(intCol, 1));
+        assertEquals(LocalDate.of(2023, 11, 5), result.getObject(4, 0));
+        assertEquals(LocalDateTime.of(2023, 11, 4, 23, 15, 30), result.getObject(5, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> result.getInt(realCol, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> result.getInt(intCol, 2));
+    }
+
+    @Test
+    void columnarResultTest002() throws Exception {
+        String sql = """
+                SELECT I AS INT_VAL, I % 3 = 0 AS BOOL_VAL
+                FROM GENERATE_SERIES(1, 1000) AS I
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        ColumnarResult result = ColumnarResult.of(rs);
+
+        assertEquals(1000, result.getRowCount());
+        long sum = 0;
+        int[] values = result.getIntColumn(0);
+        for (int i = 0; i < result.getRowCount(); i++) {
+            sum += values[i];
+        }
+        assertEquals(500500, sum);
+        assertEquals(333, result.getBooleanColumn(1).cardinality());
+    }
+
+    @Test
+    void columnarResultTest003() throws Exception {
+        String sql = """
+                SELECT CAST(I AS smallint) AS SHORT_VAL, CAST(I AS bigint) * 10000000000 AS LONG_VAL,
+                  CAST(I AS double precision) / 4 AS DOUBLE_VAL, CAST(I AS numeric) / 8 AS NUMERIC_VAL,
+                  CAST('\\x0102' AS bytea) AS BYTES_VAL,
+                  CAST('00000000-0000-0000-0000-00000000000' || I AS uuid) AS UUID_VAL
+                FROM GENERATE_SERIES(1, 3) AS I
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        ColumnarResult result = ColumnarResult.of(rs);
+
+        assertEquals(3, result.getRowCount());
+        assertEquals(2, result.getInt(0, 1));
+        assertEquals(2L, result.getLong(0, 1));
+        assertEquals(20000000000L, result.getLongColumn(1)[1]);
+        assertEquals(0.5, result.getDoubleColumn(2)[1]);
+        assertEquals(0.25, result.getDouble(3, 1));
+        assertArrayEquals(new byte[] {1, 2}, (byte[]) result.getObject(4, 0));
+        assertEquals("00000000-0000-0000-0000-000000000003", result.getObject(5, 2));
+        assertThrows(IllegalArgumentException.class, () -> result.getLongColumn(0));
+    }
+
+    @Test
+    void columnarResultTestError001() throws Exception {
+        String sql = """
+                SELECT ARRAY[1, 2] AS ARRAY_VAL
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        try {
+            ColumnarResult.of(rs);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof UnsupportedTypeException);
+            assertEquals("java.sql.Typesの2003は未対応です。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+}
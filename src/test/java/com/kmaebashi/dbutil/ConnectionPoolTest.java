@@ -0,0 +1,182 @@
+package com.kmaebashi.dbutil;
+
+import com.kmaebashi.dbutilimpl.StatementCache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.jdbc.PgConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+    private static String url;
+    private static String user;
+    private static String password;
+
+    @BeforeAll
+    static void loadSettings() throws Exception {
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+
+        Class.forName(rb.getString("dbutiltest.driver-class-name"));
+        url = rb.getString("dbutiltest.url");
+        user = rb.getString("dbutiltest.user-name");
+        password = rb.getString("dbutiltest.password");
+    }
+
+    @Test
+    void connectionPoolTest001() throws Exception {
+        String sql = """
+                SELECT * FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = :TEST_KEY
+                """;
+        try (ConnectionPool pool = ConnectionPool.newInstance(url, user, password, 2)) {
+            PreparedStatement firstPs;
+            try (Connection conn = pool.getConnection()) {
+                assertEquals(1, pool.getActiveCount());
+                try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+                    npps.setParameters(Map.of("TEST_KEY", "test01"));
+                    ResultSet rs = npps.executeQuery();
+                    assertEquals("test01", ResultSetMapper.toDto(rs, ResultSetMapperTestDto.class).testKey);
+                    firstPs = npps.getPreparedStatement();
+                }
+            }
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(1, pool.getIdleCount());
+
+            // プールに戻しても、PreparedStatementのキャッシュは残っている。
+            try (Connection conn = pool.getConnection()) {
+                try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+                    assertSame(firstPs, npps.getPreparedStatement());
+                }
+                assertEquals(1, StatementCache.of(conn).getHitCount());
+            }
+            assertEquals(1, pool.getCreatedCount());
+            assertEquals(2, pool.getAcquireCount());
+            assertEquals(1, pool.getTotalCount());
+        }
+    }
+
+    @Test
+    void connectionPoolTest002() throws Exception {
+        try (ConnectionPool pool = ConnectionPool.newInstance(url, user, password, 1)) {
+            Connection conn = pool.getConnection();
+            conn.setAutoCommit(false);
+            conn.close();
+            assertTrue(conn.isClosed());
+            assertFalse(conn.isValid(1));
+            try {
+                conn.createStatement();
+                fail();
+            } catch (SQLException ex) {
+                assertEquals("コネクションはクローズされています。", ex.getMessage());
+            }
+            // 2回目のclose()は何もしない。
+            conn.close();
+            assertEquals(1, pool.getIdleCount());
+
+            try (Connection conn2 = pool.getConnection()) {
+                assertTrue(conn2.getAutoCommit());
+                assertNotEquals(conn, conn2);
+            }
+            assertEquals(1, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    void connectionPoolTest003() throws Exception {
+        try (ConnectionPool pool = ConnectionPool.newInstance(url, user, password, 1)) {
+            pool.setMaxLifetimeMillis(0);
+            pool.setValidationIntervalMillis(0);
+            try (Connection conn = pool.getConnection()) {
+                assertTrue(conn.isValid(1));
+            }
+            Thread.sleep(5);
+            assertEquals(0, pool.getIdleCount());
+            assertEquals(1, pool.getEvictedCount());
+            try (Connection conn = pool.getConnection()) {
+                assertTrue(conn.isValid(1));
+            }
+            assertEquals(2, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    void connectionPoolTest004() throws Exception {
+        try (ConnectionPool pool = ConnectionPool.newInstance(url, user, password, 1)) {
+            Connection conn = pool.getConnection();
+            int isolation = conn.getTransactionIsolation();
+            String schema = conn.getSchema();
+            conn.setReadOnly(true);
+            conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            conn.setSchema("pg_catalog");
+            conn.setAutoCommit(false);
+            conn.close();
+
+            // 貸し出し中に変更した設定は、プールに戻す時に元に戻す。
+            try (Connection conn2 = pool.getConnection()) {
+                assertTrue(conn2.getAutoCommit());
+                assertFalse(conn2.isReadOnly());
+                assertEquals(isolation, conn2.getTransactionIsolation());
+                assertEquals(schema, conn2.getSchema());
+            }
+            assertEquals(1, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    void connectionPoolTest005() throws Exception {
+        try (ConnectionPool pool = ConnectionPool.newInstance(url, user, password, 1)) {
+            // Connectionを継承しないインタフェースへのunwrap()は、プールに戻した後は使えない。
+            Connection conn = pool.getConnection();
+            PGConnection pgConn = conn.unwrap(PGConnection.class);
+            assertNotNull(pgConn.getCopyAPI());
+            assertSame(conn, conn.unwrap(Connection.class));
+            conn.close();
+            try {
+                pgConn.getCopyAPI();
+                fail();
+            } catch (SQLException ex) {
+                assertEquals("コネクションはクローズされています。", ex.getMessage());
+            }
+            assertEquals(1, pool.getIdleCount());
+
+            // 物理的なコネクションを渡した場合は、プールに戻さずに破棄する。
+            try (Connection conn2 = pool.getConnection()) {
+                assertNotNull(conn2.unwrap(PgConnection.class));
+            }
+            assertEquals(0, pool.getIdleCount());
+            assertEquals(1, pool.getEvictedCount());
+        }
+    }
+
+    @Test
+    void connectionPoolTestError001() throws Exception {
+        ConnectionPool pool = ConnectionPool.newInstance(url, user, password, 1);
+        pool.setConnectionTimeoutMillis(100);
+        try (Connection conn = pool.getConnection()) {
+            try {
+                pool.getConnection();
+                fail();
+            } catch (SQLException ex) {
+                assertEquals("コネクションの取得がタイムアウトしました(100ms)。", ex.getMessage());
+            }
+            assertEquals(1, pool.getTimeoutCount());
+            assertTrue(pool.getMaxWaitNanos() >= 100_000_000L);
+        }
+        pool.close();
+        assertEquals(0, pool.getTotalCount());
+        try {
+            pool.getConnection();
+            fail();
+        } catch (SQLException ex) {
+            assertEquals("コネクションプールはクローズされています。", ex.getMessage());
+        }
+    }
+}
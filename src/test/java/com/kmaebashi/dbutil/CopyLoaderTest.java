@@ -0,0 +1,175 @@
+package com.kmaebashi.dbutil;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CopyLoaderTest {
+    private static Connection conn;
+    @BeforeAll
+    static void connectDb() throws Exception {
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+
+        Class.forName(rb.getString("dbutiltest.driver-class-name"));
+        conn = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+    }
+
+    @AfterAll
+    static void closeDb() throws Exception {
+        conn.close();
+    }
+
+    @AfterEach
+    void deleteRows() throws Exception {
+        conn.prepareStatement("DELETE FROM NAMEDPARAMETERINSERTTEST").executeUpdate();
+    }
+
+    private static List<CopyLoaderTestDto> createRows() {
+        List<CopyLoaderTestDto> rows = new ArrayList<>();
+        CopyLoaderTestDto dto1 = new CopyLoaderTestDto();
+        dto1.testKey = "copytest01";
+        dto1.intVal = -10;
+        dto1.realVal = 10.5;
+        dto1.boolVal = true;
+        dto1.strVal = "a\tb\nc\\d\r日本語";
+        dto1.dateVal = LocalDate.of(2023, 11, 4);
+        dto1.timestampVal = LocalDateTime.of(2023, 11, 4, 23, 15, 15, 123456000);
+        rows.add(dto1);
+
+        CopyLoaderTestDto dto2 = new CopyLoaderTestDto();
+        dto2.testKey = "copytest02";
+        rows.add(dto2);
+        return rows;
+    }
+
+    private static List<CopyLoaderTestDto> selectRows() throws Exception {
+        ResultSet rs = conn.prepareStatement("""
+                SELECT * FROM NAMEDPARAMETERINSERTTEST
+                ORDER BY TEST_KEY
+                """).executeQuery();
+        return ResultSetMapper.toDtoList(rs, CopyLoaderTestDto.class);
+    }
+
+    private static void assertRows(List<CopyLoaderTestDto> expected, List<CopyLoaderTestDto> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).testKey, actual.get(i).testKey);
+            assertEquals(expected.get(i).intVal, actual.get(i).intVal);
+            assertEquals(expected.get(i).realVal, actual.get(i).realVal);
+            assertEquals(expected.get(i).boolVal, actual.get(i).boolVal);
+            assertEquals(expected.get(i).strVal, actual.get(i).strVal);
+            assertEquals(expected.get(i).dateVal, actual.get(i).dateVal);
+            assertEquals(expected.get(i).timestampVal, actual.get(i).timestampVal);
+        }
+    }
+
+    @Test
+    void copyInTest001() throws Exception {
+        List<CopyLoaderTestDto> rows = createRows();
+        long count = CopyLoader.copyIn(conn, "NAMEDPARAMETERINSERTTEST", CopyLoaderTestDto.class,
+                                       rows, CopyLoader.Format.TEXT);
+        assertEquals(2, count);
+        assertRows(rows, selectRows());
+    }
+
+    @Test
+    void copyInTest002() throws Exception {
+        List<CopyLoaderTestDto> rows = createRows();
+        long count = CopyLoader.copyIn(conn, "NAMEDPARAMETERINSERTTEST", CopyLoaderTestDto.class,
+                                       rows, CopyLoader.Format.BINARY);
+        assertEquals(2, count);
+        assertRows(rows, selectRows());
+    }
+
+    @Test
+    void copyInTest003() throws Exception {
+        long count = CopyLoader.copyIn(conn, "NAMEDPARAMETERINSERTTEST", CopyLoaderTestDto.class,
+                                       IntStream.range(0, 10000).mapToObj(i -> {
+                                           CopyLoaderTestDto dto = new CopyLoaderTestDto();
+                                           dto.testKey = String.format("copytest%05d", i);
+                                           dto.intVal = i;
+                                           dto.strVal = "str" + i;
+                                           return dto;
+                                       }), CopyLoader.Format.TEXT);
+        assertEquals(10000, count);
+        ResultSet rs = conn.prepareStatement("""
+                SELECT COUNT(*), SUM(INT_VAL) FROM NAMEDPARAMETERINSERTTEST
+                """).executeQuery();
+        rs.next();
+        assertEquals(10000, rs.getInt(1));
+        assertEquals(49995000L, rs.getLong(2));
+    }
+
+    @Test
+    void copyInTest004() throws Exception {
+        // スキーマ名を付けたテーブル名や、"で囲んだ名前も使える。
+        CopyLoaderTestDto dto = new CopyLoaderTestDto();
+        dto.testKey = "copytest01";
+        dto.intVal = 1;
+        dto.strVal = "abc";
+        String tableName = conn.getSchema() + ".\"namedparameterinserttest\"";
+        assertEquals(1, CopyLoader.copyIn(conn, tableName, CopyLoaderTestDto.class, List.of(dto),
+                                          CopyLoader.Format.TEXT));
+        assertRows(List.of(dto), selectRows());
+    }
+
+    @Test
+    void copyInTestError001() throws Exception {
+        try {
+            CopyLoader.copyIn(conn, "RESULTSETMAPPERTEST2", ResultSetMapperErrorDto2.class,
+                              List.of(new ResultSetMapperErrorDto2()), CopyLoader.Format.BINARY);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof UnsupportedTypeException);
+            assertEquals("型doubleの値をnumeric型の列にバイナリ形式でCOPYできません(フィールド:numericVal)。",
+                         ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void copyInTestError002() throws Exception {
+        try {
+            CopyLoader.copyIn(conn, "NAMEDPARAMETERINSERTTEST (TEST_KEY) FROM STDIN; DROP TABLE X; --",
+                              CopyLoaderTestDto.class, List.of(new CopyLoaderTestDto()), CopyLoader.Format.TEXT);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof IllegalArgumentException);
+            assertEquals("テーブル名NAMEDPARAMETERINSERTTEST (TEST_KEY) FROM STDIN; DROP TABLE X; --"
+                         + "は識別子として不正です。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void copyInTestError003() throws Exception {
+        try {
+            CopyLoader.copyIn(conn, "NAMEDPARAMETERINSERTTEST", BadColumnDto.class,
+                              List.of(new BadColumnDto()), CopyLoader.Format.TEXT);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof IllegalArgumentException);
+            assertEquals("列名TEST_KEY) FROM STDIN; --は識別子として不正です(フィールド:testKey)。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    static class BadColumnDto {
+        @TableColumn("TEST_KEY) FROM STDIN; --")
+        String testKey;
+    }
+}
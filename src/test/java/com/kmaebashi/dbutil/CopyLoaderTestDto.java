@@ -0,0 +1,27 @@
+package com.kmaebashi.dbutil;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class CopyLoaderTestDto {
+    @TableColumn("TEST_KEY")
+    public String testKey;
+
+    @TableColumn("INT_VAL")
+    public int intVal;
+
+    @TableColumn("REAL_VAL")
+    public double realVal;
+
+    @TableColumn("BOOL_VAL")
+    public Boolean boolVal;
+
+    @TableColumn("STR_VAL")
+    public String strVal;
+
+    @TableColumn("DATE_VAL")
+    public LocalDate dateVal;
+
+    @TableColumn("TIMESTAMP_VAL")
+    public LocalDateTime timestampVal;
+}
@@ -0,0 +1,77 @@
+package com.kmaebashi.dbutil;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionStatisticsTest {
+    private static Connection conn;
+    @BeforeAll
+    static void connectDb() throws Exception {
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+
+        Class.forName(rb.getString("dbutiltest.driver-class-name"));
+        conn = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+    }
+
+    @AfterAll
+    static void closeDb() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void executionStatisticsTest001() throws Exception {
+        String sql = """
+                SELECT * FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY LIKE :TEST_KEY
+                ORDER BY TEST_KEY
+                """;
+        String template = """
+                SELECT * FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY LIKE ?
+                ORDER BY TEST_KEY
+                """;
+        ExecutionStatistics stats = new ExecutionStatistics();
+        ExecutionListener.register(stats);
+        try {
+            for (int i = 0; i < 3; i++) {
+                try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+                    npps.setParameters(Map.of("TEST_KEY", "test%"));
+                    ResultSet rs = npps.executeQuery();
+                    List<ResultSetMapperTestDto> list = ResultSetMapper.toDtoList(rs, ResultSetMapperTestDto.class);
+                    assertEquals(2, list.size());
+                }
+            }
+        } finally {
+            ExecutionListener.unregister(stats);
+        }
+        for (ExecutionPhase phase : new ExecutionPhase[] {ExecutionPhase.PREPARE, ExecutionPhase.BIND,
+                                                          ExecutionPhase.EXECUTE}) {
+            ExecutionStatistics.Entry entry = stats.getEntry(phase, template);
+            assertEquals(3, entry.getCount());
+            assertTrue(entry.getTotalNanos() > 0);
+            assertTrue(entry.getMaxNanos() <= entry.getTotalNanos());
+            assertTrue(entry.getPercentileNanos(50) <= entry.getMaxNanos());
+        }
+        ExecutionStatistics.Entry mapEntry = stats.getEntry(ExecutionPhase.MAP, ResultSetMapperTestDto.class.getName());
+        assertEquals(3, mapEntry.getCount());
+        assertEquals(6, mapEntry.getRowCount());
+        assertEquals(4, stats.getEntries().size());
+
+        // 削除後は通知されない。
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+            npps.setParameters(Map.of("TEST_KEY", "test%"));
+        }
+        assertEquals(3, stats.getEntry(ExecutionPhase.PREPARE, template).getCount());
+    }
+}
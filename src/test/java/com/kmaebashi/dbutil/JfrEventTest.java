@@ -0,0 +1,82 @@
+package com.kmaebashi.dbutil;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventTest {
+    private static Connection conn;
+    @BeforeAll
+    static void connectDb() throws Exception {
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+
+        Class.forName(rb.getString("dbutiltest.driver-class-name"));
+        conn = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+    }
+
+    @AfterAll
+    static void closeDb() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void jfrEventTest001() throws Exception {
+        String sql = """
+                -- JfrEventTest
+                SELECT * FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY LIKE :TEST_KEY
+                """;
+        String template = """
+                -- JfrEventTest
+                SELECT * FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY LIKE ?
+                """;
+        Path file = Files.createTempFile("dbutil", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : new String[] {"SqlParse", "StatementPrepare", "ParameterBind", "ResultMap"}) {
+                recording.enable("com.kmaebashi.dbutil." + name);
+            }
+            recording.start();
+            try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+                npps.setParameters(Map.of("TEST_KEY", "test%"));
+                ResultSet rs = npps.executeQuery();
+                ResultSetMapper.toDtoList(rs, ResultSetMapperTestDto.class);
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        Map<String, RecordedEvent> events
+                = RecordingFile.readAllEvents(file).stream()
+                               .collect(Collectors.toMap(e -> e.getEventType().getName(), e -> e, (a, b) -> a));
+        Files.delete(file);
+
+        RecordedEvent parse = events.get("com.kmaebashi.dbutil.SqlParse");
+        assertEquals(template, parse.getString("sqlTemplate"));
+        assertEquals(1, parse.getInt("paramCount"));
+        RecordedEvent prepare = events.get("com.kmaebashi.dbutil.StatementPrepare");
+        assertEquals(template, prepare.getString("sqlTemplate"));
+        assertFalse(prepare.getBoolean("statementCacheUsed"));
+        RecordedEvent bind = events.get("com.kmaebashi.dbutil.ParameterBind");
+        assertEquals(template, bind.getString("sqlTemplate"));
+        assertNull(bind.getClass("dtoClass"));
+        RecordedEvent map = events.get("com.kmaebashi.dbutil.ResultMap");
+        assertEquals(ResultSetMapperTestDto.class.getName(), map.getClass("dtoClass").getName());
+        assertEquals(2, map.getLong("rows"));
+    }
+}
@@ -0,0 +1,188 @@
+package com.kmaebashi.dbutil;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiRowInsertTest {
+    private static final String INSERT_SQL = """
+            INSERT INTO NAMEDPARAMETERINSERTTEST (TEST_KEY, INT_VAL, REAL_VAL, BOOL_VAL, STR_VAL, DATE_VAL)
+            VALUES (:TEST_KEY, :INT_VAL, :REAL_VAL, :BOOL_VAL, :STR_VAL, :DATE_VAL{DATE})
+            """;
+
+    private static Connection conn;
+    @BeforeAll
+    static void connectDb() throws Exception {
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+
+        Class.forName(rb.getString("dbutiltest.driver-class-name"));
+        conn = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+    }
+
+    @AfterAll
+    static void closeDb() throws Exception {
+        conn.close();
+    }
+
+    @AfterEach
+    void deleteRows() throws Exception {
+        conn.prepareStatement("DELETE FROM NAMEDPARAMETERINSERTTEST").executeUpdate();
+    }
+
+    private static List<CopyLoaderTestDto> createRows(int count) {
+        List<CopyLoaderTestDto> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CopyLoaderTestDto dto = new CopyLoaderTestDto();
+            dto.testKey = String.format("multi%05d", i);
+            dto.intVal = i;
+            dto.realVal = i + 0.5;
+            dto.boolVal = i % 3 == 0 ? null : i % 2 == 0;
+            dto.strVal = i % 5 == 0 ? null : "str'" + i;
+            dto.dateVal = LocalDate.of(2023, 11, 1).plusDays(i % 30);
+            rows.add(dto);
+        }
+        return rows;
+    }
+
+    private static List<CopyLoaderTestDto> selectRows() throws Exception {
+        ResultSet rs = conn.prepareStatement("""
+                SELECT * FROM NAMEDPARAMETERINSERTTEST
+                ORDER BY TEST_KEY
+                """).executeQuery();
+        return ResultSetMapper.toDtoList(rs, CopyLoaderTestDto.class);
+    }
+
+    @Test
+    void multiRowInsertTest001() throws Exception {
+        List<CopyLoaderTestDto> rows = createRows(1000);
+        // 文ごとの実行回数と行数を、SQLごとに記録する。
+        TreeMap<Integer, Integer> statementsByRows = new TreeMap<>();
+        ExecutionListener listener = (phase, sql, dtoClass, elapsedNanos, rowCount) -> {
+            if (phase == ExecutionPhase.EXECUTE) {
+                statementsByRows.merge((int) rowCount, 1, Integer::sum);
+            }
+        };
+        ExecutionListener.register(listener);
+        long count;
+        try {
+            count = MultiRowInsert.insert(conn, INSERT_SQL, rows, 100);
+        } finally {
+            ExecutionListener.unregister(listener);
+        }
+        assertEquals(1000, count);
+        // 100行は64行に切り下げ、端数の40行は32行と8行に分ける。
+        assertEquals(Map.of(64, 15, 32, 1, 8, 1), statementsByRows);
+
+        List<CopyLoaderTestDto> actual = selectRows();
+        assertEquals(1000, actual.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(rows.get(i).testKey, actual.get(i).testKey);
+            assertEquals(rows.get(i).intVal, actual.get(i).intVal);
+            assertEquals(rows.get(i).realVal, actual.get(i).realVal);
+            assertEquals(rows.get(i).boolVal, actual.get(i).boolVal);
+            assertEquals(rows.get(i).strVal, actual.get(i).strVal);
+            assertEquals(rows.get(i).dateVal, actual.get(i).dateVal);
+            assertNull(actual.get(i).timestampVal);
+        }
+    }
+
+    @Test
+    void multiRowInsertTest002() throws Exception {
+        String sql = """
+                INSERT INTO NAMEDPARAMETERINSERTTEST (TEST_KEY, INT_VAL, STR_VAL)
+                VALUES (:TEST_KEY, :INT_VAL * 2, 'VALUES (' || :STR_VAL || ')') -- VALUES (x)
+                RETURNING TEST_KEY, INT_VAL, STR_VAL
+                """;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            HashMap<String, Object> row = new HashMap<>();
+            row.put("TEST_KEY", "returning" + (4 - i));
+            row.put("INT_VAL", i);
+            row.put("STR_VAL", "s" + i);
+            rows.add(row);
+        }
+        List<CopyLoaderTestDto> list = MultiRowInsert.insertReturning(conn, sql, rows, CopyLoaderTestDto.class, 4);
+        assertEquals(5, list.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("returning" + (4 - i), list.get(i).testKey);
+            assertEquals(i * 2, list.get(i).intVal);
+            assertEquals("VALUES (s" + i + ")", list.get(i).strVal);
+        }
+    }
+
+    @Test
+    void multiRowInsertTest003() throws Exception {
+        // 1行に6個のパラメタがあるので、1つの文は32767 / 6 = 5461行を2のべき乗に切り下げた4096行までになる。
+        List<CopyLoaderTestDto> rows = createRows(5000);
+        List<Long> rowCounts = new ArrayList<>();
+        ExecutionListener listener = (phase, sql, dtoClass, elapsedNanos, rowCount) -> {
+            if (phase == ExecutionPhase.EXECUTE) {
+                rowCounts.add(rowCount);
+            }
+        };
+        ExecutionListener.register(listener);
+        try {
+            assertEquals(5000, MultiRowInsert.insert(conn, INSERT_SQL, rows, Integer.MAX_VALUE));
+        } finally {
+            ExecutionListener.unregister(listener);
+        }
+        assertEquals(List.of(4096L, 512L, 256L, 128L, 8L), rowCounts);
+        assertEquals(0, MultiRowInsert.insert(conn, INSERT_SQL, List.of()));
+    }
+
+    @Test
+    void multiRowInsertTestError001() throws Exception {
+        try {
+            MultiRowInsert.insert(conn, "INSERT INTO NAMEDPARAMETERINSERTTEST SELECT * FROM RESULTSETMAPPERTEST",
+                                  List.of());
+        } catch (Exception ex) {
+            assertTrue(ex instanceof SqlParseException);
+            assertEquals("INSERT文にVALUES (...)が見つかりません。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void multiRowInsertTestError002() throws Exception {
+        String sql = """
+                INSERT INTO NAMEDPARAMETERINSERTTEST (TEST_KEY, INT_VAL) VALUES (:TEST_KEY, 1)
+                ON CONFLICT (TEST_KEY) DO UPDATE SET INT_VAL = :INT_VAL
+                """;
+        try {
+            MultiRowInsert.insert(conn, sql, List.of(Map.of("TEST_KEY", "a", "INT_VAL", 1)));
+        } catch (Exception ex) {
+            assertTrue(ex instanceof SqlParseException);
+            assertEquals("パラメタINT_VALがVALUESの(...)の外にあります。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void multiRowInsertTestError003() throws Exception {
+        try {
+            MultiRowInsert.insert(conn, INSERT_SQL, createRows(1), 0);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof IllegalArgumentException);
+            assertEquals("maxRowsPerStatementには1以上を指定してください(0)。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+}
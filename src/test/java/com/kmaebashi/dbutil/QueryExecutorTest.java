@@ -0,0 +1,112 @@
+package com.kmaebashi.dbutil;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryExecutorTest {
+    private static DataSource dataSource;
+    private static final AtomicInteger openConnections = new AtomicInteger();
+    private static final AtomicInteger maxOpenConnections = new AtomicInteger();
+
+    @BeforeAll
+    static void createDataSource() throws Exception {
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+
+        PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+        pgDataSource.setURL(rb.getString("dbutiltest.url"));
+        pgDataSource.setUser(rb.getString("dbutiltest.user-name"));
+        pgDataSource.setPassword(rb.getString("dbutiltest.password"));
+        // 同時に開いているコネクションの数を数える。
+        dataSource = (DataSource) Proxy.newProxyInstance(
+                DataSource.class.getClassLoader(), new Class<?>[] {DataSource.class},
+                (proxy, method, args) -> {
+                    Object ret = invoke(pgDataSource, method, args);
+                    if (!method.getName().equals("getConnection")) {
+                        return ret;
+                    }
+                    int open = openConnections.incrementAndGet();
+                    maxOpenConnections.accumulateAndGet(open, Math::max);
+                    Connection conn = (Connection) ret;
+                    return Proxy.newProxyInstance(
+                            Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                            (connProxy, connMethod, connArgs) -> {
+                                if (connMethod.getName().equals("close")) {
+                                    openConnections.decrementAndGet();
+                                }
+                                return invoke(conn, connMethod, connArgs);
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @Test
+    void queryExecutorTest001() throws Exception {
+        String sql = """
+                SELECT *, pg_sleep(0.05) FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = :TEST_KEY
+                """;
+        maxOpenConnections.set(0);
+        try (QueryExecutor executor = QueryExecutor.create(dataSource, 3)) {
+            List<CompletableFuture<ResultSetMapperTestDto>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                String key = i % 2 == 0 ? "test01" : "test02";
+                futures.add(executor.queryOne(sql, Map.of("TEST_KEY", key), ResultSetMapperTestDto.class));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i % 2 == 0 ? "test01" : "test02", futures.get(i).get().testKey);
+            }
+
+            List<ResultSetMapperTestDto> list = executor.queryList("""
+                    SELECT * FROM RESULTSETMAPPERTEST ORDER BY TEST_KEY
+                    """, null, ResultSetMapperTestDto.class).get();
+            assertEquals(2, list.size());
+
+            long count = executor.queryStream("""
+                    SELECT * FROM RESULTSETMAPPERTEST WHERE TEST_KEY LIKE :TEST_KEY
+                    """, Map.of("TEST_KEY", "test%"), ResultSetMapperTestDto.class, 1,
+                    stream -> stream.filter(dto -> dto.testKey.startsWith("test")).count()).get();
+            assertEquals(2, count);
+        }
+        assertTrue(maxOpenConnections.get() <= 3, "max=" + maxOpenConnections.get());
+        assertEquals(0, openConnections.get());
+    }
+
+    @Test
+    void queryExecutorTestError001() throws Exception {
+        try (QueryExecutor executor = QueryExecutor.create(dataSource, 1)) {
+            CompletableFuture<List<ResultSetMapperTestDto>> future = executor.queryList("""
+                    SELECT * FROM RESULTSETMAPPERTEST WHERE TEST_KEY = :TEST_KEY
+                    """, Map.of(), ResultSetMapperTestDto.class);
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof ParameterValueNotFoundException);
+                assertEquals("パラメタTEST_KEYの値が見つかりません。", ex.getCause().getMessage());
+                return;
+            }
+            fail();
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package com.kmaebashi.dbutil;
 
+import com.kmaebashi.dbutilimpl.GeneratedMappers;
+import com.kmaebashi.dbutilimpl.MappingPlan;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Types;
 import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.ResourceBundle;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -122,6 +134,69 @@ class ResultSetMapperTest {
         assertNull(dto);
     }
 
+    @Test
+    void toDtoTest006() throws Exception {
+        String sql1 = """
+                SELECT TEST_KEY, INT_VAL FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = 'test01'
+                """;
+        String sql2 = """
+                SELECT REAL_VAL, TEST_KEY FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = 'test01'
+                """;
+        for (int i = 0; i < 2; i++) {
+            ResultSet rs1 = conn.prepareStatement(sql1).executeQuery();
+            ResultSetMapperTestDto dto1 = ResultSetMapper.toDto(rs1, ResultSetMapperTestDto.class);
+            assertEquals("test01", dto1.testKey);
+            assertEquals(10, dto1.intVal);
+            assertEquals(0.0, dto1.realVal);
+
+            ResultSet rs2 = conn.prepareStatement(sql2).executeQuery();
+            ResultSetMapperTestDto dto2 = ResultSetMapper.toDto(rs2, ResultSetMapperTestDto.class);
+            assertEquals("test01", dto2.testKey);
+            assertEquals(0, dto2.intVal);
+            assertEquals(10.5, dto2.realVal);
+        }
+    }
+
+    @Test
+    void streamTest001() throws Exception {
+        String sql = """
+                SELECT * FROM RESULTSETMAPPERTEST
+                ORDER BY TEST_KEY
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        Iterator<ResultSetMapperTestDto> it = ResultSetMapper.iterator(rs, ResultSetMapperTestDto.class);
+        assertTrue(it.hasNext());
+        assertTrue(it.hasNext());
+        assertEquals("test01", it.next().testKey);
+        assertEquals("test02", it.next().testKey);
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+        rs.close();
+    }
+
+    @Test
+    void streamTest002() throws Exception {
+        String sql = """
+                SELECT * FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY LIKE :PREFIX
+                ORDER BY TEST_KEY
+                """;
+        NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql);
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("PREFIX", "test%");
+        npps.setParameters(params);
+        List<String> keys;
+        try (Stream<ResultSetMapperTestDto2> stream = ResultSetMapper.stream(npps, ResultSetMapperTestDto2.class, 1)) {
+            assertFalse(conn.getAutoCommit());
+            keys = stream.map(dto -> dto.testKey).toList();
+        }
+        assertEquals(List.of("test01", "test02"), keys);
+        assertTrue(conn.getAutoCommit());
+    }
+
     @Test
     void toDtoTestError001() throws Exception {
         String sql = """
@@ -243,7 +318,7 @@ class ResultSetMapperTest {
     @Test
     void toDtoTestError008() throws Exception {
         String sql = """
-                SELECT NUMERIC_VAL FROM RESULTSETMAPPERTEST2
+                SELECT '{1,2}'::int[] AS NUMERIC_VAL FROM RESULTSETMAPPERTEST2
                 WHERE TEST_KEY = 'test01'
                 """;
         PreparedStatement ps = conn.prepareStatement(sql);
@@ -252,9 +327,399 @@ class ResultSetMapperTest {
             ResultSetMapperErrorDto2 dto = ResultSetMapper.toDto(rs, ResultSetMapperErrorDto2.class);
         } catch (Exception ex) {
             assertTrue(ex instanceof UnsupportedTypeException);
-            assertEquals("java.sql.Typesの2は未対応です。", ex.getMessage());
+            assertEquals("java.sql.Typesの2003は未対応です。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void toDtoTest007() throws Exception {
+        ResultSetMapper.registerConverter(Types.INTEGER, BigInteger.class, (rs, idx) -> {
+            String value = rs.getString(idx);
+            return value == null ? null : new BigInteger(value);
+        });
+        String sql = """
+                SELECT NUMERIC_VAL, NUMERIC_VAL AS DECIMAL_VAL,
+                  12345678901::bigint AS BIGINT_VAL,
+                  'a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11'::uuid AS UUID_VAL,
+                  'TUESDAY'::varchar AS ENUM_VAL,
+                  5 AS BIG_INTEGER_VAL
+                FROM RESULTSETMAPPERTEST2
+                WHERE TEST_KEY = 'test01'
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        ResultSetMapperTestDto3 dto = ResultSetMapper.toDto(rs, ResultSetMapperTestDto3.class);
+        assertEquals(123.456, dto.numericVal, 0.00001);
+        assertEquals(new BigDecimal("123.4560"), dto.decimalVal);
+        assertEquals(12345678901L, dto.bigintVal);
+        assertEquals(UUID.fromString("a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11"), dto.uuidVal);
+        assertEquals(DayOfWeek.TUESDAY, dto.enumVal);
+        assertEquals(BigInteger.valueOf(5), dto.bigIntegerVal);
+    }
+
+    @Test
+    void toDtoTest008() throws Exception {
+        String sql = """
+                SELECT * FROM RESULTSETMAPPERTEST
+                ORDER BY TEST_KEY
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        // このテストは注釈処理なしでコンパイルするので、recordもリフレクション(DtoAccessorのMethodHandle)で処理する。
+        assertNull(GeneratedMappers.find(ResultSetMapperTestRecord.class));
+        assertNotNull(MappingPlan.getInstance(rs.getMetaData(), ResultSetMapperTestRecord.class).getAccessor());
+        List<ResultSetMapperTestRecord> list = ResultSetMapper.toDtoList(rs, ResultSetMapperTestRecord.class);
+        assertEquals(2, list.size());
+        ResultSetMapperTestRecord rec = list.get(0);
+        assertEquals("test01", rec.testKey());
+        assertEquals(10, rec.intVal());
+        assertEquals(10.5, rec.realVal());
+        assertEquals(true, rec.booleanVal());
+        assertEquals("abc", rec.charVal());
+        assertEquals("2023-11-04 23:15:30", rec.timeStampVal().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        assertEquals("2023-11-05", rec.dateVal().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        assertNull(rec.note());
+        ResultSetMapperTestRecord rec2 = list.get(1);
+        assertEquals("test02", rec2.testKey());
+        assertEquals(0, rec2.intVal());
+        assertNull(rec2.realVal());
+        assertNull(rec2.charVal());
+
+        // recordはパラメタの設定元にも使える。
+        String sql2 = """
+                SELECT * FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = :TEST_KEY AND INT_VAL = :INT_VAL
+                """;
+        NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql2);
+        npps.setParameters(rec);
+        ResultSetMapperTestRecord found = ResultSetMapper.toDto(npps.executeQuery(), ResultSetMapperTestRecord.class);
+        assertEquals(rec, found);
+    }
+
+    @Test
+    void toDtoTest009() throws Exception {
+        String sql = """
+                SELECT TEST_KEY, INT_VAL, VARCHAR_VAL FROM RESULTSETMAPPERTEST
+                ORDER BY TEST_KEY
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        assertNull(GeneratedMappers.find(ResultSetMapperTestDto4.class));
+        assertNotNull(MappingPlan.getInstance(rs.getMetaData(), ResultSetMapperTestDto4.class).getAccessor());
+        Iterator<ResultSetMapperTestDto4> it = ResultSetMapper.iterator(rs, ResultSetMapperTestDto4.class);
+        ResultSetMapperTestDto4 dto = it.next();
+        assertEquals("test01", dto.getTestKey());
+        assertEquals(10L, dto.getIntVal());
+        assertEquals("varabc", dto.getVarcharVal());
+        assertEquals(0, dto.getMissingVal());
+        dto = it.next();
+        assertEquals("test02", dto.getTestKey());
+        assertEquals(0L, dto.getIntVal());
+        assertNull(dto.getVarcharVal());
+        assertFalse(it.hasNext());
+        rs.close();
+    }
+
+    @Test
+    void toDtoTestError009() throws Exception {
+        String sql = """
+                SELECT TEST_KEY, DATE_VAL AS INT_VAL FROM RESULTSETMAPPERTEST
+                """;
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ResultSet rs = ps.executeQuery();
+        try {
+            ResultSetMapper.toDtoList(rs, ResultSetMapperTestRecord.class);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof UnsupportedTypeException);
+            assertEquals("DATE型を型intに変換できません(列:INT_VAL)。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void toDtoTest010() throws Exception {
+        // 結果が空なら、型が合わない列があっても空のListやnullを返す。
+        String sql = """
+                SELECT TEST_KEY, DATE_VAL AS INT_VAL FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = 'no such key'
+                """;
+        ResultSet rs = conn.prepareStatement(sql).executeQuery();
+        assertTrue(ResultSetMapper.toDtoList(rs, ResultSetMapperTestRecord.class).isEmpty());
+        rs = conn.prepareStatement(sql).executeQuery();
+        assertNull(ResultSetMapper.toDto(rs, ResultSetMapperTestRecord.class));
+    }
+
+    private static final String PIPELINE_SQL = """
+            SELECT 'k' || g AS TEST_KEY, g AS INT_VAL, CAST(g + 0.5 AS real) AS REAL_VAL,
+              g % 2 = 0 AS BOOLEAN_VAL, CAST('abc' AS char(10)) AS CHAR_VAL,
+              CASE WHEN g % 3 = 0 THEN NULL ELSE 'v' || g END AS VARCHAR_VAL,
+              TIMESTAMP '2023-11-04 23:15:30' + g * INTERVAL '1 second' AS TIMESTAMP_VAL,
+              DATE '2023-11-05' + g AS DATE_VAL
+            FROM generate_series(1, 1000) AS g
+            ORDER BY g
+            """;
+
+    @Test
+    void pipelinedTest001() throws Exception {
+        List<ResultSetMapperTestDto2> expected
+                = ResultSetMapper.toDtoList(conn.prepareStatement(PIPELINE_SQL).executeQuery(),
+                                            ResultSetMapperTestDto2.class);
+        List<ResultSetMapperTestDto2> actual
+                = ResultSetMapper.toDtoListPipelined(conn.prepareStatement(PIPELINE_SQL).executeQuery(),
+                                                     ResultSetMapperTestDto2.class, 7, 3);
+        assertEquals(1000, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ResultSetMapperTestDto2 e = expected.get(i);
+            ResultSetMapperTestDto2 a = actual.get(i);
+            assertEquals(e.testKey, a.testKey);
+            assertEquals(e.intVal, a.intVal);
+            assertEquals(e.realVal, a.realVal);
+            assertEquals(e.booleanVal, a.booleanVal);
+            assertEquals(e.charVal, a.charVal);
+            assertEquals(e.varcharVal, a.varcharVal);
+            assertEquals(e.timeStampVal, a.timeStampVal);
+            assertEquals(e.dateVal, a.dateVal);
+        }
+    }
+
+    @Test
+    void pipelinedTest002() throws Exception {
+        List<ResultSetMapperTestRecord> expected
+                = ResultSetMapper.toDtoList(conn.prepareStatement(PIPELINE_SQL).executeQuery(),
+                                            ResultSetMapperTestRecord.class);
+        List<ResultSetMapperTestRecord> actual = new java.util.ArrayList<>();
+        ResultSetMapper.forEachPipelined(conn.prepareStatement(PIPELINE_SQL).executeQuery(),
+                                         ResultSetMapperTestRecord.class, 100, 2, actual::add);
+        assertEquals(expected, actual);
+        assertEquals("abc", actual.get(0).charVal());
+    }
+
+    @Test
+    void pipelinedTest003() throws Exception {
+        // g / 10.0をrealにした値はdoubleでは正確に表せないので、getFloat()とgetDouble()で結果が変わる。
+        // 並行して読む場合も、toDtoList()と同じgetterで読まなければならない。
+        String sql = """
+                SELECT 'k' || g AS TEST_KEY, CAST(g / 10.0 AS real) AS REAL_VAL
+                FROM generate_series(1, 100) AS g
+                ORDER BY g
+                """;
+        List<ResultSetMapperTestDto> expected
+                = ResultSetMapper.toDtoList(conn.prepareStatement(sql).executeQuery(), ResultSetMapperTestDto.class);
+        List<ResultSetMapperTestDto> actual
+                = ResultSetMapper.toDtoListPipelined(conn.prepareStatement(sql).executeQuery(),
+                                                     ResultSetMapperTestDto.class, 7, 3);
+        assertEquals(100, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).testKey, actual.get(i).testKey);
+            assertEquals(expected.get(i).realVal, actual.get(i).realVal);
+        }
+        assertEquals(0.1, actual.get(0).realVal);
+    }
+
+    @Test
+    void pipelinedTest004() throws Exception {
+        // 登録した変換がgetCharacterStream()を呼んでも、呼び出し元のスレッドで元のResultSetから変換する。
+        ResultSetMapper.registerConverter(Types.VARCHAR, StringBuilder.class, (rs, idx) -> {
+            java.io.Reader reader = rs.getCharacterStream(idx);
+            if (reader == null) {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder();
+            try (reader) {
+                int c;
+                while ((c = reader.read()) != -1) {
+                    sb.append((char) c);
+                }
+            } catch (java.io.IOException ex) {
+                throw new java.sql.SQLException(ex);
+            }
+            return sb;
+        });
+        List<PipelineConverterDto> actual
+                = ResultSetMapper.toDtoListPipelined(conn.prepareStatement(PIPELINE_SQL).executeQuery(),
+                                                     PipelineConverterDto.class, 7, 3);
+        assertEquals(1000, actual.size());
+        assertEquals("k1", actual.get(0).testKey);
+        assertEquals("v1", actual.get(0).varcharVal.toString());
+        assertNull(actual.get(2).varcharVal);
+    }
+
+    @Test
+    void pipelinedTest005() throws Exception {
+        // 指定したExecutorで変換する。
+        java.util.concurrent.atomic.AtomicInteger executed = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.Executor executor = task -> {
+            executed.incrementAndGet();
+            task.run();
+        };
+        List<ResultSetMapperTestRecord> expected
+                = ResultSetMapper.toDtoList(conn.prepareStatement(PIPELINE_SQL).executeQuery(),
+                                            ResultSetMapperTestRecord.class);
+        List<ResultSetMapperTestRecord> actual
+                = ResultSetMapper.toDtoListPipelined(conn.prepareStatement(PIPELINE_SQL).executeQuery(),
+                                                     ResultSetMapperTestRecord.class, 100, 2, executor);
+        assertEquals(expected, actual);
+        assertEquals(10, executed.get());
+    }
+
+    static class PipelineConverterDto {
+        @TableColumn("TEST_KEY")
+        String testKey;
+
+        @TableColumn("VARCHAR_VAL")
+        StringBuilder varcharVal;
+    }
+
+    @Test
+    void pipelinedTestError001() throws Exception {
+        try {
+            ResultSetMapper.toDtoListPipelined(conn.prepareStatement(PIPELINE_SQL).executeQuery(),
+                                               ResultSetMapperTestDto.class, 0, 1);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof IllegalArgumentException);
+            assertEquals("batchSizeには1以上を指定してください(0)。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    private static final String NESTED_SQL = """
+            SELECT * FROM (VALUES
+              ('p2', 'parent2', 1, 'child1', 'item1'),
+              ('p1', 'parent1', 2, 'child2', 'item2'),
+              ('p2', 'parent2', 1, 'child1', 'item3'),
+              ('p2', 'parent2', 3, 'child3', NULL),
+              ('p3', 'parent3', NULL, NULL, NULL),
+              ('p1', 'parent1', 2, 'child2', 'item4')
+            ) AS T(PARENT_KEY, PARENT_NAME, CHILD_ID, CHILD_NAME, ITEM_NAME)
+            """;
+
+    private static void assertParent1(ResultSetMapperTestParent parent) {
+        assertEquals("p1", parent.parentKey);
+        assertEquals("parent1", parent.parentName);
+        assertEquals(1, parent.children.size());
+        assertEquals(2, parent.children.get(0).childId);
+        assertEquals("child2", parent.children.get(0).childName);
+        assertEquals(List.of(new ResultSetMapperTestItem("item2"), new ResultSetMapperTestItem("item4")),
+                     parent.children.get(0).items);
+    }
+
+    private static void assertParent2(ResultSetMapperTestParent parent) {
+        assertEquals("p2", parent.parentKey);
+        assertEquals(2, parent.children.size());
+        assertEquals("child1", parent.children.get(0).childName);
+        assertEquals(List.of(new ResultSetMapperTestItem("item1"), new ResultSetMapperTestItem("item3")),
+                     parent.children.get(0).items);
+        assertEquals("child3", parent.children.get(1).childName);
+        assertEquals(List.of(), parent.children.get(1).items);
+    }
+
+    private static void assertParent3(ResultSetMapperTestParent parent) {
+        assertEquals("p3", parent.parentKey);
+        assertEquals(List.of(), parent.children);
+    }
+
+    @Test
+    void nestedTest001() throws Exception {
+        ResultSet rs = conn.prepareStatement(NESTED_SQL).executeQuery();
+        List<ResultSetMapperTestParent> list = ResultSetMapper.toNestedDtoList(rs, ResultSetMapperTestParent.class);
+        // 親は最初に現れた順に並ぶ。
+        assertEquals(3, list.size());
+        assertParent2(list.get(0));
+        assertParent1(list.get(1));
+        assertParent3(list.get(2));
+        rs.close();
+    }
+
+    @Test
+    void nestedTest002() throws Exception {
+        ResultSet rs = conn.prepareStatement(NESTED_SQL + "ORDER BY PARENT_KEY").executeQuery();
+        Iterator<ResultSetMapperTestParent> it = ResultSetMapper.nestedIterator(rs, ResultSetMapperTestParent.class);
+        assertTrue(it.hasNext());
+        assertParent1(it.next());
+        assertParent2(it.next());
+        assertParent3(it.next());
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+        rs.close();
+
+        rs = conn.prepareStatement(NESTED_SQL + "ORDER BY PARENT_KEY").executeQuery();
+        try (Stream<ResultSetMapperTestParent> stream
+                     = ResultSetMapper.nestedStream(rs, ResultSetMapperTestParent.class)) {
+            assertEquals(List.of("p1", "p2", "p3"), stream.map(parent -> parent.parentKey).toList());
+        }
+        rs.close();
+    }
+
+    @Test
+    void nestedTestError001() throws Exception {
+        ResultSet rs = conn.prepareStatement("SELECT * FROM RESULTSETMAPPERTEST").executeQuery();
+        try {
+            ResultSetMapper.toNestedDtoList(rs, ResultSetMapperTestDto.class);
+        } catch (IllegalArgumentException ex) {
+            assertEquals("クラスcom.kmaebashi.dbutil.ResultSetMapperTestDtoに@TableColumn(key=true)の列がありません。",
+                         ex.getMessage());
             return;
+        } finally {
+            rs.close();
         }
         fail();
     }
+
+    @Test
+    void planCacheTest001() throws Exception {
+        ResultSet hot = conn.prepareStatement("SELECT TEST_KEY FROM RESULTSETMAPPERTEST").executeQuery();
+        MappingPlan hotPlan = MappingPlan.getInstance(hot.getMetaData(), PlanCacheDto.class);
+        hot.close();
+        // クラスごとの上限(64)を超える種類の結果の形を作っても、使われ続けているプランは作り直されない。
+        for (int i = 0; i < 100; i++) {
+            ResultSet rs = conn.prepareStatement("SELECT TEST_KEY AS KEY" + i + " FROM RESULTSETMAPPERTEST")
+                    .executeQuery();
+            MappingPlan.getInstance(rs.getMetaData(), PlanCacheDto.class);
+            rs.close();
+            hot = conn.prepareStatement("SELECT TEST_KEY FROM RESULTSETMAPPERTEST").executeQuery();
+            assertSame(hotPlan, MappingPlan.getInstance(hot.getMetaData(), PlanCacheDto.class));
+            hot.close();
+        }
+    }
+
+    static class PlanCacheDto {
+        @TableColumn("TEST_KEY")
+        String testKey;
+    }
+
+    @Test
+    void trimTest001() throws Exception {
+        String sql = """
+                SELECT CHAR_VAL, CAST('abc  ' AS VARCHAR(10)) AS VARCHAR_VAL FROM RESULTSETMAPPERTEST
+                WHERE TEST_KEY = 'test01'
+                """;
+        // trim=trueでトリムするのはTypes.CHARの列だけで、VARCHARの列はそのまま読む。
+        ResultSet rs = conn.prepareStatement(sql).executeQuery();
+        TrimDto dto = ResultSetMapper.toDto(rs, TrimDto.class);
+        assertEquals("abc", dto.charVal);
+        assertEquals("abc  ", dto.varcharVal);
+        rs.close();
+
+        rs = conn.prepareStatement(sql).executeQuery();
+        TrimRecord record = ResultSetMapper.toDto(rs, TrimRecord.class);
+        assertEquals("abc", record.charVal());
+        assertEquals("abc  ", record.varcharVal());
+        rs.close();
+    }
+
+    static class TrimDto {
+        @TableColumn(value="CHAR_VAL", trim=true)
+        String charVal;
+
+        @TableColumn(value="VARCHAR_VAL", trim=true)
+        String varcharVal;
+    }
+
+    record TrimRecord(@TableColumn(value="CHAR_VAL", trim=true) String charVal,
+                      @TableColumn(value="VARCHAR_VAL", trim=true) String varcharVal) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.kmaebashi.dbutil;
+
+import java.util.List;
+
+public class ResultSetMapperTestChild {
+    @TableColumn(value="PARENT_KEY", key=true)
+    public String parentKey;
+
+    @TableColumn(value="CHILD_ID", key=true)
+    public Integer childId;
+
+    @TableColumn("CHILD_NAME")
+    public String childName;
+
+    @TableChildren
+    public List<ResultSetMapperTestItem> items;
+}
@@ -0,0 +1,26 @@
+package com.kmaebashi.dbutil;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DayOfWeek;
+import java.util.UUID;
+
+public class ResultSetMapperTestDto3 {
+    @TableColumn("NUMERIC_VAL")
+    public double numericVal;
+
+    @TableColumn("DECIMAL_VAL")
+    public BigDecimal decimalVal;
+
+    @TableColumn("BIGINT_VAL")
+    public long bigintVal;
+
+    @TableColumn("UUID_VAL")
+    public UUID uuidVal;
+
+    @TableColumn("ENUM_VAL")
+    public DayOfWeek enumVal;
+
+    @TableColumn("BIG_INTEGER_VAL")
+    public BigInteger bigIntegerVal;
+}
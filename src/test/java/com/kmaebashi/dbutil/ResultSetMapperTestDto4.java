@@ -0,0 +1,39 @@
+package com.kmaebashi.dbutil;
+
+public class ResultSetMapperTestDto4 {
+    private final String testKey;
+    private final long intVal;
+    private final String varcharVal;
+    private final int missingVal;
+
+    public ResultSetMapperTestDto4() {
+        this(null, -1, null, -1);
+    }
+
+    @TableConstructor
+    public ResultSetMapperTestDto4(@TableColumn("TEST_KEY") String testKey,
+                                   @TableColumn("INT_VAL") long intVal,
+                                   @TableColumn("VARCHAR_VAL") String varcharVal,
+                                   @TableColumn("MISSING_VAL") int missingVal) {
+        this.testKey = testKey;
+        this.intVal = intVal;
+        this.varcharVal = varcharVal;
+        this.missingVal = missingVal;
+    }
+
+    public String getTestKey() {
+        return this.testKey;
+    }
+
+    public long getIntVal() {
+        return this.intVal;
+    }
+
+    public String getVarcharVal() {
+        return this.varcharVal;
+    }
+
+    public int getMissingVal() {
+        return this.missingVal;
+    }
+}
@@ -0,0 +1,4 @@
+package com.kmaebashi.dbutil;
+
+public record ResultSetMapperTestItem(@TableColumn("ITEM_NAME") String itemName) {
+}
@@ -0,0 +1,14 @@
+package com.kmaebashi.dbutil;
+
+import java.util.List;
+
+public class ResultSetMapperTestParent {
+    @TableColumn(value="PARENT_KEY", key=true)
+    public String parentKey;
+
+    @TableColumn("PARENT_NAME")
+    public String parentName;
+
+    @TableChildren
+    public List<ResultSetMapperTestChild> children;
+}
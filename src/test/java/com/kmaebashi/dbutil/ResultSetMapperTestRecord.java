@@ -0,0 +1,15 @@
+package com.kmaebashi.dbutil;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record ResultSetMapperTestRecord(
+        @TableColumn("TEST_KEY") String testKey,
+        @TableColumn("INT_VAL") int intVal,
+        @TableColumn("REAL_VAL") Double realVal,
+        @TableColumn("BOOLEAN_VAL") boolean booleanVal,
+        @TableColumn(value="CHAR_VAL", trim=true) String charVal,
+        @TableColumn("TIMESTAMP_VAL") LocalDateTime timeStampVal,
+        @TableColumn("DATE_VAL") LocalDate dateVal,
+        String note) {
+}
@@ -0,0 +1,57 @@
+package com.kmaebashi.dbutilimpl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    @Test
+    void bucketTest001() {
+        for (long value : new long[] {0, 1, 7, 8, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.lowerBound(index) <= value);
+            assertTrue(value <= LatencyHistogram.upperBound(index));
+        }
+        for (int i = 0; i < 400; i++) {
+            assertEquals(LatencyHistogram.upperBound(i) + 1, LatencyHistogram.lowerBound(i + 1));
+        }
+    }
+
+    @Test
+    void percentileTest001() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125, "p50=" + p50);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 1.125, "p99=" + p99);
+        histogram.reset();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void concurrentTest001() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(1000);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        histogram.record(1_000_000);
+        // 400,001件中1件だけが大きいので、99.999%点までは同じバケットになる。
+        assertEquals(LatencyHistogram.upperBound(LatencyHistogram.bucketIndex(1000)),
+                     histogram.getValueAtPercentile(99.999));
+        assertEquals(LatencyHistogram.upperBound(LatencyHistogram.bucketIndex(1_000_000)),
+                     histogram.getValueAtPercentile(100));
+    }
+}
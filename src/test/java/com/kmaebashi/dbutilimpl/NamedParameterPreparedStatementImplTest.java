@@ -1,18 +1,27 @@
 package com.kmaebashi.dbutilimpl;
 
 import com.kmaebashi.dbutil.NamedParameterPreparedStatement;
+import com.kmaebashi.dbutil.ParameterSource;
 import com.kmaebashi.dbutil.ParameterValueNotFoundException;
+import com.kmaebashi.dbutil.SqlArray;
+import com.kmaebashi.dbutil.SqlNull;
 import com.kmaebashi.dbutil.SqlParseException;
 import com.kmaebashi.dbutil.UnsupportedTypeException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.sql.*;
 import java.util.ResourceBundle;
+import java.util.UUID;
 
 import org.junit.jupiter.api.Named;
 import org.junit.jupiter.api.Test;
@@ -76,6 +85,85 @@ class NamedParameterPreparedStatementImplTest {
         assertEquals(sqlAndParams.paramNames[3], "AFTER_STRING");
     }
 
+    @Test
+    void testParseSql002() throws Exception {
+        String srcSql = """
+                SELECT * FROM TABLE_NAME
+                WHERE A = :A_VALUE
+                  AND B = :B_VALUE
+                  AND C = :A_VALUE
+                  AND D = :A_VALUE
+                """;
+        SqlAndParams sqlAndParams = NamedParameterPreparedStatementImpl.parseSql(srcSql);
+        assertArrayEquals(new String[] {"A_VALUE", "B_VALUE"}, sqlAndParams.distinctNames);
+        assertArrayEquals(new int[] {1, 3, 4}, sqlAndParams.positions[0]);
+        assertArrayEquals(new int[] {2}, sqlAndParams.positions[1]);
+    }
+
+    @Test
+    void testParseSql003() throws Exception {
+        String srcSql = """
+                UPDATE TABLE_NAME SET A = :A_VALUE{integer}, B = :B_VALUE
+                WHERE C = :A_VALUE AND D = :D_VALUE{ TIMESTAMP_WITH_TIMEZONE }
+                """;
+        SqlAndParams sqlAndParams = NamedParameterPreparedStatementImpl.parseSql(srcSql);
+        assertEquals("""
+                UPDATE TABLE_NAME SET A = ?, B = ?
+                WHERE C = ? AND D = ?
+                """, sqlAndParams.sql);
+        assertArrayEquals(new String[] {"A_VALUE", "B_VALUE", "D_VALUE"}, sqlAndParams.distinctNames);
+        assertArrayEquals(new int[] {Types.INTEGER, Types.NULL, Types.TIMESTAMP_WITH_TIMEZONE},
+                          sqlAndParams.nullTypes);
+    }
+
+    @Test
+    void testParseSql004() throws Exception {
+        String srcSql = """
+                SELECT A::integer, B::varchar(10), ARR[1:2], "COL:X", "a""b:c",
+                  E'it\\'s :NOT1', e'\\\\':P1, U&'d:0061', $$body :NOT2 'x'$$, $fn$ :NOT3 $$ $fn$, X$Y,
+                  /* outer /* inner :NOT4 */ still :NOT5 */ :P2, /* a * b */ :P3
+                FROM T WHERE C = :P4""";
+        SqlAndParams sqlAndParams = NamedParameterPreparedStatementImpl.parseSql(srcSql);
+        assertEquals("""
+                SELECT A::integer, B::varchar(10), ARR[1:2], "COL:X", "a""b:c",
+                  E'it\\'s :NOT1', e'\\\\'?, U&'d:0061', $$body :NOT2 'x'$$, $fn$ :NOT3 $$ $fn$, X$Y,
+                  /* outer /* inner :NOT4 */ still :NOT5 */ ?, /* a * b */ ?
+                FROM T WHERE C = ?""", sqlAndParams.sql);
+        assertArrayEquals(new String[] {"P1", "P2", "P3", "P4"}, sqlAndParams.paramNames);
+
+        // :を含まないSQLは、そのまま返す。
+        String noParams = "SELECT * FROM T";
+        assertSame(noParams, NamedParameterPreparedStatementImpl.parseSql(noParams).sql);
+    }
+
+    @Test
+    void testParseSqlError003() throws Exception {
+        try {
+            NamedParameterPreparedStatementImpl.parseSql("SELECT * FROM T WHERE A = :A{INT}\n");
+            fail();
+        } catch (SqlParseException ex) {
+            assertEquals("パラメタAの型INTはJDBCTypeにありません。", ex.getMessage());
+        }
+        try {
+            NamedParameterPreparedStatementImpl.parseSql("SELECT * FROM T WHERE A = :A{INTEGER} OR B = :A{BIGINT}\n");
+            fail();
+        } catch (SqlParseException ex) {
+            assertEquals("パラメタAに異なる型が指定されています。", ex.getMessage());
+        }
+        try {
+            NamedParameterPreparedStatementImpl.parseSql("SELECT * FROM T WHERE A = :A{INTEGER");
+            fail();
+        } catch (SqlParseException ex) {
+            assertEquals("パラメタAの型の指定が}で閉じられていません。", ex.getMessage());
+        }
+        try {
+            NamedParameterPreparedStatementImpl.parseSql("SELECT * FROM T WHERE A = :");
+            fail();
+        } catch (SqlParseException ex) {
+            assertEquals(":の後ろに識別子がありません。", ex.getMessage());
+        }
+    }
+
     @org.junit.jupiter.api.Test
     void testParseSqlError001() throws Exception {
         String sql = """
@@ -96,6 +184,26 @@ class NamedParameterPreparedStatementImplTest {
         }
     }
 
+    @Test
+    void testSqlTemplateCache001() throws Exception {
+        SqlTemplateCache cache = new SqlTemplateCache(2);
+        SqlAndParams first = cache.get("SELECT * FROM A WHERE X = :X\n");
+        SqlAndParams second = cache.get("SELECT * FROM A WHERE X = :X\n");
+        assertSame(first, second);
+        assertEquals("SELECT * FROM A WHERE X = ?\n", first.sql);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.get("SELECT * FROM B WHERE Y = :Y\n");
+        cache.get("SELECT * FROM C WHERE Z = :Z\n");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getMissCount());
+
+        assertThrows(SqlParseException.class, () -> cache.get("SELECT * FROM A WHERE X = :\n"));
+        assertEquals(2, cache.size());
+    }
+
     private static Connection conn;
     @BeforeAll
     static void connectDb() throws Exception {
@@ -431,6 +539,302 @@ class NamedParameterPreparedStatementImplTest {
         assertEquals(1, deleteRet);
     }
 
+    @Test
+    void testParameterSource001() throws Exception {
+        String sql = """
+                SELECT * from NAMEDPARAMETERTEST
+                WHERE INT_VAL > :INT_VALUE
+                AND STR_VAL = :STR_VALUE
+                AND INT_VAL < :INT_VALUE + 2
+                """;
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+            npps.setParameters(ParameterSource.of(new String[] {"STR_VALUE", "INT_VALUE"}, new Object[] {"abc", 9}));
+            ResultSet rs = npps.getPreparedStatement().executeQuery();
+            assertTrue(rs.next());
+            assertEquals("selecttest01", rs.getString("test_key"));
+            assertFalse(rs.next());
+
+            ArrayList<String> requested = new ArrayList<>();
+            npps.setParameters(ParameterSource.of(name -> {
+                requested.add(name);
+                return name.equals("INT_VALUE") ? 19 : "def";
+            }));
+            rs = npps.getPreparedStatement().executeQuery();
+            assertTrue(rs.next());
+            assertEquals("selecttest02", rs.getString("test_key"));
+            assertFalse(rs.next());
+            assertEquals(List.of("INT_VALUE", "STR_VALUE"), requested);
+
+            try {
+                npps.setParameters(ParameterSource.of(new String[] {"INT_VALUE"}, new Object[] {9}));
+            } catch (Exception ex) {
+                assertTrue(ex instanceof ParameterValueNotFoundException);
+                assertEquals("パラメタSTR_VALUEの値が見つかりません。", ex.getMessage());
+                return;
+            }
+            fail();
+        }
+    }
+
+    @Test
+    void testParameterSourceError001() throws Exception {
+        try {
+            ParameterSource.of(new String[] {"STR_VALUE", "INT_VALUE"}, new Object[] {"abc"});
+        } catch (Exception ex) {
+            assertTrue(ex instanceof IllegalArgumentException);
+            assertEquals("namesとvaluesの要素数が異なります(2, 1)。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void testSetParametersDto001() throws Exception {
+        String sql = """
+                SELECT * from NAMEDPARAMETERTEST
+                WHERE INT_VAL = :INT_VAL
+                AND REAL_VAL > :REAL_VAL
+                AND BOOL_VAL = :bool_val
+                AND STR_VAL = :STR_VAL
+                AND DATE_VAL = :DATE_VAL
+                AND TIMESTAMP_VAL >= :TIMESTAMP_VAL
+                AND INT_VAL = :INT_VAL
+                """;
+        // このテストは注釈処理なしでコンパイルするので、フィールドはDtoParameterBinderのMethodHandleで読む。
+        assertNull(GeneratedMappers.find(NamedParameterTestDto.class));
+        NamedParameterTestDto dto = new NamedParameterTestDto();
+        dto.intVal = 10;
+        dto.realVal = 10.0;
+        dto.boolVal = true;
+        dto.strVal = "abc";
+        dto.dateVal = LocalDate.of(2023, 11, 4);
+        dto.timestampVal = LocalDateTime.of(2023, 11, 4, 23, 15, 15);
+        for (int i = 0; i < 2; i++) {
+            try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+                npps.setParameters(dto);
+                ResultSet rs = npps.getPreparedStatement().executeQuery();
+                assertTrue(rs.next());
+                assertEquals("selecttest01", rs.getString("test_key"));
+                assertFalse(rs.next());
+            }
+        }
+    }
+
+    @Test
+    void testSetParametersDtoError001() throws Exception {
+        String sql = """
+                SELECT * from NAMEDPARAMETERTEST
+                WHERE INT_VAL = :INT_VAL
+                AND STR_VAL = :DUMMY
+                """;
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+            npps.setParameters(new NamedParameterTestDto());
+        } catch (Exception ex) {
+            assertTrue(ex instanceof ParameterValueNotFoundException);
+            assertEquals("パラメタDUMMYの値が見つかりません。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void testSetParametersDtoError002() throws Exception {
+        String sql = """
+                SELECT * from NAMEDPARAMETERTEST
+                WHERE INT_VAL = :INT_VAL
+                """;
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+            npps.setParameters((Object) null);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof IllegalArgumentException);
+            assertEquals("dtoにnullが指定されました。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void testExecuteBatch001() throws Exception {
+        String insertSql = """
+                INSERT INTO NAMEDPARAMETERINSERTTEST (
+                  TEST_KEY, INT_VAL, STR_VAL
+                ) VALUES (
+                  :TEST_KEY,
+                  :INT_VALUE,
+                  :STR_VALUE
+                )
+                """;
+        ArrayList<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            HashMap<String, Object> params = new HashMap<String, Object>();
+            params.put("TEST_KEY", "batchtest0" + i);
+            params.put("INT_VALUE", i);
+            params.put("STR_VALUE", i % 2 == 0 ? "even" : null);
+            rows.add(params);
+        }
+        try (NamedParameterPreparedStatement insertNpps
+                     = NamedParameterPreparedStatement.newInstance(conn, insertSql)) {
+            List<int[]> results = insertNpps.executeBatch(rows, 2);
+            assertEquals(3, results.size());
+            assertArrayEquals(new int[] {1, 1}, results.get(0));
+            assertArrayEquals(new int[] {1, 1}, results.get(1));
+            assertArrayEquals(new int[] {1}, results.get(2));
+        }
+
+        ResultSet rs = conn.prepareStatement("""
+                SELECT COUNT(*), SUM(INT_VAL) FROM NAMEDPARAMETERINSERTTEST
+                WHERE STR_VAL = 'even'
+                """).executeQuery();
+        rs.next();
+        assertEquals(3, rs.getInt(1));
+        assertEquals(6, rs.getInt(2));
+
+        int deleteRet = conn.prepareStatement("""
+                DELETE FROM NAMEDPARAMETERINSERTTEST
+                """).executeUpdate();
+        assertEquals(5, deleteRet);
+    }
+
+    @Test
+    void testStatementCache001() throws Exception {
+        String sql = """
+                SELECT * from NAMEDPARAMETERTEST
+                WHERE INT_VAL = :INT_VALUE
+                """;
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+        Connection physical = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+        PreparedStatement cached;
+        try (Connection cachingConn = NamedParameterPreparedStatement.withStatementCache(physical, 1)) {
+            StatementCache cache = StatementCache.of(cachingConn);
+            assertNotNull(cache);
+
+            HashMap<String, Object> params = new HashMap<String, Object>();
+            params.put("INT_VALUE", 10);
+            try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(cachingConn, sql)) {
+                npps.setParameters(params);
+                ResultSet rs = npps.getPreparedStatement().executeQuery();
+                assertTrue(rs.next());
+                assertEquals("selecttest01", rs.getString("test_key"));
+                cached = npps.getPreparedStatement();
+            }
+            assertEquals(1, cache.size());
+
+            params.put("INT_VALUE", 20);
+            try (NamedParameterPreparedStatement npps1 = NamedParameterPreparedStatement.newInstance(cachingConn, sql);
+                 NamedParameterPreparedStatement npps2 = NamedParameterPreparedStatement.newInstance(cachingConn, sql)) {
+                assertSame(cached, npps1.getPreparedStatement());
+                assertNotSame(cached, npps2.getPreparedStatement());
+                npps1.setParameters(params);
+                ResultSet rs = npps1.getPreparedStatement().executeQuery();
+                assertTrue(rs.next());
+                assertEquals("selecttest02", rs.getString("test_key"));
+            }
+            assertEquals(1, cache.size());
+            assertEquals(1, cache.getHitCount());
+            assertEquals(2, cache.getMissCount());
+        }
+        assertTrue(cached.isClosed());
+        assertTrue(physical.isClosed());
+    }
+
+    @Test
+    void testStatementCache002() throws Exception {
+        String sql = """
+                SELECT * from NAMEDPARAMETERTEST
+                WHERE INT_VAL = :INT_VALUE
+                """;
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+        Connection physical = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+        try (Connection cachingConn = NamedParameterPreparedStatement.withStatementCache(physical, 1)) {
+            HashMap<String, Object> params = new HashMap<String, Object>();
+            params.put("INT_VALUE", 10);
+            ResultSet rs;
+            PreparedStatement cached;
+            try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(cachingConn, sql)) {
+                PreparedStatement ps = npps.getPreparedStatement();
+                cached = ps;
+                ps.setFetchSize(100);
+                ps.setMaxRows(1);
+                ps.setQueryTimeout(30);
+                npps.setParameters(params);
+                rs = npps.executeQuery();
+                assertTrue(rs.next());
+            }
+            // キャッシュに戻す際に、開いていたResultSetをクローズし、設定を作成直後の値に戻す。
+            assertTrue(rs.isClosed());
+            try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(cachingConn, sql)) {
+                PreparedStatement ps = npps.getPreparedStatement();
+                assertSame(cached, ps);
+                assertEquals(0, ps.getFetchSize());
+                assertEquals(0, ps.getMaxRows());
+                assertEquals(0, ps.getQueryTimeout());
+            }
+        }
+    }
+
+    @Test
+    void testParameterBinder001() throws Exception {
+        NamedParameterPreparedStatement.registerBinder(StringBuilder.class,
+                                                       (ps, index, v) -> ps.setString(index, v.toString()));
+        String sql = """
+                SELECT CAST(:LONG_VAL AS bigint) + 1 AS LONG_VAL, CAST(:DECIMAL_VAL AS numeric) AS DECIMAL_VAL,
+                  CAST(:UUID_VAL AS uuid) AS UUID_VAL, CAST(:BYTES_VAL AS bytea) AS BYTES_VAL,
+                  CAST(:ENUM_VAL AS varchar) AS ENUM_VAL, CAST(:SB_VAL AS varchar) AS SB_VAL
+                """;
+        HashMap<String, Object> params = new HashMap<>();
+        UUID uuid = UUID.fromString("a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11");
+        params.put("LONG_VAL", 12345678901L);
+        params.put("DECIMAL_VAL", new BigDecimal("123.4560"));
+        params.put("UUID_VAL", uuid);
+        params.put("BYTES_VAL", new byte[] {1, 2, 3});
+        params.put("ENUM_VAL", DayOfWeek.FRIDAY);
+        params.put("SB_VAL", new StringBuilder("abc"));
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+            npps.setParameters(params);
+            ResultSet rs = npps.getPreparedStatement().executeQuery();
+            assertTrue(rs.next());
+            assertEquals(12345678902L, rs.getLong("LONG_VAL"));
+            assertEquals(new BigDecimal("123.4560"), rs.getBigDecimal("DECIMAL_VAL"));
+            assertEquals(uuid, rs.getObject("UUID_VAL", UUID.class));
+            assertArrayEquals(new byte[] {1, 2, 3}, rs.getBytes("BYTES_VAL"));
+            assertEquals("FRIDAY", rs.getString("ENUM_VAL"));
+            assertEquals("abc", rs.getString("SB_VAL"));
+        }
+    }
+
+    @Test
+    void testTypedNull001() throws Exception {
+        String sql = """
+                SELECT pg_typeof(:HINTED{INTEGER}) AS HINTED, pg_typeof(:WRAPPED) AS WRAPPED
+                """;
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("HINTED", null);
+        params.put("WRAPPED", SqlNull.of(JDBCType.DATE));
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+            npps.setParameters(params);
+            ResultSet rs = npps.getPreparedStatement().executeQuery();
+            assertTrue(rs.next());
+            assertEquals("integer", rs.getString("HINTED"));
+            assertEquals("date", rs.getString("WRAPPED"));
+        }
+
+        sql = """
+                SELECT pg_typeof(:STR_VAL) AS STR_VAL, pg_typeof(:DATE_VAL) AS DATE_VAL,
+                  pg_typeof(:TEST_KEY{INTEGER}) AS TEST_KEY
+                """;
+        NamedParameterTestDto dto = new NamedParameterTestDto();
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+            npps.setParameters(dto);
+            ResultSet rs = npps.getPreparedStatement().executeQuery();
+            assertTrue(rs.next());
+            assertEquals("character varying", rs.getString("STR_VAL"));
+            assertEquals("date", rs.getString("DATE_VAL"));
+            assertEquals("integer", rs.getString("TEST_KEY"));
+        }
+    }
+
     @Test
     void testNamedParameterPreparedStatementImplError001() throws Exception {
         String sql = """
@@ -438,13 +842,14 @@ class NamedParameterPreparedStatementImplTest {
                 WHERE STR_VAL = :DUMMY
                 """;
         HashMap<String, Object> params = new HashMap<String, Object>();
-        params.put("DUMMY", new byte[100]);
+        params.put("DUMMY", new Object());
         try {
             NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql);
             npps.setParameters(params);
         } catch (Exception ex) {
             assertTrue(ex instanceof UnsupportedTypeException);
-            assertEquals("型[Bはサポートしていません。必要に応じて書き足してください。", ex.getMessage());
+            assertEquals("型java.lang.Objectはサポートしていません。"
+                         + "必要に応じてNamedParameterPreparedStatement.registerBinder()で登録してください。", ex.getMessage());
             return;
         }
         fail();
@@ -468,4 +873,122 @@ class NamedParameterPreparedStatementImplTest {
         }
         fail();
     }
+
+    @Test
+    void testInList001() throws Exception {
+        SqlAndParams template
+                = NamedParameterPreparedStatementImpl.parseSql("SELECT * FROM T WHERE A IN (:IDS) AND B = :B OR C IN (:IDS)\n");
+        SqlAndParams expanded = template.expand(new int[] {4, 0});
+        assertEquals("SELECT * FROM T WHERE A IN (?, ?, ?, ?) AND B = ? OR C IN (?, ?, ?, ?)\n", expanded.sql);
+        assertArrayEquals(new int[] {1, 2, 3, 4, 6, 7, 8, 9}, expanded.positions[0]);
+        assertArrayEquals(new int[] {5}, expanded.positions[1]);
+        assertSame(expanded, template.expand(new int[] {4, 0}));
+
+        assertEquals(1, NamedParameterPreparedStatementImpl.bucketSize(0));
+        assertEquals(1, NamedParameterPreparedStatementImpl.bucketSize(1));
+        assertEquals(2, NamedParameterPreparedStatementImpl.bucketSize(2));
+        assertEquals(4, NamedParameterPreparedStatementImpl.bucketSize(3));
+        assertEquals(16, NamedParameterPreparedStatementImpl.bucketSize(16));
+        assertEquals(32, NamedParameterPreparedStatementImpl.bucketSize(17));
+    }
+
+    @Test
+    void testInList002() throws Exception {
+        String sql = """
+                SELECT TEST_KEY FROM NAMEDPARAMETERTEST
+                WHERE INT_VAL IN (:IDS) AND TEST_KEY LIKE :PREFIX
+                ORDER BY TEST_KEY
+                """;
+        ResourceBundle rb = ResourceBundle.getBundle("test");
+        Connection physical = DriverManager.getConnection(rb.getString("dbutiltest.url"),
+                rb.getString("dbutiltest.user-name"), rb.getString("dbutiltest.password"));
+        try (Connection cachingConn = NamedParameterPreparedStatement.withStatementCache(physical, 10)) {
+            StatementCache cache = StatementCache.of(cachingConn);
+            HashMap<String, Object> params = new HashMap<>();
+            params.put("PREFIX", "select%");
+            params.put("IDS", List.of(10, 20, 30));
+            assertEquals(List.of("selecttest01", "selecttest02"), selectKeys(cachingConn, sql, params));
+            params.put("IDS", new int[] {20, 40, 50, 60});
+            assertEquals(List.of("selecttest02"), selectKeys(cachingConn, sql, params));
+            params.put("IDS", List.of());
+            assertEquals(List.of(), selectKeys(cachingConn, sql, params));
+            // 要素数3と4は同じSQL(?が4個)になる。
+            assertEquals(2, cache.size());
+            assertEquals(1, cache.getHitCount());
+        }
+    }
+
+    private static List<String> selectKeys(Connection conn, String sql, Map<String, Object> params) throws Exception {
+        ArrayList<String> keys = new ArrayList<>();
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql, params)) {
+            ResultSet rs = npps.executeQuery();
+            while (rs.next()) {
+                keys.add(rs.getString("TEST_KEY"));
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    void testSqlArray001() throws Exception {
+        String sql = """
+                SELECT TEST_KEY FROM NAMEDPARAMETERTEST
+                WHERE INT_VAL = ANY(:IDS)
+                ORDER BY TEST_KEY
+                """;
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("IDS", SqlArray.of("integer", List.of(10, 30)));
+        assertEquals(List.of("selecttest01"), selectKeys(conn, sql, params));
+        params.put("IDS", SqlArray.of("integer", new Integer[] {10, 20}));
+        assertEquals(List.of("selecttest01", "selecttest02"), selectKeys(conn, sql, params));
+    }
+
+    @Test
+    void testInList003() throws Exception {
+        String sql = """
+                SELECT TEST_KEY FROM NAMEDPARAMETERTEST
+                WHERE INT_VAL IN (:IDS)
+                ORDER BY TEST_KEY
+                """;
+        // 20000個を2のべき乗に切り上げると32768個になり上限を超えるので、要素数ちょうどに展開する。
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            ids.add(i);
+        }
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("IDS", ids);
+        assertEquals(List.of("selecttest01", "selecttest02"), selectKeys(conn, sql, params));
+
+        for (int i = 20000; i < 40000; i++) {
+            ids.add(i);
+        }
+        try {
+            selectKeys(conn, sql, params);
+        } catch (IllegalArgumentException ex) {
+            assertEquals("展開後の?の数が上限(32767)を超えています(40000)。"
+                         + "要素数が多い場合は、SqlArray.of()で配列として設定してください。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    void testInListError001() throws Exception {
+        String sql = """
+                SELECT * from NAMEDPARAMETERTEST
+                WHERE INT_VAL IN (:IDS)
+                """;
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("IDS", List.of(10, 20));
+        try (NamedParameterPreparedStatement npps = NamedParameterPreparedStatement.newInstance(conn, sql)) {
+            npps.setParameters(params);
+        } catch (Exception ex) {
+            assertTrue(ex instanceof UnsupportedTypeException);
+            assertEquals("型java.util.ImmutableCollections$List12はサポートしていません。"
+                         + "IN句に展開する場合はNamedParameterPreparedStatement.newInstance(conn, sql, params)を、"
+                         + "配列として設定する場合はSqlArray.of()を使ってください。", ex.getMessage());
+            return;
+        }
+        fail();
+    }
 }
\ No newline at end of file
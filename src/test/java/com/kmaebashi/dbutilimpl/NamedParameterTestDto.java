@@ -0,0 +1,29 @@
+package com.kmaebashi.dbutilimpl;
+
+import com.kmaebashi.dbutil.TableColumn;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class NamedParameterTestDto {
+    @TableColumn("TEST_KEY")
+    public String testKey;
+
+    @TableColumn("INT_VAL")
+    public int intVal;
+
+    @TableColumn("REAL_VAL")
+    public double realVal;
+
+    @TableColumn("BOOL_VAL")
+    public boolean boolVal;
+
+    @TableColumn("STR_VAL")
+    public String strVal;
+
+    @TableColumn("DATE_VAL")
+    public LocalDate dateVal;
+
+    @TableColumn("TIMESTAMP_VAL")
+    public LocalDateTime timestampVal;
+}